@@ -1,9 +1,11 @@
-/**
- * 
- */
-/**
- * 
- */
-module Simulation { requires java.desktop;
-requires org.jfree.jfreechart;
+/**
+ * 
+ */
+/**
+ * 
+ */
+module Simulation { requires java.desktop;
+requires org.jfree.jfreechart;
+requires jdk.management;
+requires jdk.httpserver;
 }
\ No newline at end of file
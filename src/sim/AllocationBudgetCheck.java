@@ -0,0 +1,80 @@
+package sim;
+
+import java.util.Locale;
+
+/**
+ * Checks that a warmed‐up tick allocates nothing it does not have to: runs
+ * a seeded simulation with a {@link PhaseMeter} attached and compares each
+ * phase's allocation on the simulation thread against its budget.
+ * <ul>
+ *   <li>every phase but birth: 0 bytes per tick, in every measured tick;</li>
+ *   <li>birth: {@link #BYTES_PER_BIRTH} per child born plus
+ *       {@link #BIRTH_SLACK} per tick, for the child itself (genome, brain
+ *       slot, memory) and the odd growth of reused buffers.</li>
+ * </ul>
+ * Runs sequentially; parallel mode hands work to the common pool, whose
+ * allocation the meter does not see. Prints a table of bytes and time per
+ * phase and exits with status 1 if any budget is exceeded.
+ *
+ * <p>Usage: {@code AllocationBudgetCheck [population] [warmupTicks] [ticks] [seed]}.
+ */
+public class AllocationBudgetCheck {
+    static final long BYTES_PER_BIRTH = 2048;
+    static final long BIRTH_SLACK = 16 * 1024;
+
+    /** Counts births without allocating. */
+    private static final class BirthCounter implements SimulationObserver {
+        long births = 0;
+        long tickBirths = 0;
+        long maxTickBirths = 0;
+
+        @Override public void onBirth(Creature c) { births++; tickBirths++; }
+        @Override public void onTickEnd(Simulation sim) {
+            if (tickBirths > maxTickBirths) maxTickBirths = tickBirths;
+            tickBirths = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int warmup     = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int ticks      = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long seed      = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        Simulation sim = new Simulation(population, 10, 0.006, 0.025, seed);
+        sim.getEvents().setVerbose(false);
+        BirthCounter births = new BirthCounter();
+        sim.addObserver(births);
+        PhaseMeter meter = new PhaseMeter();
+        sim.setPhaseMeter(meter);
+        sim.run(warmup);
+        meter.reset();
+        births.births = 0;
+        births.maxTickBirths = 0;
+        sim.run(ticks);
+
+        int failures = 0;
+        System.out.printf(Locale.ROOT, "%-10s %14s %14s %12s %10s%n", "phase", "bytes", "max/tick", "bytes/tick", "us/tick");
+        for (int p = 0; p < PhaseMeter.PHASES.length; p++) {
+            long budget = p == PhaseMeter.BIRTH
+                ? BYTES_PER_BIRTH * births.births + BIRTH_SLACK * ticks
+                : 0;
+            boolean over = meter.bytes(p) > budget
+                        || (p != PhaseMeter.BIRTH && meter.maxBytes(p) > 0);
+            if (over) failures++;
+            System.out.printf(Locale.ROOT, "%-10s %14d %14d %12.1f %10.1f%s%n",
+                              PhaseMeter.PHASES[p], meter.bytes(p), meter.maxBytes(p),
+                              (double) meter.bytes(p) / ticks, meter.nanos(p) / 1e3 / ticks,
+                              over ? "   OVER BUDGET (" + budget + ")" : "");
+        }
+        System.out.printf(Locale.ROOT, "%d ticks, %d births (%.1f bytes per birth), population %d%n",
+                          ticks, births.births,
+                          births.births == 0 ? 0.0 : (double) meter.bytes(PhaseMeter.BIRTH) / births.births,
+                          sim.getCreatures().size());
+        if (failures == 0) {
+            System.out.println("All phases within budget");
+            return;
+        }
+        System.exit(1);
+    }
+}
@@ -0,0 +1,41 @@
+package sim;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * What a {@link Creature} needs from its controller: write senses into
+ * {@link #inputBuffer()}, call {@link #forward()}, and learn from rewards.
+ * Implemented by the fixed {@link NeuralNet} and the evolving {@link NeatBrain}.
+ */
+public interface Brain {
+    /** The input layer; write inputs here before {@link #forward()}. */
+    double[] inputBuffer();
+
+    /** Evaluates the current inputs; the returned buffer is reused by the next call. */
+    default double[] forward() { return forward(false); }
+
+    /** As {@link #forward()}, with hidden‐unit tanh from {@link FastMath#tanh} when {@code fastMath}. */
+    double[] forward(boolean fastMath);
+
+    /** Delta‐rule learning on the last activations; see {@link NeuralNet#reward(double, double, int)}. */
+    void reward(double rate, double reward, int batchTicks);
+
+    /** True while batched rewards wait to be written into the weights. */
+    default boolean hasPendingRewards() { return false; }
+
+    /** Strengthens every connection leaving one input. */
+    void addInputBias(int inputIndex, double delta);
+
+    /** A child brain mixing this one with {@code other}, which must be the same kind. */
+    Brain crossover(Brain other, Random rng);
+
+    void mutate(double rate, double magnitude, Random rng);
+
+    /** Returns any pooled storage; the brain must not be used afterwards. */
+    void release();
+
+    /** Serialises the brain for migration between partitions. */
+    void writeTo(DataOutput out) throws IOException;
+}
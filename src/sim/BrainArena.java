@@ -0,0 +1,80 @@
+package sim;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slab storage for every brain of one topology in a {@link Simulation}.
+ *
+ * <p>Brains live in large shared {@code double[]} chunks cut into fixed‐size
+ * slots, one slot per {@link NeuralNet} holding its whole record: the
+ * weights, then the activations of its last forward pass (see
+ * {@link NeuralNet#recordSize}). A net stays bound to its slot for
+ * life; when its creature dies the net goes onto a free list and the next
+ * birth takes it over and overwrites the slot in place. Once the arena has
+ * grown to the peak population, births allocate no brain storage at all, and
+ * the chunks are long‐lived so dead brains no longer churn the old generation.
+ *
+ * <p>With an {@link OffHeapSlabs} store the chunks are direct or mapped
+ * buffers instead of arrays, which takes every brain's numeric state off
+ * the heap: each net is left as one small heap object and its layer offsets.
+ */
+final class BrainArena {
+    private static final int SLOTS_PER_CHUNK = 1024;
+
+    private final int[] layerSizes;
+    private final int slotSize;
+    private final OffHeapSlabs offHeap;   // null: chunks are heap arrays
+    private final List<double[]> chunks = new ArrayList<>();
+    private final List<DoubleBuffer> slabs = new ArrayList<>();   // the chunks, when off the heap
+    private int slotsUsed = 0;            // slots ever handed out
+    private NeuralNet[] free = new NeuralNet[0];   // sized to the capacity as chunks are added
+    private int freeCount = 0;
+
+    BrainArena(int... layerSizes) {
+        this(null, layerSizes);
+    }
+
+    BrainArena(OffHeapSlabs offHeap, int... layerSizes) {
+        this.offHeap    = offHeap;
+        this.layerSizes = layerSizes.clone();
+        this.slotSize   = NeuralNet.recordSize(layerSizes);
+    }
+
+    /**
+     * Returns a net whose weights are whatever its slot last held; the caller
+     * must overwrite all of them.
+     */
+    NeuralNet acquire() {
+        if (freeCount > 0) {
+            NeuralNet n = free[--freeCount];
+            free[freeCount] = null;
+            n.reacquire();
+            return n;
+        }
+        int inChunk = slotsUsed % SLOTS_PER_CHUNK;
+        if (inChunk == 0) {
+            if (offHeap != null) slabs.add(offHeap.allocate(SLOTS_PER_CHUNK * slotSize));
+            else chunks.add(new double[SLOTS_PER_CHUNK * slotSize]);
+            // room to free every slot there is, so release (on a death, mid‐tick) never grows it
+            free = Arrays.copyOf(free, getCapacity());
+        }
+        slotsUsed++;
+        if (offHeap != null) return new NeuralNet(layerSizes, this, slabs.get(slabs.size() - 1), inChunk * slotSize);
+        return new NeuralNet(layerSizes, this, chunks.get(chunks.size() - 1), inChunk * slotSize);
+    }
+
+    /** Puts a net back on the free list; called once, when its creature dies. */
+    void release(NeuralNet n) {
+        free[freeCount++] = n;
+    }
+
+    boolean fits(int[] sizes)  { return Arrays.equals(layerSizes, sizes); }
+    int getLiveCount()         { return slotsUsed - freeCount; }
+    int getCapacity()          { return (chunks.size() + slabs.size()) * SLOTS_PER_CHUNK; }
+    boolean isOffHeap()        { return offHeap != null; }
+    /** Bytes of brain storage held, on or off the heap. */
+    long getBytes()            { return 8L * getCapacity() * slotSize; }
+}
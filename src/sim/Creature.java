@@ -1,278 +1,556 @@
-package sim;
-
-import java.util.*;
-import java.util.stream.Collectors;
-
-public class Creature {
-    private static final Random RNG = new Random();
-    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
-
-    public enum Sex { MALE, FEMALE }
-
-    // — Genome and life state —
-    private final char[] genome;
-    private final Sex sex;
-    private int age = 0;
-    private boolean alive = true;
-
-    // — Spatial, hunger, neural “brain,” memory, and foraging —
-    private int x, y;
-    private int hunger = 0;
-    private static final int MAX_HUNGER     = 25;
-    private static final int MOVE_SPEED     = 6;
-    static final int HOVER_DISTANCE = 10;
-    private static final int PACK_RADIUS    = 30;
-    private static final double FORAGE_PROB = 0.10; // 10% chance per tick
-    private final NeuralNet brain;
-    private final Deque<double[]> memory;
-    private static final int MEMORY_SIZE    = 5;
-    private final Creature parentA, parentB;
-
-    public Creature(char[] genome, Sex sex) {
-    	this.parentA = null;
-    	this.parentB = null;
-        this.genome = genome;
-        this.sex    = sex;
-        this.x      = RNG.nextInt(Simulation.WORLD_W);
-        this.y      = RNG.nextInt(Simulation.WORLD_H);
-        this.brain  = new NeuralNet(5, 8, 2);
-        this.memory = new ArrayDeque<>(MEMORY_SIZE);
-        
-        // Pre‐bias the "survival" inputs (indices 3 and 4)
-        double biasAmount = 0.2;
-        brain.addInputBias(3, biasAmount);  // dxSurv
-        brain.addInputBias(4, biasAmount);  // dySurv
-    }
-
-    private Creature(Creature parentA, Creature parentB, char[] genome, Sex sex, NeuralNet brain, Deque<double[]> mem ) {
-        this.parentA = parentA;
-        this.parentB = parentB;
-    	this.genome = genome;
-        this.sex    = sex;
-        this.x       = (parentA.x + parentB.x) / 2;
-        this.y       = (parentA.y + parentB.y) / 2;
-        this.brain  = brain;
-        this.memory = new ArrayDeque<>(mem);
-    }
-
-    /** Helper to generate a random root creature */
-    public static Creature randomCreature(int genomeLength) {
-        char[] g = new char[genomeLength];
-        for (int i = 0; i < genomeLength; i++)
-            g[i] = (char)('A' + RNG.nextInt(26));
-        Sex s = RNG.nextBoolean() ? Sex.MALE : Sex.FEMALE;
-        return new Creature(g, s);
-    }
-
-
-    public Creature mateWith(Creature other) {
-        // genome crossover + mutation
-        int len = genome.length;
-        char[] childG = new char[len];
-        int cp = RNG.nextInt(len);
-        for (int i = 0; i < len; i++) {
-            childG[i] = (i < cp ? this.genome[i] : other.genome[i]);
-            if (RNG.nextDouble() < 0.01)
-                childG[i] = (char)('A' + RNG.nextInt(26));
-        }
-        Sex childSex = RNG.nextBoolean() ? Sex.MALE : Sex.FEMALE;
-
-        // brain crossover + mutation
-        NeuralNet childBrain = this.brain.crossover(other.brain);
-        childBrain.mutate(0.05, 0.2);
-
-        // memory mixing
-        Deque<double[]> childMem = new ArrayDeque<>(MEMORY_SIZE);
-        List<double[]> aMem = new ArrayList<>(this.memory);
-        List<double[]> bMem = new ArrayList<>(other.memory);
-        for (int i = 0; i < MEMORY_SIZE/2 && i < aMem.size(); i++) {
-            childMem.addLast(aMem.get(i));
-        }
-        for (int i = 0; childMem.size() < MEMORY_SIZE && i < bMem.size(); i++) {
-            childMem.addLast(bMem.get(i));
-        }
- 
-        return new Creature(this, other, childG, childSex, childBrain, childMem);
-    }
-
-    /** Set initial position (used for children) */
-    public void setPosition(int x, int y) {
-        this.x = clamp(x, 0, Simulation.WORLD_W-1);
-        this.y = clamp(y, 0, Simulation.WORLD_H-1);
-    }
-    
-    public void die()     			{ alive = false; }
-    public void stepAge() 			{ if (alive) age++; }
-    public Creature getParentA() 	{ return parentA; }
-    public Creature getParentB() 	{ return parentB; }
-    public int  getAge()            { return age; }
-    public boolean isAlive()        { return alive; }
-    public Sex getSex()             { return sex; }
-    public String getGenomeString() { return new String(genome); }
-    public int  getX()              { return x; }
-    public int  getY()              { return y; }
-    
-    
- 
-    /**
-     * Returns a fitness score between 1.0 and 100.0, computed as a weighted
-     * combination of:
-     *   1) Hunger sub‐score   (higher if well‐fed)
-     *   2) Age sub‐score      (peaks around middle age)
-     *   3) Biome sub‐score    (based on current biome’s forageMod)
-     *   4) Pack sub‐score     (based on number of neighbors)
-     */
-    public double getFitness(Simulation sim) {
-        // 1) Hunger sub‐score in [0…1]
-        double hungerScore = 1.0 - ((double) hunger / MAX_HUNGER);
-        hungerScore = Math.max(0, Math.min(1, hungerScore));
-
-        // ── (2) Age sub‐score using a Gaussian [0…1], peaking at mid‐life ──
-        double mid     = Simulation.MAX_AGE / 2.0;
-        double sigma   = mid / 2.0;  
-        // Gaussian: exp(-((age - mid)^2) / (2*sigma^2))
-        double ageDiff = age - mid;
-        double ageScore = Math.exp(- (ageDiff * ageDiff) / (2 * sigma * sigma));
-        // ageScore is in (0…1], with age == mid → 1.0, and tails → 0.0
-
-        // 3) Biome sub‐score in [0…1]
-        Biome b = sim.getBiomeAt(x, y);
-        double maxForage = 3.0;  // adjust if your highest forageMod differs
-        double biomeScore = b.forageModifier / maxForage;
-        biomeScore = Math.max(0, Math.min(1, biomeScore));
-
-        // 4) Pack sub‐score in [0…1], based on neighbor count
-        List<Creature> neighbors = sim.getCreatures().stream()
-            .filter(c -> c != this)
-            .filter(c -> {
-                int dx = c.x - x, dy = c.y - y;
-                return dx*dx + dy*dy <= PACK_RADIUS * PACK_RADIUS;
-            })
-            .collect(Collectors.toList());
-        int n = neighbors.size();
-        double packScore = Math.min(n / 10.0, 1.0);  // ideal ≤10 neighbors
-
-        // 5) Weighted combination (all in [0…1])
-        double wH = 0.4, wA = 0.3, wB = 0.2, wP = 0.1;
-        double raw = (hungerScore * wH)
-                   + (ageScore    * wA)
-                   + (biomeScore  * wB)
-                   + (packScore   * wP);
-
-        // 6) Scale to [1…100]
-        return 1.0 + (raw * 99.0);
-    } 
-    @Override
-    public String toString() {
-        return String.format("Age:%2d\tSex:%-6s Genome:%s Hunger:%d",
-                             age, sex, getGenomeString(), hunger);
-    }
-    
-    /**
-     * Called once per timestep:
-     * 1) Attempt forage based on biome.
-     * 2) If unsuccessful, increase hunger and possibly die.
-     * 3) Sense pack centroid & density.
-     * 4) Sense direction toward highest-survival biome.
-     * 5) Move according to the net’s output.
-     */
-    public void act(Simulation sim) {
-    	  // 1) Forage based on current biome AND elevation
-        Biome bCur = sim.getBiomeAt(x, y);
-        double elevationAtCurrent = sim.getHeight(x, y);
-        // reduce forage probability at higher elevation: multiply by (1 - elevation)
-        double pForage = FORAGE_PROB 
-                * bCur.forageModifier 
-                * elevationAtCurrent;
-        
-        if (RNG.nextDouble() < pForage) {
-            hunger = 0;
-        } else {
-            // 2) Hunger check
-            hunger++;
-            if (hunger > MAX_HUNGER) {
-                die();
-                return;
-            }
-        }
-
-        // 3) Pack sensing: centroid & density within PACK_RADIUS
-        List<Creature> neighbors = sim.getCreatures().stream()
-            .filter(c -> c != this)
-            .filter(c -> {
-                int dx = c.x - x, dy = c.y - y;
-                return dx*dx + dy*dy <= PACK_RADIUS*PACK_RADIUS;
-            })
-            .collect(Collectors.toList());
-
-        double dxPack = 0, dyPack = 0, density = 0;
-        if (!neighbors.isEmpty()) {
-            double avgX = neighbors.stream().mapToDouble(c -> c.x).average().orElse(x);
-            double avgY = neighbors.stream().mapToDouble(c -> c.y).average().orElse(y);
-            dxPack  = (avgX - x) / (double)Simulation.WORLD_W;
-            dyPack  = (avgY - y) / (double)Simulation.WORLD_H;
-            density = neighbors.size() / (Math.PI * PACK_RADIUS * PACK_RADIUS);
-        }
-       
-        double oldScore = bCur.forageModifier / bCur.deathModifier;
-
-        double dxSurv = 0, dySurv = 0;
-        {
-            Biome best = null;
-            double bestScore = Double.NEGATIVE_INFINITY;
-            for (Biome b : sim.getBiomes()) {
-                double score = b.forageModifier / b.deathModifier;
-                if (score > bestScore) {
-                    bestScore = score;
-                    best = b;
-                }
-            }
-            if (best != null) {
-                double centerX = best.x + best.width  / 2.0;
-                double centerY = best.y + best.height / 2.0;
-                dxSurv = (centerX - x) / (double)Simulation.WORLD_W;
-                dySurv = (centerY - y) / (double)Simulation.WORLD_H;
-            }
-        }
-
-        // --- Build inputs & forward through net ---
-        double[] inputs = { dxPack, dyPack, density, dxSurv, dySurv };
-        double[] out    = brain.forward(inputs);
-
-        // Intended movement at full MOVE_SPEED
-        int intendedVX = (int) Math.signum(out[0]) * MOVE_SPEED;
-        int intendedVY = (int) Math.signum(out[1]) * MOVE_SPEED;
-
-        // Compute elevation difference to scale movement
-        int tx = clamp(x + intendedVX, 0, Simulation.WORLD_W - 1);
-        int ty = clamp(y + intendedVY, 0, Simulation.WORLD_H - 1);
-        double elevationOld = sim.getHeight(x, y);
-        double elevationNew = sim.getHeight(tx, ty);
-        double slope = elevationNew - elevationOld;  // positive = uphill
-
-        // Scale factor: uphill (slope>0) slows you down, downhill (slope<0) speeds you up.
-        // We clamp factor between [0.5 .. 1.5].
-        double factor = 1.0 - slope;
-        factor = Math.max(0.5, Math.min(1.5, factor));
-
-        int actualVX = (int) Math.signum(out[0] == 0 ? 0 : intendedVX) * (int) Math.max(1, Math.round(Math.abs(intendedVX) * factor));
-        int actualVY = (int) Math.signum(out[1] == 0 ? 0 : intendedVY) * (int) Math.max(1, Math.round(Math.abs(intendedVY) * factor));
-
-        // Apply movement
-        x = clamp(x + actualVX, 0, Simulation.WORLD_W - 1);
-        y = clamp(y + actualVY, 0, Simulation.WORLD_H - 1);
-
-        // --- Compute newScore after the move ---
-        Biome bNew     = sim.getBiomeAt(x, y);
-        double newScore = bNew.forageModifier / bNew.deathModifier;
-
-        // --- Reward = positive if we moved closer to high‐survival biome, negative otherwise ---
-        double reward = newScore - oldScore;
-        brain.reward(0.05, reward);
-    }
-
-    /** Clamp v into the [lo, hi] range. */
-    private int clamp(int v, int lo, int hi) {
-        return v < lo ? lo : (v > hi ? hi : v);
-    }
+package sim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+public class Creature {
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    public enum Sex { MALE, FEMALE }
+
+    // — Genome and life state —
+    private final char[] genome;
+    private final Sex sex;
+    private int age = 0;
+    private boolean alive = true;
+    int id = -1;                        // assigned by the Simulation on entry, unique per run
+    int pointMutations = 0;             // genome loci rewritten at birth
+
+    // — Spatial, hunger, neural “brain,” memory, and foraging —
+    private int x, y;
+    private int hunger = 0;
+    static final int MAX_HUNGER     = 25;
+    static final int MOVE_SPEED     = 6;
+    static final int HOVER_DISTANCE = 10;
+    static final int PACK_RADIUS    = 30;
+    static final double FORAGE_PROB = 0.10; // 10% chance per tick
+    static final int MEMORY_SIZE    = 5;   // remembered ticks
+    static final int MEMORY_WIDTH   = 2;   // features per tick: last move (vx, vy)
+    private static final int SENSE_INPUTS = 5;
+    // sensed features, then memory oldest → newest
+    static final int[] BRAIN_LAYERS = { SENSE_INPUTS + MEMORY_SIZE * MEMORY_WIDTH, 8, 2 };
+    private final Brain brain;
+    // memory is a ring of MEMORY_SIZE entries in a MemoryBank slot
+    private final MemoryBank memory;
+    private final int memSlot;
+    private int memHead = 0, memCount = 0;
+    private final Creature parentA, parentB;
+    private final int generation;       // 0 without parents, else one past the later parent's
+    // — What a HeatmapLayer last added for this creature, so it can take it back —
+    int heatCell = -1;
+    double heatFitness = -1;            // < 0 until the first death‐phase evaluation
+    int heatHunger;
+    // — Sleep state, owned by SleepScheduler —
+    int wakeTick = -1;                  // ≥ 0 while asleep: the nap's end, or the tick it starves
+    int napStart, nap = 0;              // first tick asleep; length of the last nap
+    long sleptAt;                       // scheduler change counter when it fell asleep
+    private long forageMask;            // bit i: forage succeeds on tick napStart + i
+    private SleepScheduler scheduler;   // while asleep: whose clock the nap runs on
+    private int replayed;               // nap ticks already replayed into memory
+    boolean quiet = false;              // last two acts chose the same heading, no reward
+    private int lastSX, lastSY;         // heading of the last act
+    private double lastOutX, lastOutY;  // its raw outputs, replayed into memory for the ticks it slept
+    private double goalX, goalY;        // centre of the best biome as last sensed
+
+    /** A root creature whose random brain is drawn into a slot of {@code sim}'s arena. */
+    Creature(char[] genome, Sex sex, Simulation sim) {
+    	this.parentA = null;
+    	this.parentB = null;
+    	this.generation = 0;
+        this.genome = genome;
+        this.sex    = sex;
+        this.x      = sim.random().nextInt(Simulation.WORLD_W);
+        this.y      = sim.random().nextInt(Simulation.WORLD_H);
+        this.brain  = sim.newRootBrain();
+        this.memory  = sim.getMemoryBank();
+        this.memSlot = memory.allocate();
+        
+        // Pre‐bias the "survival" inputs (indices 3 and 4)
+        double biasAmount = 0.2;
+        brain.addInputBias(3, biasAmount);  // dxSurv
+        brain.addInputBias(4, biasAmount);  // dySurv
+    }
+
+    private Creature(Creature parentA, Creature parentB, char[] genome, Sex sex, Brain brain, int memSlot) {
+        this.parentA = parentA;
+        this.parentB = parentB;
+        this.generation = 1 + Math.max(parentA.generation, parentB.generation);
+    	this.genome = genome;
+        this.sex    = sex;
+        this.x       = (parentA.x + parentB.x) / 2;
+        this.y       = (parentA.y + parentB.y) / 2;
+        this.brain  = brain;
+        this.memory  = parentA.memory;
+        this.memSlot = memSlot;
+    }
+
+    /** A creature arriving from another partition; lineage does not cross process borders. */
+    private Creature(char[] genome, Sex sex, Brain brain, MemoryBank memory,
+                     int x, int y, int age, int hunger) {
+        this.parentA = null;
+        this.parentB = null;
+        this.generation = 0;
+        this.genome  = genome;
+        this.sex     = sex;
+        this.brain   = brain;
+        this.memory  = memory;
+        this.memSlot = memory.allocate();
+        this.x       = x;
+        this.y       = y;
+        this.age     = age;
+        this.hunger  = hunger;
+    }
+
+    /**
+     * A creature released from a {@link MeanFieldGrid} cell: body and genome
+     * come back as counted, the brain is a fresh root brain.
+     */
+    static Creature rematerialize(Simulation sim, char[] genome, Sex sex, int x, int y, int age, int hunger) {
+        Brain brain = sim.newRootBrain();
+        brain.addInputBias(3, 0.2);   // as for root creatures
+        brain.addInputBias(4, 0.2);
+        return new Creature(genome, sex, brain, sim.getMemoryBank(), x, y, age, hunger);
+    }
+
+    /** Helper to generate a random root creature */
+    static Creature randomCreature(Simulation sim, int genomeLength) {
+        Random rng = sim.random();
+        char[] g = new char[genomeLength];
+        for (int i = 0; i < genomeLength; i++)
+            g[i] = (char)('A' + rng.nextInt(26));
+        Sex s = rng.nextBoolean() ? Sex.MALE : Sex.FEMALE;
+        return new Creature(g, s, sim);
+    }
+
+
+    public Creature mateWith(Creature other, Random rng) {
+        return mateWith(other, rng, null, memory.allocate());
+    }
+
+    /**
+     * As {@link #mateWith(Creature, Random)}, with the draws in the same
+     * order, into storage taken beforehand by {@link #reserveChildBrain()}
+     * (null: crossover takes its own) and {@link #reserveChildMemory()}.
+     * With both reserved nothing shared is written, so children of disjoint
+     * pairs can be built on several threads at once.
+     */
+    Creature mateWith(Creature other, Random rng, NeuralNet brainSlot, int memSlot) {
+        // genome crossover + mutation
+        int len = genome.length;
+        char[] childG = new char[len];
+        int cp = rng.nextInt(len);
+        int mutated = 0;
+        for (int i = 0; i < len; i++) {
+            childG[i] = (i < cp ? this.genome[i] : other.genome[i]);
+            if (rng.nextDouble() < 0.01) {
+                childG[i] = (char)('A' + rng.nextInt(26));
+                mutated++;
+            }
+        }
+        Sex childSex = rng.nextBoolean() ? Sex.MALE : Sex.FEMALE;
+
+        // brain crossover + mutation
+        Brain childBrain = brainSlot != null
+            ? ((NeuralNet) this.brain).crossover((NeuralNet) other.brain, brainSlot, rng)
+            : this.brain.crossover(other.brain, rng);
+        childBrain.mutate(0.05, 0.2, rng);
+
+        // memory mixing: oldest half of ours, then fill from the other's oldest
+        this.replayNap();
+        other.replayNap();
+        Creature child = new Creature(this, other, childG, childSex, childBrain, memSlot);
+        double[] dst = memory.chunk(child.memSlot);
+        int at = memory.base(child.memSlot);
+        int n = this.copyOldest(MEMORY_SIZE/2, dst, at);
+        n += other.copyOldest(MEMORY_SIZE - n, dst, at + n * MEMORY_WIDTH);
+        child.memCount = n;
+        child.pointMutations = mutated;
+        return child;
+    }
+
+    /** Weight storage for a child's brain, or null if the brain is not a slab‐backed net (NEAT). */
+    NeuralNet reserveChildBrain() {
+        return brain instanceof NeuralNet ? ((NeuralNet) brain).newChild() : null;
+    }
+
+    /** A memory slot for a child. */
+    int reserveChildMemory() {
+        return memory.allocate();
+    }
+
+    /**
+     * Bulk‐copies up to {@code n} of this creature's oldest memory entries,
+     * oldest first, into {@code dst} at {@code off}: at most two arraycopies,
+     * one per side of the ring's wrap point. Returns the entries copied.
+     */
+    private int copyOldest(int n, double[] dst, int off) {
+        n = Math.min(n, memCount);
+        double[] src = memory.chunk(memSlot);
+        int base = memory.base(memSlot);
+        int first = Math.min(n, MEMORY_SIZE - memHead);
+        System.arraycopy(src, base + memHead * MEMORY_WIDTH, dst, off, first * MEMORY_WIDTH);
+        System.arraycopy(src, base, dst, off + first * MEMORY_WIDTH, (n - first) * MEMORY_WIDTH);
+        return n;
+    }
+
+    /** Appends one tick's entry, overwriting the oldest once the ring is full. */
+    private void remember(double vx, double vy) {
+        int slot;
+        if (memCount < MEMORY_SIZE) {
+            slot = (memHead + memCount++) % MEMORY_SIZE;
+        } else {
+            slot = memHead;
+            memHead = (memHead + 1) % MEMORY_SIZE;
+        }
+        double[] buf = memory.chunk(memSlot);
+        int at = memory.base(memSlot) + slot * MEMORY_WIDTH;
+        buf[at]     = vx;
+        buf[at + 1] = vy;
+    }
+
+    /** Serialises the full live state (genome, body, brain) for migration. */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeShort(genome.length);
+        for (char g : genome) out.writeByte(g);
+        out.writeByte(sex.ordinal());
+        out.writeShort(x);
+        out.writeShort(y);
+        out.writeShort(age);
+        out.writeShort(hunger);
+        brain.writeTo(out);
+        double[] mem = new double[MEMORY_SIZE * MEMORY_WIDTH];
+        int n = copyOldest(memCount, mem, 0);
+        out.writeByte(n);
+        for (int i = 0; i < n * MEMORY_WIDTH; i++) out.writeDouble(mem[i]);
+    }
+
+    /** Reads a creature written by {@link #writeTo}. */
+    static Creature readFrom(DataInput in, Simulation sim) throws IOException {
+        char[] g = new char[in.readShort()];
+        for (int i = 0; i < g.length; i++) g[i] = (char) in.readByte();
+        Sex s = Sex.values()[in.readByte()];
+        int x = in.readShort(), y = in.readShort();
+        int age = in.readShort(), hunger = in.readShort();
+        Brain brain = sim.readBrain(in);
+        Creature c = new Creature(g, s, brain, sim.getMemoryBank(), x, y, age, hunger);
+        c.memCount = in.readByte();
+        double[] buf = c.memory.chunk(c.memSlot);
+        int at = c.memory.base(c.memSlot);
+        for (int i = 0; i < c.memCount * MEMORY_WIDTH; i++) buf[at + i] = in.readDouble();
+        return c;
+    }
+
+    /** Set initial position (used for children) */
+    public void setPosition(int x, int y) {
+        this.x = clamp(x, 0, Simulation.WORLD_W-1);
+        this.y = clamp(y, 0, Simulation.WORLD_H-1);
+    }
+    
+    /** Marks this creature dead and hands its brain and memory slots back for the next birth. */
+    public void die() {
+        if (!alive) return;
+        alive = false;
+        brain.release();
+        memory.release(memSlot);
+    }
+
+    public void stepAge() 			{ if (alive) age++; }
+    public Creature getParentA() 	{ return parentA; }
+    public Creature getParentB() 	{ return parentB; }
+    public int  getGeneration()     { return generation; }
+    public int  getId()             { return id; }
+    public int  getAge()            { return age; }
+    public int  getHunger()         { return scheduler == null ? hunger : napHunger(scheduler.coasted(this)); }
+    public boolean isAlive()        { return alive; }
+    public Sex getSex()             { return sex; }
+    public String getGenomeString() { return new String(genome); }
+    char[] genome()                 { return genome; }   // shared, do not modify
+    public int  getX()              { return x; }
+    public int  getY()              { return y; }
+    
+    
+ 
+    /**
+     * Returns a fitness score between 1.0 and 100.0, computed as a weighted
+     * combination of:
+     *   1) Hunger sub‐score   (higher if well‐fed)
+     *   2) Age sub‐score      (peaks around middle age)
+     *   3) Biome sub‐score    (based on current biome’s forageMod)
+     *   4) Pack sub‐score     (based on number of neighbors)
+     */
+    public double getFitness(Simulation sim) {
+        Biome b = sim.getBiomeAt(x, y);
+        // pack: neighbours within PACK_RADIUS, here and in the halo
+        List<Creature> pop = sim.population;
+        int n = sim.countHaloWithin(x, y, PACK_RADIUS);
+        for (int i = 0, size = pop.size(); i < size; i++) {
+            Creature c = pop.get(i);
+            if (c == this || !c.alive) continue;
+            int dx = c.x - x, dy = c.y - y;
+            if (dx*dx + dy*dy <= PACK_RADIUS * PACK_RADIUS) n++;
+        }
+        return fitness(getHunger(), age, b, n);
+    }
+
+    /**
+     * The fitness formula on its own, for a creature with the given hunger and
+     * age in biome {@code b} with {@code neighbours} others in pack range.
+     */
+    static double fitness(int hunger, int age, Biome b, int neighbours) {
+        // 1) Hunger sub‐score in [0…1]
+        double hungerScore = 1.0 - ((double) hunger / MAX_HUNGER);
+        hungerScore = Math.max(0, Math.min(1, hungerScore));
+
+        // ── (2) Age sub‐score using a Gaussian [0…1], peaking at mid‐life ──
+        // exp(-((age - mid)^2) / (2*sigma^2)), tabulated per age (exact)
+        double ageScore = FastMath.ageScore(age);
+        // ageScore is in (0…1], with age == mid → 1.0, and tails → 0.0
+
+        // 3) Biome sub‐score in [0…1]
+        double maxForage = 3.0;  // adjust if your highest forageMod differs
+        double biomeScore = b.forageModifier / maxForage;
+        biomeScore = Math.max(0, Math.min(1, biomeScore));
+
+        // 4) Pack sub‐score in [0…1], based on neighbor count
+        double packScore = Math.min(neighbours / 10.0, 1.0);  // ideal ≤10 neighbors
+
+        // 5) Weighted combination (all in [0…1])
+        double wH = 0.4, wA = 0.3, wB = 0.2, wP = 0.1;
+        double raw = (hungerScore * wH)
+                   + (ageScore    * wA)
+                   + (biomeScore  * wB)
+                   + (packScore   * wP);
+
+        // 6) Scale to [1…100]
+        return 1.0 + (raw * 99.0);
+    } 
+    @Override
+    public String toString() {
+        return String.format("Age:%2d\tSex:%-6s Genome:%s Hunger:%d",
+                             age, sex, getGenomeString(), getHunger());
+    }
+    
+    /**
+     * Called once per timestep:
+     * 1) Attempt forage based on biome.
+     * 2) If unsuccessful, increase hunger and possibly die.
+     * 3) Sense pack centroid & density.
+     * 4) Sense direction toward highest-survival biome.
+     * 5) Move according to the net’s output.
+     */
+    public void act(Simulation sim) {
+    	  // 1) Forage based on current biome AND elevation
+        Biome bCur = sim.getBiomeAt(x, y);
+        double pForage = forageChance(sim, bCur);
+        
+        if (sim.random().nextDouble() < pForage) {
+            hunger = 0;
+            if (sim.getFood() != null) sim.getFood().eat(x, y);
+        } else {
+            // 2) Hunger check
+            hunger++;
+            if (hunger > MAX_HUNGER) {
+                die();
+                return;
+            }
+        }
+
+        // 3) Pack sensing: centroid & density within PACK_RADIUS
+        //    (an index loop, no stream: this runs for every creature every tick;
+        //    creatures that died earlier this tick are still listed until it ends)
+        List<Creature> pop = sim.population;
+        int n = 0;
+        double sumX = 0, sumY = 0;
+        for (int i = 0, size = pop.size(); i < size; i++) {
+            Creature c = pop.get(i);
+            if (c == this || !c.alive) continue;
+            int dx = c.x - x, dy = c.y - y;
+            if (dx*dx + dy*dy <= PACK_RADIUS*PACK_RADIUS) {
+                sumX += c.x;
+                sumY += c.y;
+                n++;
+            }
+        }
+
+        // read-only halo copies mirrored from neighbouring partitions count too
+        for (int h = 0; h < sim.haloCount; h++) {
+            int dx = sim.haloX[h] - x, dy = sim.haloY[h] - y;
+            if (dx*dx + dy*dy <= PACK_RADIUS*PACK_RADIUS) {
+                sumX += sim.haloX[h];
+                sumY += sim.haloY[h];
+                n++;
+            }
+        }
+
+        double dxPack = 0, dyPack = 0, density = 0;
+        if (n > 0) {
+            double avgX = sumX / n;
+            double avgY = sumY / n;
+            dxPack  = (avgX - x) / (double)Simulation.WORLD_W;
+            dyPack  = (avgY - y) / (double)Simulation.WORLD_H;
+            density = n / (Math.PI * PACK_RADIUS * PACK_RADIUS);
+        }
+       
+        double oldScore = bCur.forageModifier / bCur.deathModifier;
+
+        // 4) Survival sense: toward the best biome of the season, straight at its
+        //    centre or, with flow sensing, along the cheapest path over the terrain
+        Biome best = sim.getBestBiome();
+        goalX = best.x + best.width  / 2.0;
+        goalY = best.y + best.height / 2.0;
+        double dxSurv, dySurv;
+        FlowField flow = sim.getFlowField();
+        if (flow != null) {
+            dxSurv = flow.senseX(x, y);
+            dySurv = flow.senseY(x, y);
+        } else {
+            dxSurv = (goalX - x) / (double)Simulation.WORLD_W;
+            dySurv = (goalY - y) / (double)Simulation.WORLD_H;
+        }
+
+        // --- Build inputs in place (senses, then memory) & forward through net ---
+        double[] inputs = brain.inputBuffer();
+        inputs[0] = dxPack;
+        inputs[1] = dyPack;
+        inputs[2] = density;
+        inputs[3] = dxSurv;
+        inputs[4] = dySurv;
+        int filled = copyOldest(memCount, inputs, SENSE_INPUTS);
+        Arrays.fill(inputs, SENSE_INPUTS + filled * MEMORY_WIDTH, inputs.length, 0.0);
+        double[] out    = brain.forward(sim.isFastMath());
+        remember(out[0], out[1]);
+
+        // Intended movement at full MOVE_SPEED in the direction of each output's sign
+        int sx = out[0] > 0 ? 1 : out[0] < 0 ? -1 : 0;
+        int sy = out[1] > 0 ? 1 : out[1] < 0 ? -1 : 0;
+        walk(sim, sx, sy);
+
+        // --- Compute newScore after the move ---
+        Biome bNew     = sim.getBiomeAt(x, y);
+        double newScore = bNew.forageModifier / bNew.deathModifier;
+
+        // --- Reward = positive if we moved closer to high‐survival biome, negative otherwise ---
+        double reward = newScore - oldScore;
+        brain.reward(0.05, reward, sim.getRewardBatchTicks());
+
+        // Same heading twice running and nothing learnt: a candidate for SleepScheduler
+        quiet = sx == lastSX && sy == lastSY && reward == 0 && !brain.hasPendingRewards();
+        lastSX = sx;
+        lastSY = sy;
+        lastOutX = out[0];
+        lastOutY = out[1];
+    }
+
+    /** Moves one step with heading (sx, sy), slowed uphill and sped up downhill. */
+    private void walk(Simulation sim, int sx, int sy) {
+        int intendedVX = sx * MOVE_SPEED;
+        int intendedVY = sy * MOVE_SPEED;
+
+        // Elevation difference to the (clamped) target scales movement
+        double slope = sim.getTerrain().slope(x, y, intendedVX, intendedVY);  // positive = uphill
+
+        // Scale factor: uphill (slope>0) slows you down, downhill (slope<0) speeds you up.
+        // We clamp factor between [0.5 .. 1.5].
+        double factor = 1.0 - slope;
+        factor = Math.max(0.5, Math.min(1.5, factor));
+
+        int actualVX = sx * (int) Math.max(1, Math.round(MOVE_SPEED * factor));
+        int actualVY = sy * (int) Math.max(1, Math.round(MOVE_SPEED * factor));
+
+        // Apply movement
+        x = clamp(x + actualVX, 0, Simulation.WORLD_W - 1);
+        y = clamp(y + actualVY, 0, Simulation.WORLD_H - 1);
+    }
+
+    /** Chance to find food this tick where the creature stands. */
+    double forageChance(Simulation sim, Biome b) {
+        double elevationAtCurrent = sim.getHeight(x, y);
+        // with a food grid, what is left in this cell (a full cell is the biome's modifier)
+        FoodGrid food = sim.getFood();
+        double available = food != null ? food.level(x, y) : b.forageModifier;
+        // reduce forage probability at higher elevation: multiply by (1 - elevation)
+        return FORAGE_PROB 
+                * available 
+                * elevationAtCurrent;
+    }
+
+    // — Sleeping (see SleepScheduler) —
+
+    /**
+     * Starts a nap of {@code nap} ticks from {@code start} on {@code s}'s
+     * clock, with its forage outcomes drawn up front; returns the tick it
+     * wakes: the nap's end, or the tick the outcomes starve it.
+     */
+    int fallAsleep(SleepScheduler s, int start, int nap, long forageMask) {
+        this.scheduler  = s;
+        this.napStart   = start;
+        this.nap        = nap;
+        this.forageMask = forageMask;
+        this.replayed   = 0;
+        int h = hunger;
+        for (int i = 0; i < nap; i++) {
+            h = (forageMask >>> i & 1) != 0 ? 0 : h + 1;
+            if (h > MAX_HUNGER) return start + i;
+        }
+        return start + nap;
+    }
+
+    /**
+     * One tick asleep: keep the last heading without sensing or thinking.
+     * Returns false, without moving, if this step would enter another biome
+     * or pass the goal the creature was heading for; it should then wake
+     * and act instead. Forage, hunger and memory wait for {@link #settleNap}.
+     */
+    boolean coast(Simulation sim) {
+        int ox = x, oy = y;
+        Biome before = sim.getBiomeAt(x, y);
+        walk(sim, lastSX, lastSY);
+        if (sim.getBiomeAt(x, y) != before
+                || Math.signum(goalX - x) != Math.signum(goalX - ox)
+                || Math.signum(goalY - y) != Math.signum(goalY - oy)) {
+            x = ox;
+            y = oy;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hunger after the nap's first {@code k} ticks, in closed form from the
+     * forage mask: 0 at the last success, one more for every miss since.
+     */
+    private int napHunger(int k) {
+        long hits = forageMask & ((1L << k) - 1);
+        return hits == 0 ? hunger + k : k - 64 + Long.numberOfLeadingZeros(hits);
+    }
+
+    /** Replays the last outputs into memory for the nap ticks coasted so far. */
+    private void replayNap() {
+        if (scheduler != null) replayNap(scheduler.coasted(this));
+    }
+
+    private void replayNap(int k) {
+        for (int i = replayed, n = Math.min(k, replayed + MEMORY_SIZE); i < n; i++) remember(lastOutX, lastOutY);
+        replayed = k;
+    }
+
+    /**
+     * Ends the nap after its first {@code k} ticks: memory replayed, the
+     * food it found eaten from the cell it stands in, hunger from the mask.
+     * Dies if the mask starved it.
+     */
+    void settleNap(int k, FoodGrid food) {
+        replayNap(k);
+        if (food != null) food.eat(x, y, Long.bitCount(forageMask & ((1L << k) - 1)));
+        hunger = napHunger(k);
+        scheduler = null;
+        if (hunger > MAX_HUNGER) die();
+    }
+
+    /** Clamp v into the [lo, hi] range. */
+    private int clamp(int v, int lo, int hi) {
+        return v < lo ? lo : (v > hi ? hi : v);
+    }
 }
\ No newline at end of file
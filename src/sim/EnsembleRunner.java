@@ -0,0 +1,235 @@
+package sim;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a parameter sweep as many independent {@link Simulation} instances on a
+ * bounded worker pool inside one JVM, streaming one CSV line per run to the
+ * output file as soon as that run finishes.
+ *
+ * <p>The sweep spec is a properties file; every key takes a comma‐separated
+ * list and the sweep is the cartesian product of all of them:
+ * <pre>
+ *   initialPop       = 100, 200
+ *   genomeLength     = 10
+ *   deathProbPerStep = 0.004, 0.006
+ *   birthProbPerPair = 0.025
+ *   seeds            = 1..200
+ *   brainMode        = FIXED_MLP, NEAT
+ *   steps            = 1000
+ *   threads          = 0        # 0 = one worker per core
+ * </pre>
+ * Runs that share a seed share one {@link Terrain}; it is generated on first
+ * use and dropped once the last run on that seed has finished, whether or
+ * not that run succeeded.
+ *
+ * <p>Two memory columns per run: {@code allocatedBytes} is everything the
+ * run allocated on its worker thread, garbage included, so it measures
+ * churn; {@code poolBytes} is the brain‐arena and memory‐bank storage the
+ * run held at its end. The pools never shrink, so that is the storage of
+ * the run's peak population and the bulk of what an instance retains.
+ */
+public class EnsembleRunner {
+    static final String CSV_HEADER =
+        "run,seed,initialPop,genomeLength,deathProbPerStep,birthProbPerPair,brainMode,"
+      + "steps,finalStep,finalPop,peakPop,wallMillis,allocatedBytes,poolBytes,heterozygosity,distinctGenomes";
+
+    /** One point of the sweep. */
+    static final class RunSpec {
+        final int    run;
+        final long   seed;
+        final int    initialPop;
+        final int    genomeLength;
+        final double deathProbPerStep;
+        final double birthProbPerPair;
+        final Simulation.BrainMode brainMode;
+        final int    steps;
+
+        RunSpec(int run, long seed, int initialPop, int genomeLength,
+                double deathProbPerStep, double birthProbPerPair,
+                Simulation.BrainMode brainMode, int steps) {
+            this.run              = run;
+            this.seed             = seed;
+            this.initialPop       = initialPop;
+            this.genomeLength     = genomeLength;
+            this.deathProbPerStep = deathProbPerStep;
+            this.birthProbPerPair = birthProbPerPair;
+            this.brainMode        = brainMode;
+            this.steps            = steps;
+        }
+    }
+
+    private final List<RunSpec> runs;
+    private final int threads;
+    private final Map<Long, Terrain> terrains = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pendingPerSeed = new ConcurrentHashMap<>();
+
+    public EnsembleRunner(List<RunSpec> runs, int threads) {
+        this.runs    = runs;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        for (RunSpec r : runs)
+            pendingPerSeed.computeIfAbsent(r.seed, s -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** Parses a sweep spec (see class comment) into its list of runs. */
+    static List<RunSpec> parseSpec(Properties p) {
+        List<Integer> pops    = parseInts(p.getProperty("initialPop", "100"));
+        List<Integer> lengths = parseInts(p.getProperty("genomeLength", "10"));
+        List<Double>  deaths  = parseDoubles(p.getProperty("deathProbPerStep", "0.006"));
+        List<Double>  births  = parseDoubles(p.getProperty("birthProbPerPair", "0.025"));
+        List<Long>    seeds   = parseSeeds(p.getProperty("seeds", "1"));
+        List<Simulation.BrainMode> modes = new ArrayList<>();
+        for (String t : p.getProperty("brainMode", "FIXED_MLP").split(","))
+            modes.add(Simulation.BrainMode.valueOf(t.trim()));
+        int steps = Integer.parseInt(p.getProperty("steps", "1000").trim());
+
+        // seed is the outermost loop so runs sharing a terrain are queued together
+        List<RunSpec> runs = new ArrayList<>();
+        for (long seed : seeds)
+            for (int pop : pops)
+                for (int len : lengths)
+                    for (double d : deaths)
+                        for (double b : births)
+                            for (Simulation.BrainMode m : modes)
+                                runs.add(new RunSpec(runs.size(), seed, pop, len, d, b, m, steps));
+        return runs;
+    }
+
+    private static List<Integer> parseInts(String s) {
+        List<Integer> out = new ArrayList<>();
+        for (String t : s.split(",")) out.add(Integer.parseInt(t.trim()));
+        return out;
+    }
+
+    private static List<Double> parseDoubles(String s) {
+        List<Double> out = new ArrayList<>();
+        for (String t : s.split(",")) out.add(Double.parseDouble(t.trim()));
+        return out;
+    }
+
+    /** Accepts a comma list whose items are single seeds or inclusive ranges "a..b". */
+    private static List<Long> parseSeeds(String s) {
+        List<Long> out = new ArrayList<>();
+        for (String t : s.split(",")) {
+            t = t.trim();
+            int dots = t.indexOf("..");
+            if (dots < 0) {
+                out.add(Long.parseLong(t));
+            } else {
+                long lo = Long.parseLong(t.substring(0, dots).trim());
+                long hi = Long.parseLong(t.substring(dots + 2).trim());
+                for (long v = lo; v <= hi; v++) out.add(v);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Runs every spec and writes one CSV line per run to {@code out} in
+     * completion order. Blocks until the whole sweep is done.
+     */
+    public void run(BufferedWriter out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ensemble-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            ExecutorCompletionService<String> done = new ExecutorCompletionService<>(pool);
+            for (RunSpec r : runs)
+                done.submit(() -> runOne(r));
+
+            out.write(CSV_HEADER);
+            out.newLine();
+            out.flush();
+            for (int i = 0; i < runs.size(); i++) {
+                try {
+                    out.write(done.take().get());
+                } catch (ExecutionException e) {
+                    throw new IOException("ensemble run failed", e.getCause());
+                }
+                out.newLine();
+                out.flush();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String runOne(RunSpec r) {
+        try {
+            return simulate(r);
+        } finally {
+            if (pendingPerSeed.get(r.seed).decrementAndGet() == 0)
+                terrains.remove(r.seed);
+        }
+    }
+
+    private String simulate(RunSpec r) {
+        com.sun.management.ThreadMXBean mx =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long allocStart = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+
+        Terrain terrain = terrains.computeIfAbsent(r.seed, Terrain::load);
+        Simulation sim = new Simulation(r.initialPop, r.genomeLength,
+                                        r.deathProbPerStep, r.birthProbPerPair,
+                                        r.seed, terrain, r.brainMode);
+        sim.getEvents().setVerbose(false);
+
+        int peak = sim.getCreatures().size();
+        for (int s = 0; s < r.steps && !sim.getCreatures().isEmpty(); s++) {
+            sim.run(1);
+            peak = Math.max(peak, sim.getCreatures().size());
+        }
+
+        long wallMillis = (System.nanoTime() - t0) / 1_000_000;
+        long allocated  = mx.getThreadAllocatedBytes(tid) - allocStart;
+        long pools      = sim.getBrainArena().getBytes() + sim.getMemoryBank().getBytes();
+
+        return r.run + "," + r.seed + "," + r.initialPop + "," + r.genomeLength + ","
+             + r.deathProbPerStep + "," + r.birthProbPerPair + "," + r.brainMode + "," + r.steps + ","
+             + sim.getCurrentStep() + "," + sim.getCreatures().size() + "," + peak + ","
+             + wallMillis + "," + allocated + "," + pools + ","
+             + sim.getGenetics().getMeanHeterozygosity() + "," + sim.getGenetics().getDistinctGenomes();
+    }
+
+    /** Usage: {@code EnsembleRunner <sweep.properties> <results.csv>} */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: EnsembleRunner <sweep.properties> <results.csv>");
+            System.exit(2);
+        }
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(Paths.get(args[0]))) {
+            p.load(in);
+        }
+        List<RunSpec> runs = parseSpec(p);
+        int threads = Integer.parseInt(p.getProperty("threads", "0").trim());
+
+        Path outPath = Paths.get(args[1]);
+        EnsembleRunner runner = new EnsembleRunner(runs, threads);
+        System.out.println("Running " + runs.size() + " simulations on "
+                           + runner.threads + " workers -> " + outPath);
+        try (BufferedWriter out = Files.newBufferedWriter(outPath)) {
+            runner.run(out);
+        }
+    }
+}
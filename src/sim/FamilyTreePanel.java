@@ -1,32 +1,48 @@
-package sim;
-
-import javax.swing.*;
-import javax.swing.tree.*;
-import java.awt.*;
-
-public class FamilyTreePanel extends JPanel {
-	 private final JTree tree;
-	    private final DefaultTreeModel model;
-
-	    public FamilyTreePanel() {
-	        setLayout(new BorderLayout());
-	        DefaultMutableTreeNode root = new DefaultMutableTreeNode("No creature selected");
-	        model = new DefaultTreeModel(root);
-	        tree  = new JTree(model);
-	        add(new JScrollPane(tree), BorderLayout.CENTER);
-	    }
-
-	    /** Call this when a creature is selected */
-	    public void showLineage(Creature c) {
-	        DefaultMutableTreeNode root = buildNode(c);
-	        model.setRoot(root);
-	        tree.expandRow(0);
-	    }
-
-	    private DefaultMutableTreeNode buildNode(Creature c) {
-	        DefaultMutableTreeNode node = new DefaultMutableTreeNode(c);
-	        if (c.getParentA() != null) node.add(buildNode(c.getParentA()));
-	        if (c.getParentB() != null) node.add(buildNode(c.getParentB()));
-	        return node;
-	    }
-	}
+package sim;
+
+import javax.swing.*;
+import javax.swing.tree.*;
+import java.awt.*;
+
+public class FamilyTreePanel extends JPanel {
+	 private final JTree tree;
+	    private final DefaultTreeModel model;
+	    private final JLabel summary = new JLabel(" ");
+	    // the GUI's own engine, so browsing never touches the simulation's memo
+	    private final Kinship kinship = new Kinship();
+
+	    public FamilyTreePanel() {
+	        setLayout(new BorderLayout());
+	        DefaultMutableTreeNode root = new DefaultMutableTreeNode("No creature selected");
+	        model = new DefaultTreeModel(root);
+	        tree  = new JTree(model);
+	        add(summary, BorderLayout.NORTH);
+	        add(new JScrollPane(tree), BorderLayout.CENTER);
+	    }
+
+	    /** Call this when a creature is selected */
+	    public void showLineage(Creature c) {
+	        DefaultMutableTreeNode root = buildNode(c);
+	        model.setRoot(root);
+	        tree.expandRow(0);
+	        summary.setText(describe(c));
+	    }
+
+	    /** Generation, inbreeding and the parents' nearest common ancestor. */
+	    private String describe(Creature c) {
+	        String s = String.format("#%d  generation %d  inbreeding F = %.4f",
+	                                 c.getId(), c.getGeneration(), kinship.inbreeding(c));
+	        if (c.getParentA() == null) return s + "  (no recorded parents)";
+	        Creature mrca = kinship.mostRecentCommonAncestor(c.getParentA(), c.getParentB());
+	        if (mrca == null) return s + "  parents share no ancestor in the last " + 2 * kinship.getWindow() + " generations";
+	        return s + String.format("  parents' nearest common ancestor #%d (generation %d)",
+	                                 mrca.getId(), mrca.getGeneration());
+	    }
+
+	    private DefaultMutableTreeNode buildNode(Creature c) {
+	        DefaultMutableTreeNode node = new DefaultMutableTreeNode(c);
+	        if (c.getParentA() != null) node.add(buildNode(c.getParentA()));
+	        if (c.getParentB() != null) node.add(buildNode(c.getParentB()));
+	        return node;
+	    }
+	}
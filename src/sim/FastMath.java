@@ -0,0 +1,183 @@
+package sim;
+
+/**
+ * Replacements for the transcendental calls on the per‐creature hot path.
+ *
+ * <p>{@link #exactTanh(double)} is exact: a pure‐Java port of the fdlibm
+ * tanh that Java 17's native {@code StrictMath.tanh} (and so {@code Math.tanh})
+ * runs, returning the same bits at a fraction of the cost. Brains use it
+ * whenever fast‐math mode is off.
+ *
+ * <p>{@link #ageScore(int)} is exact: age is a small bounded int, so the
+ * fitness Gaussian is precomputed once per age with the very expression
+ * {@link Creature#getFitness} used to evaluate, and always used.
+ *
+ * <p>{@link #tanh(double)} is an approximation, used only when a simulation
+ * is in fast‐math mode ({@link Simulation#setFastMath}): linear
+ * interpolation in a table of tanh on [−{@value #TANH_RANGE}, {@value #TANH_RANGE}]
+ * with {@value #TANH_STEPS_PER_UNIT} steps per unit, saturating to ±1
+ * outside. Its absolute error is below {@value #TANH_MAX_ERROR} everywhere
+ * (checked by {@link FastMathCheck}); fast runs therefore drift from
+ * strict runs of the same seed once a rounding difference flips a movement
+ * sign, and are reproducible only against other fast runs.
+ */
+final class FastMath {
+    static final double TANH_RANGE = 8.0;
+    static final int TANH_STEPS_PER_UNIT = 64;
+    static final double TANH_MAX_ERROR = 3e-5;
+
+    private static final double[] AGE_SCORE = new double[Simulation.MAX_AGE + 2];
+    private static final double[] TANH = new double[(int) (2 * TANH_RANGE * TANH_STEPS_PER_UNIT) + 2];
+
+    static {
+        for (int age = 0; age < AGE_SCORE.length; age++) AGE_SCORE[age] = exactAgeScore(age);
+        for (int i = 0; i < TANH.length; i++) TANH[i] = Math.tanh(i / (double) TANH_STEPS_PER_UNIT - TANH_RANGE);
+    }
+
+    private FastMath() {}
+
+    /** Gaussian age sub‐score, peaking at half of {@link Simulation#MAX_AGE}. */
+    static double exactAgeScore(int age) {
+        double mid     = Simulation.MAX_AGE / 2.0;
+        double sigma   = mid / 2.0;
+        double ageDiff = age - mid;
+        return Math.exp(- (ageDiff * ageDiff) / (2 * sigma * sigma));
+    }
+
+    /** Same value as {@link #exactAgeScore}, from the table for every age a live creature can have. */
+    static double ageScore(int age) {
+        return age >= 0 && age < AGE_SCORE.length ? AGE_SCORE[age] : exactAgeScore(age);
+    }
+
+    // — Exact tanh —
+    // Line‐for‐line ports of fdlibm's s_tanh.c and s_expm1.c, the algorithms
+    // StrictMath specifies; the native call they replace cost more than the
+    // rest of a brain's forward pass put together.
+
+    /** Same value as {@link Math#tanh}, bit for bit, without the native call. */
+    static double exactTanh(double x) {
+        int jx = hi(x);
+        int ix = jx & 0x7fffffff;
+        if (ix >= 0x7ff00000) {                      // tanh(±inf) = ±1, tanh(NaN) = NaN
+            return jx >= 0 ? 1.0 / x + 1.0 : 1.0 / x - 1.0;
+        }
+        double z;
+        if (ix < 0x40360000) {                       // |x| < 22
+            if (ix < 0x3c800000) return x * (1.0 + x);   // |x| < 2^-55
+            if (ix >= 0x3ff00000) {                  // |x| >= 1
+                double t = expm1(2.0 * Math.abs(x));
+                z = 1.0 - 2.0 / (t + 2.0);
+            } else {
+                double t = expm1(-2.0 * Math.abs(x));
+                z = -t / (t + 2.0);
+            }
+        } else {
+            z = 1.0 - 1.0e-300;                      // |x| >= 22: ±1
+        }
+        return jx >= 0 ? z : -z;
+    }
+
+    private static final double EXPM1_O_THRESHOLD = 7.09782712893383973096e+02;
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double INV_LN2 = 1.44269504088896338700e+00;
+    private static final double Q1 = -3.33333333333331316428e-02;
+    private static final double Q2 =  1.58730158725481460165e-03;
+    private static final double Q3 = -7.93650757867487942473e-05;
+    private static final double Q4 =  4.00821782732936239552e-06;
+    private static final double Q5 = -2.01099218183624371326e-07;
+
+    /** Same value as {@link StrictMath#expm1}, bit for bit. */
+    static double expm1(double x) {
+        final double huge = 1.0e+300, tiny = 1.0e-300;
+        int hx = hi(x);
+        boolean negative = hx < 0;
+        hx &= 0x7fffffff;                            // high word of |x|
+
+        // huge and non‐finite arguments
+        if (hx >= 0x4043687A) {                      // |x| >= 56*ln2
+            if (hx >= 0x40862E42) {                  // |x| >= 709.78…
+                if (hx >= 0x7ff00000) {
+                    if (((hx & 0xfffff) | lo(x)) != 0) return x + x;   // NaN
+                    return negative ? -1.0 : x;      // exp(±inf) - 1 = {-1, inf}
+                }
+                if (x > EXPM1_O_THRESHOLD) return huge * huge;       // overflow
+            }
+            if (negative && x + tiny < 0.0) return tiny - 1.0;       // -1
+        }
+
+        // argument reduction
+        double hi, lo, c = 0, t;
+        int k;
+        if (hx > 0x3fd62e42) {                       // |x| > 0.5 ln2
+            if (hx < 0x3FF0A2B2) {                   // and |x| < 1.5 ln2
+                if (!negative) { hi = x - LN2_HI; lo =  LN2_LO; k =  1; }
+                else           { hi = x + LN2_HI; lo = -LN2_LO; k = -1; }
+            } else {
+                k  = (int) (INV_LN2 * x + (negative ? -0.5 : 0.5));
+                t  = k;
+                hi = x - t * LN2_HI;                 // t*LN2_HI is exact here
+                lo = t * LN2_LO;
+            }
+            x = hi - lo;
+            c = (hi - x) - lo;
+        } else if (hx < 0x3c900000) {                // |x| < 2^-54: x itself
+            t = huge + x;
+            return x - (t - (huge + x));
+        } else {
+            k = 0;
+        }
+
+        // x is now in the primary range
+        double hfx = 0.5 * x;
+        double hxs = x * hfx;
+        double r1  = 1.0 + hxs * (Q1 + hxs * (Q2 + hxs * (Q3 + hxs * (Q4 + hxs * Q5))));
+        t = 3.0 - r1 * hfx;
+        double e = hxs * ((r1 - t) / (6.0 - x * t));
+        if (k == 0) return x - (x * e - hxs);
+        e  = x * (e - c) - c;
+        e -= hxs;
+        if (k == -1) return 0.5 * (x - e) - 0.5;
+        if (k == 1) {
+            if (x < -0.25) return -2.0 * (e - (x + 0.5));
+            return 1.0 + 2.0 * (x - e);
+        }
+        double y;
+        if (k <= -2 || k > 56) {                     // exp(x) - 1 is enough
+            y = 1.0 - (e - x);
+            return addExponent(y, k) - 1.0;
+        }
+        if (k < 20) {
+            t = withHi(1.0, 0x3ff00000 - (0x200000 >> k));   // 1 - 2^-k
+            y = t - (e - x);
+            return addExponent(y, k);
+        }
+        t = withHi(1.0, (0x3ff - k) << 20);          // 2^-k
+        y = x - (e + t);
+        y += 1.0;
+        return addExponent(y, k);
+    }
+
+    private static int hi(double x) { return (int) (Double.doubleToRawLongBits(x) >>> 32); }
+    private static int lo(double x) { return (int) Double.doubleToRawLongBits(x); }
+
+    /** x with its high word replaced, as fdlibm's {@code __HI(x) = h}. */
+    private static double withHi(double x, int h) {
+        return Double.longBitsToDouble(((long) h << 32) | (Double.doubleToRawLongBits(x) & 0xffffffffL));
+    }
+
+    /** x with k added to its exponent field, as fdlibm's {@code __HI(y) += k<<20}. */
+    private static double addExponent(double x, int k) {
+        return withHi(x, hi(x) + (k << 20));
+    }
+
+    /** Approximate tanh; see the class comment for its error bound. */
+    static double tanh(double x) {
+        if (!(x > -TANH_RANGE)) return x != x ? x : -1.0;   // also keeps NaN as NaN
+        if (x >= TANH_RANGE) return 1.0;
+        double t = (x + TANH_RANGE) * TANH_STEPS_PER_UNIT;
+        int i = (int) t;
+        double f = t - i;
+        return TANH[i] + f * (TANH[i + 1] - TANH[i]);
+    }
+}
@@ -0,0 +1,200 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Verification harness for {@link FastMath}: measures the tanh approximation
+ * error, confirms the exact tanh and the age table are exact, measures brain
+ * throughput with each tanh, and runs one seed in strict and in fast mode
+ * side by side to show how far and how soon the trajectories part.
+ *
+ * <p>Throughput is forward passes per second over {@value #BRAINS} arena
+ * brains with their own Gaussian inputs, with the hidden tanh from
+ * {@code Math.tanh} (a reference copy of the kernel), from
+ * {@link FastMath#exactTanh} and from the table.
+ *
+ * <p>Usage: {@code FastMathCheck [ticks] [seed]}. Exits with status 1 when
+ * the measured tanh error exceeds {@link FastMath#TANH_MAX_ERROR}, the exact
+ * tanh differs from {@code StrictMath.tanh} anywhere, the age table differs
+ * from the formula, or a brain's strict output differs from the reference.
+ */
+public class FastMathCheck {
+    private static final int BRAINS = 1024;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        boolean ok = true;
+
+        // 1) tanh error: dense sweep over and beyond the table, plus random points
+        double maxErr = 0, at = 0;
+        for (double x = -12; x <= 12; x += 1e-5) {
+            double e = Math.abs(FastMath.tanh(x) - Math.tanh(x));
+            if (e > maxErr) { maxErr = e; at = x; }
+        }
+        Random rng = new Random(seed);
+        for (int i = 0; i < 1_000_000; i++) {
+            double x = rng.nextGaussian() * 4;
+            double e = Math.abs(FastMath.tanh(x) - Math.tanh(x));
+            if (e > maxErr) { maxErr = e; at = x; }
+        }
+        System.out.printf(Locale.ROOT, "tanh: max |error| %.3e at x=%.5f (bound %.1e)%n", maxErr, at, FastMath.TANH_MAX_ERROR);
+        if (maxErr > FastMath.TANH_MAX_ERROR) ok = false;
+
+        // 2) the exact tanh (and the expm1 under it) must match StrictMath bit for bit:
+        //    a dense sweep over every branch, random bit patterns and the edge cases
+        long tanhMismatches = 0;
+        for (double x = -30; x <= 30; x += 1e-5) tanhMismatches += exactMismatches(x);
+        for (int i = 0; i < 2_000_000; i++) {
+            tanhMismatches += exactMismatches(Double.longBitsToDouble(rng.nextLong()));
+            tanhMismatches += exactMismatches(Math.scalb(rng.nextDouble() - 0.5, rng.nextInt(80) - 64));
+        }
+        double[] edges = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                           Double.MIN_VALUE, Double.MAX_VALUE, 0x1p-55, 22, 709.78, 709.79, -709.79 };
+        for (double x : edges) tanhMismatches += exactMismatches(x) + exactMismatches(-x);
+        System.out.println("exact tanh: " + (tanhMismatches == 0 ? "same bits as StrictMath" : tanhMismatches + " mismatches"));
+        if (tanhMismatches > 0) ok = false;
+
+        // 3) age table must reproduce the formula bit for bit
+        int ageMismatches = 0;
+        for (int age = 0; age <= Simulation.MAX_AGE + 1; age++) {
+            if (Double.doubleToLongBits(FastMath.ageScore(age)) != Double.doubleToLongBits(FastMath.exactAgeScore(age)))
+                ageMismatches++;
+        }
+        System.out.println("age table: " + (ageMismatches == 0 ? "exact" : ageMismatches + " mismatches"));
+        if (ageMismatches > 0) ok = false;
+
+        // 4) brain throughput on the creature brain shape, checked against the reference
+        BrainArena arena = new BrainArena(Creature.BRAIN_LAYERS);
+        NeuralNet[] nets = new NeuralNet[BRAINS];
+        double[][] weights = new double[BRAINS][];
+        for (int b = 0; b < BRAINS; b++) {
+            nets[b] = arena.acquire();
+            nets[b].randomize(rng);
+            double[] in = nets[b].inputBuffer();
+            for (int i = 0; i < in.length; i++) in[i] = rng.nextGaussian();
+            weights[b] = new double[NeuralNet.weightCount(Creature.BRAIN_LAYERS)];
+            for (int k = 0; k < weights[b].length; k++) weights[b][k] = nets[b].weight(k);
+        }
+        int outputMismatches = 0;
+        double[] scratch = new double[Creature.BRAIN_LAYERS[1]], out = new double[Creature.BRAIN_LAYERS[2]];
+        for (int b = 0; b < BRAINS; b++) {
+            referenceForward(weights[b], nets[b].inputBuffer(), scratch, out);
+            double[] got = nets[b].forward(false);
+            for (int j = 0; j < out.length; j++)
+                if (Double.doubleToRawLongBits(got[j]) != Double.doubleToRawLongBits(out[j])) outputMismatches++;
+        }
+        if (outputMismatches > 0) ok = false;
+        double mathPerSec  = throughput(() -> {
+            double s = 0;
+            for (int b = 0; b < BRAINS; b++) s += referenceForward(weights[b], nets[b].inputBuffer(), scratch, out);
+            return s;
+        });
+        double exactPerSec = throughput(() -> forwardAll(nets, false));
+        double fastPerSec  = throughput(() -> forwardAll(nets, true));
+        System.out.printf(Locale.ROOT, "brains %s: Math.tanh %.2fM/s, exact tanh %.2fM/s (%.2fx, %s), table tanh %.2fM/s (%.2fx)%n",
+                          Arrays.toString(Creature.BRAIN_LAYERS), mathPerSec / 1e6,
+                          exactPerSec / 1e6, exactPerSec / mathPerSec,
+                          outputMismatches == 0 ? "same outputs" : outputMismatches + " outputs differ",
+                          fastPerSec / 1e6, fastPerSec / mathPerSec);
+
+        // 5) trajectories: same seed, strict vs fast
+        Simulation strict = new Simulation(150, 10, 0.006, 0.025, seed);
+        Simulation fast   = new Simulation(150, 10, 0.006, 0.025, seed);
+        strict.getEvents().setVerbose(false);
+        fast.getEvents().setVerbose(false);
+        fast.setFastMath(true);
+        int firstDiverged = -1;
+        long strictNanos = 0, fastNanos = 0;
+        System.out.println(" tick   pop(strict)  pop(fast)  shared  moved-apart  mean-dist");
+        for (int t = 1; t <= ticks; t++) {
+            long t0 = System.nanoTime();
+            strict.run(1);
+            long t1 = System.nanoTime();
+            fast.run(1);
+            fastNanos += System.nanoTime() - t1;
+            strictNanos += t1 - t0;
+
+            Map<Integer, Creature> byId = new HashMap<>();
+            for (Creature c : fast.getCreatures()) byId.put(c.getId(), c);
+            int shared = 0, apart = 0;
+            double dist = 0;
+            for (Creature c : strict.getCreatures()) {
+                Creature f = byId.get(c.getId());
+                if (f == null) continue;
+                shared++;
+                double d = Math.hypot(c.getX() - f.getX(), c.getY() - f.getY());
+                if (d > 0) apart++;
+                dist += d;
+            }
+            boolean same = apart == 0 && shared == strict.getCreatures().size() && shared == fast.getCreatures().size();
+            if (!same && firstDiverged < 0) firstDiverged = t;
+            if (t % 20 == 0 || t == firstDiverged) {
+                System.out.printf(Locale.ROOT, "%5d %12d %10d %7d %12d %10.2f%n", t,
+                                  strict.getCreatures().size(), fast.getCreatures().size(),
+                                  shared, apart, shared == 0 ? 0 : dist / shared);
+            }
+        }
+        System.out.println(firstDiverged < 0
+            ? "trajectories identical for all " + ticks + " ticks"
+            : "trajectories first differ at tick " + firstDiverged);
+        System.out.printf(Locale.ROOT, "tick time: strict %d ms, fast %d ms%n", strictNanos / 1_000_000, fastNanos / 1_000_000);
+        if (!ok) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    /** 1 for each of tanh and expm1 whose bits differ from StrictMath at x. */
+    private static int exactMismatches(double x) {
+        int n = 0;
+        if (Double.doubleToRawLongBits(FastMath.exactTanh(x)) != Double.doubleToRawLongBits(StrictMath.tanh(x))) n++;
+        if (Double.doubleToRawLongBits(FastMath.expm1(x)) != Double.doubleToRawLongBits(StrictMath.expm1(x))) n++;
+        return n;
+    }
+
+    private static double forwardAll(NeuralNet[] nets, boolean fast) {
+        double s = 0;
+        for (NeuralNet n : nets) s += n.forward(fast)[0];
+        return s;
+    }
+
+    /**
+     * The strict forward kernel as it ran on {@code Math.tanh}, for a
+     * {@link Creature#BRAIN_LAYERS}‐shaped net with flat weights w.
+     */
+    private static double referenceForward(double[] w, double[] in, double[] hidden, double[] out) {
+        int hN = hidden.length, oN = out.length;
+        Arrays.fill(hidden, 0.0);
+        for (int i = 0; i < in.length; i++) {
+            double a = in[i];
+            for (int j = 0; j < hN; j++) hidden[j] += a * w[i * hN + j];
+        }
+        for (int j = 0; j < hN; j++) hidden[j] = Math.tanh(hidden[j]);
+        int base = in.length * hN;
+        Arrays.fill(out, 0.0);
+        for (int i = 0; i < hN; i++) {
+            double a = hidden[i];
+            for (int j = 0; j < oN; j++) out[j] += a * w[base + i * oN + j];
+        }
+        return out[0];
+    }
+
+    /** Passes of {@code pass} per second times {@value #BRAINS}, best of several timed rounds. */
+    private static double throughput(DoubleSupplier pass) {
+        double sink = 0, best = Double.MAX_VALUE;
+        for (int i = 0; i < 2_000; i++) sink += pass.getAsDouble();   // warm‐up
+        for (int round = 0; round < 10; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < 200; i++) sink += pass.getAsDouble();
+            best = Math.min(best, (System.nanoTime() - t0) / 200.0);
+        }
+        if (sink == 42) System.out.print("");
+        return BRAINS / best * 1e9;
+    }
+}
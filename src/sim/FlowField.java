@@ -0,0 +1,124 @@
+package sim;
+
+import java.util.stream.IntStream;
+
+/**
+ * Directions toward a season's best biome from anywhere in the world, by
+ * the cheapest path over the terrain rather than a straight line at the
+ * biome's centre.
+ *
+ * <p>The world is cut into {@value #CELL}‐pixel cells. A step between two
+ * neighbouring cells (eight‐connected) costs its length divided by the
+ * speed factor {@link Creature} applies for the height change over one
+ * step, so uphill is dear and downhill cheap. Cost to the target, every
+ * cell whose centre lies in the target biome, is relaxed over all cells at
+ * once until nothing changes (a Bellman‐Ford wavefront, double‐buffered, so
+ * columns can be relaxed in parallel with a result that does not depend on
+ * scheduling). Each cell then stores the two survival inputs a creature
+ * there senses: the unit heading to its cheapest neighbour scaled by the
+ * remaining cost, normalised by the world size per axis like the
+ * straight‐line sense. Sensing is two array reads.
+ *
+ * <p>A field depends only on terrain, biome layout and the season's
+ * modifiers, so a {@link Simulation} computes one per season on first use.
+ */
+final class FlowField {
+    static final int CELL = 8;
+    static final int COLS = (Simulation.WORLD_W + CELL - 1) / CELL;
+    static final int ROWS = (Simulation.WORLD_H + CELL - 1) / CELL;
+    private static final int[] DC = { -1, -1, -1,  0, 0,  1, 1, 1 };
+    private static final int[] DR = { -1,  0,  1, -1, 1, -1, 0, 1 };
+
+    private final float[] senseX, senseY;  // per cell, col * ROWS + row
+    private final float[] cost;            // to the target, in flat‐ground pixels
+    final int sweeps;                      // relaxation rounds it took
+
+    private FlowField(float[] senseX, float[] senseY, float[] cost, int sweeps) {
+        this.senseX = senseX;
+        this.senseY = senseY;
+        this.cost   = cost;
+        this.sweeps = sweeps;
+    }
+
+    float senseX(int x, int y)  { return senseX[(x / CELL) * ROWS + y / CELL]; }
+    float senseY(int x, int y)  { return senseY[(x / CELL) * ROWS + y / CELL]; }
+    /** Cost of the cheapest path to the target, in flat‐ground pixels. */
+    float cost(int x, int y)    { return cost[(x / CELL) * ROWS + y / CELL]; }
+
+    /** Builds the field toward {@code target} as laid out in {@code sim}. */
+    static FlowField compute(Simulation sim, Biome target, boolean parallel) {
+        int n = COLS * ROWS;
+        double[] height = new double[n];
+        float[] cur = new float[n], next = new float[n];
+        for (int c = 0; c < COLS; c++) {
+            for (int r = 0; r < ROWS; r++) {
+                int cx = Math.min(c * CELL + CELL / 2, Simulation.WORLD_W - 1);
+                int cy = Math.min(r * CELL + CELL / 2, Simulation.WORLD_H - 1);
+                height[c * ROWS + r] = sim.getHeight(cx, cy);
+                cur[c * ROWS + r] = sim.getBiomeAt(cx, cy) == target ? 0 : Float.POSITIVE_INFINITY;
+            }
+        }
+
+        boolean[] changed = new boolean[COLS];
+        int sweeps = 0;
+        boolean any = true;
+        while (any) {
+            final float[] from = cur, to = next;
+            IntStream cols = IntStream.range(0, COLS);
+            (parallel ? cols.parallel() : cols).forEach(c -> changed[c] = relaxColumn(c, height, from, to));
+            float[] t = cur; cur = next; next = t;
+            sweeps++;
+            any = false;
+            for (boolean b : changed) any |= b;
+        }
+
+        float[] sx = new float[n], sy = new float[n];
+        for (int c = 0; c < COLS; c++) {
+            for (int r = 0; r < ROWS; r++) {
+                int i = c * ROWS + r;
+                if (cur[i] == 0) continue;
+                int bestK = 0;
+                float bestCost = Float.POSITIVE_INFINITY;
+                for (int k = 0; k < 8; k++) {
+                    int nc = c + DC[k], nr = r + DR[k];
+                    if (nc < 0 || nc >= COLS || nr < 0 || nr >= ROWS) continue;
+                    float v = cur[nc * ROWS + nr] + stepCost(height[i], height[nc * ROWS + nr], k);
+                    if (v < bestCost) {
+                        bestCost = v;
+                        bestK = k;
+                    }
+                }
+                double norm = Math.hypot(DC[bestK], DR[bestK]);
+                sx[i] = (float) (DC[bestK] / norm * cur[i] / Simulation.WORLD_W);
+                sy[i] = (float) (DR[bestK] / norm * cur[i] / Simulation.WORLD_H);
+            }
+        }
+        return new FlowField(sx, sy, cur, sweeps);
+    }
+
+    /** One relaxation of column c from {@code from} into {@code to}; true if any cell improved. */
+    private static boolean relaxColumn(int c, double[] height, float[] from, float[] to) {
+        boolean changed = false;
+        for (int r = 0; r < ROWS; r++) {
+            int i = c * ROWS + r;
+            float best = from[i];
+            for (int k = 0; k < 8; k++) {
+                int nc = c + DC[k], nr = r + DR[k];
+                if (nc < 0 || nc >= COLS || nr < 0 || nr >= ROWS) continue;
+                float v = from[nc * ROWS + nr] + stepCost(height[i], height[nc * ROWS + nr], k);
+                if (v < best) best = v;
+            }
+            to[i] = best;
+            changed |= best < from[i];
+        }
+        return changed;
+    }
+
+    /** Length over speed factor, as {@link Creature} scales a step by the height change. */
+    private static float stepCost(double hFrom, double hTo, int k) {
+        double length = (DC[k] != 0 && DR[k] != 0 ? Math.sqrt(2) : 1) * CELL;
+        double slopePerStep = (hTo - hFrom) * Creature.MOVE_SPEED / length;
+        double factor = Math.max(0.5, Math.min(1.5, 1.0 - slopePerStep));
+        return (float) (length / factor);
+    }
+}
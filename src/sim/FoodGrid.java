@@ -0,0 +1,201 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Food as a depletable field instead of an endless coin flip.
+ *
+ * <p>The world is cut into {@value #CELL}‐px cells, each holding a food
+ * level between 0 and its biome's capacity. Capacity is the biome's
+ * seasonal forage modifier, so a full cell gives exactly the forage chance
+ * the biome gave before; every successful forage eats {@value #BITE} of it.
+ * Each tick every cell regrows toward capacity at {@value #REGROWTH} ×
+ * the modifier (slow in desert and winter, fast in an oasis in summer) and
+ * exchanges {@value #DIFFUSION} of its difference from the mean of its four
+ * neighbours (edges reflect), so grazed‐out patches refill from around them
+ * as well as in place. A cell takes the biome at its centre.
+ *
+ * <p>The stencil reads one buffer and writes the other, which are then
+ * swapped, so the grid can be cut into bands of {@value #BAND_ROWS} rows
+ * updated on the common pool in any order with a result identical to the
+ * sequential one. Depletion happens during the act phase, when no band is
+ * running, straight into the current buffer; nothing is shared while the
+ * bands run, so it needs neither atomics nor locks. Per cell the grid holds
+ * two floats and a biome byte, and the stencil touches each once per tick,
+ * so its cost is a memory stream (see {@link FoodGridBenchmark}).
+ */
+final class FoodGrid {
+    static final int CELL = 8;
+    static final float BITE      = 0.25f;
+    static final float REGROWTH  = 0.02f;
+    static final float DIFFUSION = 0.20f;
+    static final int BAND_ROWS = 64;
+
+    final int cols, rows;
+    private final byte[] biome;           // per cell, index into the biome tables
+    private final float[] capacity;       // per biome, this season
+    private final float[] rate;           // per biome, this season
+    private float maxCapacity = 0;
+    private float[] food, next;           // row‐major, row * cols + col
+
+    /**
+     * A grid of {@code cols} × {@code rows} cells whose cell i lies in biome
+     * {@code biome[i]} of {@code biomes}; all start empty until {@link #fill}.
+     */
+    FoodGrid(int cols, int rows, byte[] biome, int biomes) {
+        if (biome.length != cols * rows)
+            throw new IllegalArgumentException("need one biome per cell, got " + biome.length + " for " + cols + "×" + rows);
+        this.cols     = cols;
+        this.rows     = rows;
+        this.biome    = biome;
+        this.capacity = new float[biomes];
+        this.rate     = new float[biomes];
+        this.food     = new float[cols * rows];
+        this.next     = new float[cols * rows];
+    }
+
+    /** The grid over {@code sim}'s world and biome layout, full for the current season. */
+    static FoodGrid forWorld(Simulation sim) {
+        int cols = (Simulation.WORLD_W + CELL - 1) / CELL;
+        int rows = (Simulation.WORLD_H + CELL - 1) / CELL;
+        List<Biome> biomes = sim.getBiomes();
+        byte[] cellBiome = new byte[cols * rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cx = Math.min(c * CELL + CELL / 2, Simulation.WORLD_W - 1);
+                int cy = Math.min(r * CELL + CELL / 2, Simulation.WORLD_H - 1);
+                cellBiome[r * cols + c] = (byte) biomes.indexOf(sim.getBiomeAt(cx, cy));
+            }
+        }
+        FoodGrid g = new FoodGrid(cols, rows, cellBiome, biomes.size());
+        g.setSeason(biomes);
+        g.fill();
+        return g;
+    }
+
+    /** Takes capacity and regrowth from the biomes' current forage modifiers. */
+    void setSeason(List<Biome> biomes) {
+        for (int b = 0; b < capacity.length; b++) {
+            setBiome(b, (float) biomes.get(b).forageModifier);
+        }
+    }
+
+    void setBiome(int b, float forageModifier) {
+        capacity[b] = forageModifier;
+        rate[b] = Math.min(1f, REGROWTH * forageModifier);
+        float max = 0;
+        for (float c : capacity) max = Math.max(max, c);
+        maxCapacity = max;
+    }
+
+    /** Every cell to capacity. */
+    void fill() {
+        for (int i = 0; i < food.length; i++) food[i] = capacity[biome[i]];
+    }
+
+    /** Food at pixel (x, y), which must lie in the world. */
+    float level(int x, int y)       { return food[(y / CELL) * cols + x / CELL]; }
+    /** Largest capacity of any biome this season: no cell can hold more. */
+    float maxCapacity()             { return maxCapacity; }
+    float levelAt(int cell)         { return food[cell]; }
+    int cells()                     { return food.length; }
+
+    /** One successful forage at pixel (x, y). */
+    void eat(int x, int y) {
+        eat(x, y, 1);
+    }
+
+    /** {@code bites} successful forages at pixel (x, y); the level stops at 0. */
+    void eat(int x, int y, int bites) {
+        int i = (y / CELL) * cols + x / CELL;
+        food[i] = Math.max(0f, food[i] - bites * BITE);
+    }
+
+    /** Mean food over the cells that cover pixels [x0, x1) × [y0, y1). */
+    float meanLevel(int x0, int y0, int x1, int y1) {
+        double sum = 0;
+        int n = 0;
+        for (int r = y0 / CELL, r1 = Math.min(rows - 1, (y1 - 1) / CELL); r <= r1; r++) {
+            for (int c = x0 / CELL, c1 = Math.min(cols - 1, (x1 - 1) / CELL); c <= c1; c++) {
+                sum += food[r * cols + c];
+                n++;
+            }
+        }
+        return n == 0 ? 0f : (float) (sum / n);
+    }
+
+    /**
+     * {@code bites} successful forages spread over pixels [x0, x1) × [y0, y1):
+     * every covered cell loses the same share of its level, as foragers spread
+     * over the area succeed in proportion to the food where they stand. The
+     * bites come to {@code bites} × {@value #BITE} in all, or empty the area.
+     */
+    void eat(int x0, int y0, int x1, int y1, int bites) {
+        int r0 = y0 / CELL, r1 = Math.min(rows - 1, (y1 - 1) / CELL);
+        int c0 = x0 / CELL, c1 = Math.min(cols - 1, (x1 - 1) / CELL);
+        double total = 0;
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++) total += food[r * cols + c];
+        if (total <= 0) return;
+        float keep = (float) Math.max(0.0, 1.0 - bites * BITE / total);
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++) food[r * cols + c] *= keep;
+    }
+
+    /** Total food on the grid. */
+    double total() {
+        double sum = 0;
+        for (float f : food) sum += f;
+        return sum;
+    }
+
+    /** One tick of regrowth and diffusion; {@code parallel} runs the bands on the common pool. */
+    void step(boolean parallel) {
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        if (parallel && bands > 1) {
+            IntStream.range(0, bands).parallel().forEach(this::stepBand);
+        } else {
+            for (int b = 0; b < bands; b++) stepBand(b);
+        }
+        float[] t = food; food = next; next = t;
+    }
+
+    /** Rows [band × BAND_ROWS, …) from {@link #food} into {@link #next}. */
+    private void stepBand(int band) {
+        float[] from = food, to = next;
+        int n = cols;
+        for (int r = band * BAND_ROWS, end = Math.min(rows, r + BAND_ROWS); r < end; r++) {
+            int row  = r * n;
+            int up   = r > 0 ? row - n : row;
+            int down = r < rows - 1 ? row + n : row;
+            if (n == 1) {
+                to[row] = cell(row, from[row], from[up], from[down], from[row], from[row]);
+                continue;
+            }
+            // edge columns reflect; the interior has no branches left but the clamp
+            to[row] = cell(row, from[row], from[up], from[down], from[row], from[row + 1]);
+            for (int c = 1; c < n - 1; c++) {
+                int i = row + c;
+                to[i] = cell(i, from[i], from[up + c], from[down + c], from[i - 1], from[i + 1]);
+            }
+            int last = row + n - 1;
+            to[last] = cell(last, from[last], from[up + n - 1], from[down + n - 1], from[last - 1], from[last]);
+        }
+    }
+
+    /** Regrowth and diffusion of cell i with level f and the given neighbours. */
+    private float cell(int i, float f, float up, float down, float left, float right) {
+        float mean = 0.25f * (up + down + left + right);
+        int b = biome[i];
+        float cap = capacity[b];
+        float v = f + DIFFUSION * (mean - f) + rate[b] * (cap - f);
+        return v < 0 ? 0 : (v > cap ? cap : v);
+    }
+
+    /** A copy of the current levels, for comparing runs. */
+    float[] snapshot() {
+        return Arrays.copyOf(food, food.length);
+    }
+}
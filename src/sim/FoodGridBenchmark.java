@@ -0,0 +1,99 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Throughput of the {@link FoodGrid} stencil on its own, at world sizes far
+ * beyond the simulation's: builds a {@code cols × rows} grid with three
+ * biomes in blocks, grazes random cells between ticks, and times the
+ * regrowth step sequentially and in row bands on the common pool. Checks
+ * that both give the same levels bit for bit, then reports the share of a
+ * seeded simulation's tick that the food phase takes. Exits with status 1
+ * if the two grids differ.
+ *
+ * <p>Usage: {@code FoodGridBenchmark [cols] [rows] [ticks]}; the default
+ * 4096 × 4096 is 16M cells, and 10000 × 10000 (100M) needs about 1 GB of
+ * heap.
+ */
+public class FoodGridBenchmark {
+
+    private static FoodGrid grid(int cols, int rows) {
+        byte[] biome = new byte[cols * rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                // desert top‐left, oasis in the middle, plains elsewhere, as in the world
+                boolean oasis  = c >= cols / 4 && c < 3 * cols / 4 && r >= rows / 4 && r < 3 * rows / 4;
+                boolean desert = c < cols / 2 && r < rows / 2;
+                biome[r * cols + c] = (byte) (oasis ? 1 : desert ? 0 : 2);
+            }
+        }
+        FoodGrid g = new FoodGrid(cols, rows, biome, 3);
+        g.setBiome(0, 0.3f);
+        g.setBiome(1, 2.0f);
+        g.setBiome(2, 1.2f);
+        g.fill();
+        return g;
+    }
+
+    /** Mean ns per tick over {@code ticks}, grazing the same cells each time. */
+    private static double run(FoodGrid g, int ticks, boolean parallel) {
+        Random rng = new Random(7);
+        int w = g.cols * FoodGrid.CELL, h = g.rows * FoodGrid.CELL;
+        long total = 0;
+        for (int t = 0; t < ticks; t++) {
+            for (int k = 0; k < 10_000; k++) g.eat(rng.nextInt(w), rng.nextInt(h), 1 + rng.nextInt(4));
+            long t0 = System.nanoTime();
+            g.step(parallel);
+            total += System.nanoTime() - t0;
+        }
+        return (double) total / ticks;
+    }
+
+    public static void main(String[] args) {
+        int cols  = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int rows  = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long cells = (long) cols * rows;
+
+        FoodGrid seq = grid(cols, rows);
+        run(seq, 3, false);                                // warm up
+        seq = grid(cols, rows);
+        double seqNs = run(seq, ticks, false);
+        float[] expect = seq.snapshot();
+        seq = null;
+
+        FoodGrid par = grid(cols, rows);
+        double parNs = run(par, ticks, true);
+        boolean same = Arrays.equals(expect, par.snapshot());
+
+        System.out.printf(Locale.ROOT, "%d x %d = %d cells, %d bands of %d rows, %d cores%n",
+                          cols, rows, cells, (rows + FoodGrid.BAND_ROWS - 1) / FoodGrid.BAND_ROWS,
+                          FoodGrid.BAND_ROWS, Runtime.getRuntime().availableProcessors());
+        System.out.printf(Locale.ROOT, "sequential %8.2f ms/tick  %6.3f ns/cell%n", seqNs / 1e6, seqNs / cells);
+        System.out.printf(Locale.ROOT, "parallel   %8.2f ms/tick  %6.3f ns/cell  (x%.2f)%n",
+                          parNs / 1e6, parNs / cells, seqNs / parNs);
+        System.out.println(same ? "parallel levels match sequential" : "MISMATCH parallel levels differ from sequential");
+
+        // what the food phase costs inside a real tick
+        Simulation sim = new Simulation(300, 10, 0.006, 0.025, 1);
+        sim.getEvents().setVerbose(false);
+        sim.setFoodGrid(true);
+        PhaseMeter meter = new PhaseMeter();
+        sim.setPhaseMeter(meter);
+        sim.run(100);
+        long tick = 0;
+        for (int p = 0; p < PhaseMeter.PHASES.length; p++) tick += meter.nanos(p);
+        System.out.printf(Locale.ROOT, "in the simulation: food %.1f us of a %.2f ms tick (%.2f%%), population %d, food %.0f of %.0f%n",
+                          meter.nanos(PhaseMeter.FOOD) / 1e3 / meter.ticks(), tick / 1e6 / meter.ticks(),
+                          100.0 * meter.nanos(PhaseMeter.FOOD) / tick, sim.getCreatures().size(),
+                          sim.getFood().total(), fullTotal(sim));
+        if (!same) System.exit(1);
+    }
+
+    private static double fullTotal(Simulation sim) {
+        FoodGrid full = FoodGrid.forWorld(sim);
+        return full.total();
+    }
+}
@@ -0,0 +1,147 @@
+package sim;
+
+/**
+ * Running genetic statistics of a population: allele counts per locus and
+ * letter, expected heterozygosity, and the number of distinct genomes.
+ *
+ * <p>{@link Simulation} calls {@link #add} for every creature that joins the
+ * population and {@link #remove} for every one that dies or leaves, so each
+ * event costs O(genome length) and every statistic is an O(1) read. For
+ * heterozygosity each locus keeps the sum of its squared allele counts,
+ * which changes by 2c±1 when one count c moves by one; the distinct‐genome
+ * count is kept by a multiset of 64‐bit genome hashes in an open‐addressed
+ * table. Distinct genomes are counted by hash, so two genomes that collide
+ * would count as one; with 64 bits this does not happen in practice.
+ */
+public final class GeneticsTracker {
+    static final int LETTERS = 26;
+
+    private final int loci;
+    private final int[] counts;        // counts[locus * LETTERS + letter]
+    private final long[] sumSq;        // per locus, Σ counts²
+    private long totalSumSq = 0;       // Σ over loci of sumSq
+    private int size = 0;
+
+    // — Genome hash multiset: linear probing, tombstone‐free backward‐shift deletion —
+    private long[] keys = new long[1024];
+    private int[] mult  = new int[1024];   // 0 = empty slot
+    private int distinct = 0;
+
+    GeneticsTracker(int loci) {
+        this.loci   = loci;
+        this.counts = new int[loci * LETTERS];
+        this.sumSq  = new long[loci];
+    }
+
+    void add(Creature c) {
+        char[] g = c.genome();
+        for (int l = 0; l < loci; l++) {
+            int k = l * LETTERS + (g[l] - 'A');
+            long cnt = counts[k]++;
+            sumSq[l] += 2 * cnt + 1;
+            totalSumSq += 2 * cnt + 1;
+        }
+        size++;
+        if (addHash(hash(g)) == 1) distinct++;
+    }
+
+    void remove(Creature c) {
+        char[] g = c.genome();
+        for (int l = 0; l < loci; l++) {
+            int k = l * LETTERS + (g[l] - 'A');
+            long cnt = counts[k]--;
+            sumSq[l] -= 2 * cnt - 1;
+            totalSumSq -= 2 * cnt - 1;
+        }
+        size--;
+        if (removeHash(hash(g)) == 0) distinct--;
+    }
+
+    // — Reads —
+
+    public int getPopulation()           { return size; }
+    public int getLoci()                 { return loci; }
+    public int getDistinctGenomes()      { return distinct; }
+
+    /** How many creatures carry {@code letter} ('A'…'Z') at {@code locus}. */
+    public int getAlleleCount(int locus, char letter) {
+        return counts[locus * LETTERS + (letter - 'A')];
+    }
+
+    public double getAlleleFrequency(int locus, char letter) {
+        return size == 0 ? 0 : (double) getAlleleCount(locus, letter) / size;
+    }
+
+    /** Expected heterozygosity 1 − Σ p² at one locus; 0 for an empty population. */
+    public double getHeterozygosity(int locus) {
+        if (size == 0) return 0;
+        return 1.0 - (double) sumSq[locus] / ((double) size * size);
+    }
+
+    /** Expected heterozygosity averaged over all loci. */
+    public double getMeanHeterozygosity() {
+        if (size == 0 || loci == 0) return 0;
+        return 1.0 - (double) totalSumSq / ((double) size * size * loci);
+    }
+
+    // — Multiset internals —
+
+    static long hash(char[] g) {
+        long h = 0xcbf29ce484222325L;            // FNV‐1a, then a final mix
+        for (char ch : g) {
+            h ^= ch;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private int slotOf(long key) {
+        return (int) key & (keys.length - 1);
+    }
+
+    /** Returns the multiplicity after adding. */
+    private int addHash(long key) {
+        if ((distinct + 1) * 2 > keys.length) grow();
+        int i = slotOf(key);
+        while (mult[i] != 0 && keys[i] != key) i = (i + 1) & (keys.length - 1);
+        keys[i] = key;
+        return ++mult[i];
+    }
+
+    /** Returns the multiplicity after removing; the key must be present. */
+    private int removeHash(long key) {
+        int mask = keys.length - 1;
+        int i = slotOf(key);
+        while (keys[i] != key || mult[i] == 0) i = (i + 1) & mask;
+        if (--mult[i] > 0) return mult[i];
+        // backward‐shift the rest of the probe run into the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; mult[j] != 0; j = (j + 1) & mask) {
+            int home = slotOf(keys[j]);
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                keys[hole] = keys[j];
+                mult[hole] = mult[j];
+                mult[j] = 0;
+                hole = j;
+            }
+        }
+        return 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldMult = mult;
+        keys = new long[oldKeys.length * 2];
+        mult = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldMult[i] == 0) continue;
+            int j = slotOf(oldKeys[i]);
+            while (mult[j] != 0) j = (j + 1) & (keys.length - 1);
+            keys[j] = oldKeys[i];
+            mult[j] = oldMult[i];
+        }
+    }
+}
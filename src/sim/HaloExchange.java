@@ -0,0 +1,267 @@
+package sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Per‐tick border exchange between the processes of a partitioned world.
+ *
+ * <p>Each partition keeps one TCP connection to every touching partition.
+ * After a tick, {@link #exchange()} sends each neighbour (a) the positions of
+ * our creatures within {@link #HALO_WIDTH} of its rectangle, which it mirrors
+ * as read‐only halo for pack sensing, and (b) the full state of creatures that
+ * moved into its rectangle. It then reads the same from every neighbour; that
+ * read is the tick barrier, so one message per link per tick is all the
+ * synchronisation there is. Migrants travel as one length‐prefixed block per
+ * link, kept as bytes until every sender is done: building them takes brain
+ * and memory slots, which must not happen while senders read those pools.
+ *
+ * <p>Partition {@code i} listens on {@code basePort + i} and dials neighbours
+ * with a lower index, so all processes can be started in any order. The two
+ * ends of a link check that they run the same {@link Simulation.BrainMode},
+ * since a migrant's brain only decodes into its own kind.
+ */
+public class HaloExchange implements Closeable {
+    static final int HALO_WIDTH = Creature.PACK_RADIUS;
+    private static final int CONNECT_TIMEOUT_MS = 30_000;
+
+    private static final class Link {
+        final WorldPartition peer;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final ByteArrayOutputStream migrants = new ByteArrayOutputStream();   // encoded by the sender
+        byte[] arrived = new byte[0];                                          // decoded after the senders
+
+        Link(WorldPartition peer, Socket socket) throws IOException {
+            socket.setTcpNoDelay(true);
+            this.peer   = peer;
+            this.socket = socket;
+            this.in     = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            this.out    = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        }
+    }
+
+    private final Simulation sim;
+    private final WorldPartition self;
+    private final List<Link> links;
+    // one sender per link so large messages in both directions cannot deadlock
+    private final ExecutorService senders;
+    // the simulation keeps the last halo until the next one is handed over, so
+    // each exchange reads into the spare pair and the two pairs then swap
+    private int[] haloX = new int[256], haloY = new int[256];
+    private int[] spareX = new int[256], spareY = new int[256];
+    private long lastExchangeNanos;
+
+    private HaloExchange(Simulation sim, List<Link> links) {
+        this.sim     = sim;
+        this.self    = sim.getPartition();
+        this.links   = links;
+        this.senders = Executors.newFixedThreadPool(Math.max(1, links.size()), r -> {
+            Thread t = new Thread(r, "halo-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens the links of {@code sim}'s partition to all of its neighbours on
+     * {@code host}. Blocks until every neighbour is connected; fails if one
+     * runs another brain mode.
+     */
+    public static HaloExchange connect(Simulation sim, String host, int basePort) throws IOException {
+        WorldPartition self = sim.getPartition();
+        List<WorldPartition> peers = self.neighbours();
+        List<Link> links = new ArrayList<>();
+
+        try (ServerSocket server = new ServerSocket()) {
+            server.setReuseAddress(true);
+            server.bind(new InetSocketAddress(host, basePort + self.index));
+
+            int expectAccepts = 0;
+            for (WorldPartition peer : peers) {
+                if (peer.index > self.index) {
+                    expectAccepts++;
+                    continue;
+                }
+                Socket s = dial(host, basePort + peer.index);
+                DataOutputStream hello = new DataOutputStream(s.getOutputStream());
+                hello.writeInt(self.index);
+                hello.writeByte(sim.getBrainMode().ordinal());
+                checkBrainMode(sim, peer.index, new DataInputStream(s.getInputStream()).readByte());
+                links.add(new Link(peer, s));
+            }
+            for (int i = 0; i < expectAccepts; i++) {
+                Socket s = server.accept();
+                DataInputStream hello = new DataInputStream(s.getInputStream());
+                int peerIndex = hello.readInt();
+                int peerMode = hello.readByte();
+                new DataOutputStream(s.getOutputStream()).writeByte(sim.getBrainMode().ordinal());
+                checkBrainMode(sim, peerIndex, peerMode);
+                links.add(new Link(new WorldPartition(peerIndex, self.cols, self.rows), s));
+            }
+        }
+        return new HaloExchange(sim, links);
+    }
+
+    private static void checkBrainMode(Simulation sim, int peerIndex, int peerMode) throws IOException {
+        if (peerMode != sim.getBrainMode().ordinal())
+            throw new IOException("partition " + peerIndex + " runs " + Simulation.BrainMode.values()[peerMode]
+                                  + " brains, this one " + sim.getBrainMode());
+    }
+
+    private static Socket dial(String host, int port) throws IOException {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while (true) {
+            try {
+                return new Socket(host, port);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while connecting", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps halo and migrants with every neighbour for the tick just run.
+     * Must be called after each {@link Simulation#run(int)} of one step.
+     */
+    public void exchange() throws IOException {
+        long t0 = System.nanoTime();
+        int tick = sim.getCurrentStep();
+        List<Creature> leaving = sim.getEmigrants();
+
+        // Creatures that jumped past every neighbour stay with us, pulled back inside.
+        for (Creature c : leaving) {
+            if (!hasLink(self.ownerOf(c.getX(), c.getY()))) {
+                c.setPosition(Math.max(self.x0, Math.min(self.x1 - 1, c.getX())),
+                              Math.max(self.y0, Math.min(self.y1 - 1, c.getY())));
+            }
+        }
+
+        List<Future<?>> sent = new ArrayList<>(links.size());
+        for (Link link : links)
+            sent.add(senders.submit(() -> { send(link, tick, leaving); return null; }));
+
+        int haloN = 0;
+        int[] xs = spareX, ys = spareY;
+        for (Link link : links) {
+            DataInputStream in = link.in;
+            int peerTick = in.readInt();
+            if (peerTick != tick)
+                throw new IOException("partition " + link.peer.index + " is at tick " + peerTick
+                                      + ", expected " + tick);
+            int n = in.readInt();
+            if (haloN + n > xs.length) {
+                int cap = Math.max(haloN + n, xs.length * 2);
+                xs = Arrays.copyOf(xs, cap);
+                ys = Arrays.copyOf(ys, cap);
+            }
+            for (int i = 0; i < n; i++, haloN++) {
+                xs[haloN] = in.readShort();
+                ys[haloN] = in.readShort();
+            }
+            int len = in.readInt();
+            if (link.arrived.length < len) link.arrived = new byte[len];
+            in.readFully(link.arrived, 0, len);
+        }
+
+        for (Future<?> f : sent) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                throw new IOException("send to neighbour failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted during exchange", e);
+            }
+        }
+
+        // Only now mutate the simulation: the senders were reading it.
+        for (Creature c : leaving) {
+            if (!self.contains(c.getX(), c.getY())) c.die();
+            else sim.immigrate(c);
+        }
+        leaving.clear();
+        for (Link link : links) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(link.arrived));
+            int m = in.readInt();
+            for (int i = 0; i < m; i++)
+                sim.immigrate(Creature.readFrom(in, sim));
+        }
+        sim.setHalo(xs, ys, haloN);
+        spareX = haloX;
+        spareY = haloY;
+        haloX  = xs;
+        haloY  = ys;
+        lastExchangeNanos = System.nanoTime() - t0;
+    }
+
+    private void send(Link link, int tick, List<Creature> leaving) throws IOException {
+        DataOutputStream out = link.out;
+        WorldPartition peer = link.peer;
+        out.writeInt(tick);
+
+        List<Creature> pop = sim.population;
+        int n = 0;
+        for (Creature c : pop)
+            if (peer.near(c.getX(), c.getY(), HALO_WIDTH)) n++;
+        out.writeInt(n);
+        for (Creature c : pop) {
+            if (peer.near(c.getX(), c.getY(), HALO_WIDTH)) {
+                out.writeShort(c.getX());
+                out.writeShort(c.getY());
+            }
+        }
+
+        int m = 0;
+        for (Creature c : leaving)
+            if (peer.contains(c.getX(), c.getY())) m++;
+        link.migrants.reset();
+        DataOutputStream block = new DataOutputStream(link.migrants);
+        block.writeInt(m);
+        for (Creature c : leaving)
+            if (peer.contains(c.getX(), c.getY())) c.writeTo(block);
+        out.writeInt(link.migrants.size());
+        link.migrants.writeTo(out);
+        out.flush();
+    }
+
+    private boolean hasLink(int index) {
+        for (Link l : links) if (l.peer.index == index) return true;
+        return false;
+    }
+
+    /** Wall time of the last {@link #exchange()}, including waiting on the slowest neighbour. */
+    public long getLastExchangeNanos() { return lastExchangeNanos; }
+
+    public int getNeighbourCount()     { return links.size(); }
+
+    @Override
+    public void close() throws IOException {
+        senders.shutdownNow();
+        for (Link l : links) l.socket.close();
+    }
+}
@@ -0,0 +1,197 @@
+package sim;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Density, mean‐fitness and mean‐hunger maps of a {@link Simulation} on a
+ * coarse grid of {@link #CELL}‐pixel squares.
+ *
+ * <p>The per‐cell sums are kept up to date from observer callbacks: each
+ * creature remembers what it last contributed (see {@code Creature.heatCell})
+ * and a move, death or re‐evaluation swaps that contribution out, so the cost
+ * is a few array writes per event rather than a rescan per frame. Fitness comes
+ * from the score the death phase computes anyway. With a decay factor set,
+ * the displayed value is an exponential moving average, which leaves trails.
+ *
+ * <p>Only one layer may be attached to a simulation at a time.
+ */
+final class HeatmapLayer implements SimulationObserver {
+    public enum Kind { DENSITY, FITNESS, HUNGER }
+
+    static final int CELL = 10;
+    private static final int ALPHA = 150;
+
+    final int cols = (Simulation.WORLD_W + CELL - 1) / CELL;
+    final int rows = (Simulation.WORLD_H + CELL - 1) / CELL;
+    private final int[] count        = new int[cols * rows];
+    private final int[] scored       = new int[cols * rows];   // creatures with a fitness contribution
+    private final double[] fitSum    = new double[cols * rows];
+    private final double[] hungerSum = new double[cols * rows];
+    private final float[] shown      = new float[cols * rows]; // decayed values when trails are on
+    private final float[] presence   = new float[cols * rows]; // decayed occupancy, hides faded cells
+
+    private final BufferedImage image = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_ARGB);
+    private final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    private static final int[] RAMP = buildRamp();
+
+    private Kind kind = Kind.DENSITY;
+    private double decay = 0;             // 0 = no trails
+
+    private final Simulation sim;
+
+    /** Seeds the grid from the current population and starts observing {@code sim}. */
+    HeatmapLayer(Simulation sim) {
+        this.sim = sim;
+        for (Creature c : sim.getCreatures()) {
+            c.heatCell    = -1;
+            c.heatFitness = -1;
+            onBirth(c);
+        }
+        sim.addObserver(this);
+    }
+
+    /** Stops observing; the layer keeps its last picture. */
+    void detach() {
+        sim.removeObserver(this);
+    }
+
+    void setKind(Kind kind) {
+        this.kind = kind;
+        Arrays.fill(shown, 0f);
+        Arrays.fill(presence, 0f);
+    }
+
+    Kind getKind() { return kind; }
+
+    /**
+     * Fraction of the previous displayed value kept each tick, in [0,1).
+     * 0 shows the current state only.
+     */
+    void setDecay(double decay) {
+        if (decay < 0 || decay >= 1) throw new IllegalArgumentException("decay must be in [0,1), got " + decay);
+        this.decay = decay;
+    }
+
+    // — Incremental bookkeeping —
+
+    private int cellOf(int x, int y) {
+        int cx = Math.min(cols - 1, Math.max(0, x / CELL));
+        int cy = Math.min(rows - 1, Math.max(0, y / CELL));
+        return cy * cols + cx;
+    }
+
+    private void add(Creature c, int cell) {
+        c.heatCell   = cell;
+        c.heatHunger = c.getHunger();
+        count[cell]++;
+        hungerSum[cell] += c.heatHunger;
+        if (c.heatFitness >= 0) {
+            scored[cell]++;
+            fitSum[cell] += c.heatFitness;
+        }
+    }
+
+    private void remove(Creature c) {
+        int cell = c.heatCell;
+        if (cell < 0) return;
+        c.heatCell = -1;
+        if (--count[cell] == 0) hungerSum[cell] = 0;   // drop accumulated rounding
+        else hungerSum[cell] -= c.heatHunger;
+        if (c.heatFitness >= 0) {
+            if (--scored[cell] == 0) fitSum[cell] = 0;
+            else fitSum[cell] -= c.heatFitness;
+        }
+    }
+
+    @Override
+    public void onBirth(Creature c) {
+        add(c, cellOf(c.getX(), c.getY()));
+    }
+
+    @Override
+    public void onDeath(Creature c) {
+        remove(c);
+    }
+
+    @Override
+    public void onMove(Creature c, int fromX, int fromY) {
+        int cell = cellOf(c.getX(), c.getY());
+        if (cell == c.heatCell) return;
+        remove(c);
+        add(c, cell);
+    }
+
+    @Override
+    public void onEvaluated(Creature c, double fitness) {
+        remove(c);
+        c.heatFitness = fitness;
+        add(c, cellOf(c.getX(), c.getY()));
+    }
+
+    @Override
+    public void onTickEnd(Simulation s) {
+        if (decay == 0) return;
+        float keep = (float) decay, take = 1f - keep;
+        for (int i = 0; i < shown.length; i++) {
+            shown[i]    = shown[i] * keep + take * value(i);
+            presence[i] = presence[i] * keep + (count[i] > 0 ? take : 0f);
+        }
+    }
+
+    /** The selected quantity in cell i, scaled to [0,1]; density is raw and scaled at render. */
+    private float value(int i) {
+        switch (kind) {
+            case FITNESS: return scored[i] == 0 ? 0f : (float) ((fitSum[i] / scored[i] - 1.0) / 99.0);
+            case HUNGER:  return count[i]  == 0 ? 0f : (float) (hungerSum[i] / count[i] / Creature.MAX_HUNGER);
+            default:      return count[i];
+        }
+    }
+
+    // — Rendering —
+
+    /**
+     * Writes the current map into the layer's image, one pixel per cell, and
+     * returns it; draw it scaled by {@link #CELL}. Empty cells are transparent.
+     */
+    BufferedImage render() {
+        int n = pixels.length;
+        float max = 1f;
+        if (kind == Kind.DENSITY) {
+            for (int i = 0; i < n; i++) max = Math.max(max, decay == 0 ? count[i] : shown[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            float v = decay == 0 ? value(i) : kind == Kind.DENSITY ? shown[i] : shown[i] / Math.max(presence[i], 1e-6f);
+            boolean empty = decay == 0 ? count[i] == 0 : presence[i] < 0.02f;
+            if (empty) {
+                pixels[i] = 0;
+            } else {
+                int k = (int) (v / max * 255f);
+                pixels[i] = RAMP[Math.min(255, Math.max(0, k))];
+            }
+        }
+        return image;
+    }
+
+    /** Blue → cyan → yellow → red, semi‐transparent. */
+    private static int[] buildRamp() {
+        int[] ramp = new int[256];
+        for (int k = 0; k < 256; k++) {
+            float t = k / 255f;
+            int r, g, b;
+            if (t < 1f/3) {
+                float u = t * 3;
+                r = 0; g = (int) (255 * u); b = 255;
+            } else if (t < 2f/3) {
+                float u = (t - 1f/3) * 3;
+                r = (int) (255 * u); g = 255; b = (int) (255 * (1 - u));
+            } else {
+                float u = (t - 2f/3) * 3;
+                r = 255; g = (int) (255 * (1 - u)); b = 0;
+            }
+            ramp[k] = ALPHA << 24 | r << 16 | g << 8 | b;
+        }
+        return ramp;
+    }
+}
@@ -0,0 +1,184 @@
+package sim;
+
+import java.util.Arrays;
+
+/**
+ * Static 2‐d tree over integer points, rebuilt from scratch when the points
+ * move (once per tick). Each point carries a small int tag so queries can
+ * ask for, say, only the opposite sex.
+ *
+ * <p>The tree is implicit: building permutes an index array so that for
+ * every range [lo, hi) the median element at (lo+hi)/2 splits the rest by x
+ * (even depth) or y (odd depth). Building is O(N log N) expected; a
+ * k‐nearest query is O(log N + k) for evenly spread points. The tree is
+ * read‐only after {@link #build}, so any number of threads may query it at
+ * once, each with its own {@link Neighbours} buffer.
+ */
+final class KdTree {
+    private int[] xs = new int[0], ys = new int[0], tags = new int[0];
+    private int[] order = new int[0];     // permuted point indices, see class comment
+    private int size = 0;
+
+    /** Rebuilds over the first {@code n} points; the arrays are read during build only. */
+    void build(int[] x, int[] y, int[] tag, int n) {
+        if (order.length < n) {
+            int cap = Math.max(n, order.length * 2);
+            xs = new int[cap]; ys = new int[cap]; tags = new int[cap]; order = new int[cap];
+        }
+        System.arraycopy(x, 0, xs, 0, n);
+        System.arraycopy(y, 0, ys, 0, n);
+        System.arraycopy(tag, 0, tags, 0, n);
+        for (int i = 0; i < n; i++) order[i] = i;
+        size = n;
+        build(0, n, 0);
+    }
+
+    int size() { return size; }
+
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+            // recurse into the smaller half, loop on the larger
+            if (mid - lo < hi - mid - 1) {
+                build(lo, mid, depth + 1);
+                lo = mid + 1;
+            } else {
+                build(mid + 1, hi, depth + 1);
+                hi = mid;
+            }
+            depth++;
+        }
+    }
+
+    /** Quickselect on order[lo..hi] so that order[k] holds the k‐th smallest key. */
+    private void select(int lo, int hi, int k, int[] key) {
+        while (hi > lo) {
+            int m = (lo + hi) >>> 1;
+            // median of three as pivot
+            if (key[order[m]]  < key[order[lo]]) swap(m, lo);
+            if (key[order[hi]] < key[order[lo]]) swap(hi, lo);
+            if (key[order[hi]] < key[order[m]])  swap(hi, m);
+            int pivot = key[order[m]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[order[i]] < pivot) i++;
+                while (key[order[j]] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int t = order[a]; order[a] = order[b]; order[b] = t;
+    }
+
+    /**
+     * Fills {@code out} with up to {@code out.capacity()} points nearest to
+     * (x, y) within {@code radius}, excluding point {@code self} and, when
+     * {@code tag >= 0}, points with another tag. Results come back nearest
+     * first, ties broken by point index, so they do not depend on the thread.
+     */
+    void nearest(int x, int y, int radius, int tag, int self, Neighbours out) {
+        out.size = 0;
+        out.limit = (long) radius * radius;
+        if (size > 0) search(0, size, 0, x, y, tag, self, out);
+        out.sort();
+    }
+
+    private void search(int lo, int hi, int depth, int x, int y, int tag, int self, Neighbours out) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int p = order[mid];
+            long dx = xs[p] - x, dy = ys[p] - y;
+            long d2 = dx * dx + dy * dy;
+            if (p != self && (tag < 0 || tags[p] == tag)) out.offer(p, d2);
+            long diff = (depth & 1) == 0 ? x - xs[p] : y - ys[p];
+            int nearLo, nearHi, farLo, farHi;
+            if (diff < 0) { nearLo = lo; nearHi = mid; farLo = mid + 1; farHi = hi; }
+            else          { nearLo = mid + 1; nearHi = hi; farLo = lo; farHi = mid; }
+            search(nearLo, nearHi, depth + 1, x, y, tag, self, out);
+            if (diff * diff > out.bound()) return;
+            lo = farLo; hi = farHi;
+            depth++;
+        }
+    }
+
+    /** Per‐thread result buffer: a bounded max‐heap on squared distance. */
+    static final class Neighbours {
+        final int[] index;
+        final long[] dist2;
+        int size;
+        private long limit;
+
+        Neighbours(int k) {
+            index = new int[k];
+            dist2 = new long[k];
+        }
+
+        int capacity() { return index.length; }
+
+        /** Largest squared distance that could still enter the result. */
+        private long bound() {
+            return size < index.length ? limit : dist2[0];
+        }
+
+        private void offer(int p, long d2) {
+            if (d2 > limit) return;
+            if (size < index.length) {
+                int i = size++;
+                index[i] = p; dist2[i] = d2;
+                siftUp(i);
+            } else if (worse(dist2[0], index[0], d2, p)) {
+                index[0] = p; dist2[0] = d2;
+                siftDown(0, size);
+            }
+        }
+
+        /** True if (d, i) ranks after (d2, p). */
+        private static boolean worse(long d, int i, long d2, int p) {
+            return d > d2 || (d == d2 && i > p);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(dist2[i], index[i], dist2[parent], index[parent])) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int n) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, top = i;
+                if (l < n && worse(dist2[l], index[l], dist2[top], index[top])) top = l;
+                if (r < n && worse(dist2[r], index[r], dist2[top], index[top])) top = r;
+                if (top == i) return;
+                swap(i, top);
+                i = top;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ti = index[a]; index[a] = index[b]; index[b] = ti;
+            long td = dist2[a]; dist2[a] = dist2[b]; dist2[b] = td;
+        }
+
+        /** Heap sort in place: nearest first. */
+        private void sort() {
+            for (int n = size - 1; n > 0; n--) {
+                swap(0, n);
+                siftDown(0, n);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(Arrays.copyOf(index, size));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relatedness queries over the lineage kept by {@link Creature#getParentA()}
+ * and {@link Creature#getParentB()}.
+ *
+ * <p>Kinship φ(a, b) is the chance that an allele drawn from a and one drawn
+ * from b are identical by descent; relatedness is 2φ and a creature's
+ * inbreeding coefficient is its parents' kinship. It is computed with the
+ * usual recursion, always expanding the younger of the two (ids rise with
+ * birth, so the younger cannot be the other's ancestor):
+ * <pre>
+ *   φ(a, a) = ½ (1 + φ(pa, pb))
+ *   φ(a, b) = ½ (φ(pa, b) + φ(pb, b))     a younger than b
+ * </pre>
+ * Kinship is always relative to a base population taken as unrelated.
+ * Here that is every creature without parents (founders, migrants,
+ * creatures released from an aggregate cell) and every creature of a
+ * {@link Creature#getGeneration() generation} below a floor that trails
+ * the youngest generation queried by {@code window} to 2 × {@code window}.
+ * That keeps each query's walk short however long the run.
+ *
+ * <p>Every intermediate result is memoised in a direct‐mapped table. The
+ * pedigree never changes once written, so entries hold until the floor
+ * moves, which clears the table; otherwise they leave only by being
+ * overwritten. A newborn's queries mostly resolve against entries its
+ * parents' generation left behind, which is what keeps a check per birth
+ * pair cheap.
+ *
+ * <p>Not thread‐safe; a simulation owns one and queries it from its own thread.
+ */
+public final class Kinship {
+    static final int DEFAULT_WINDOW = 8;
+    private static final int DEFAULT_CACHE_BITS = 18;
+
+    private final int window;
+    private final int cacheBits;
+    private int floor = 0;              // generations below this are the base population
+    private long[] keys;                // (younger id, older id); -1 if empty; allocated on first use
+    private double[] values;
+    private long lookups = 0, hits = 0;
+
+    // — MRCA scratch —
+    private final Map<Creature, Integer> ancestorsOfA = new IdentityHashMap<>();
+    private final Set<Creature> seenFromB = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Creature> frontier = new ArrayList<>(), nextFrontier = new ArrayList<>();
+
+    public Kinship() {
+        this(DEFAULT_WINDOW, DEFAULT_CACHE_BITS);
+    }
+
+    /**
+     * @param window generations followed back at least, 1..64
+     * @param cacheBits the memo holds 2<sup>cacheBits</sup> results
+     */
+    public Kinship(int window, int cacheBits) {
+        if (window < 1 || window > 64) throw new IllegalArgumentException("window must be in 1..64, got " + window);
+        if (cacheBits < 4 || cacheBits > 26) throw new IllegalArgumentException("cache bits must be in 4..26, got " + cacheBits);
+        this.window    = window;
+        this.cacheBits = cacheBits;
+    }
+
+    public int getWindow()     { return window; }
+    /** Oldest generation currently not treated as unrelated base population. */
+    public int getFloor()      { return floor; }
+    /** Memo lookups and hits so far, for tuning the cache size. */
+    public long getLookups()   { return lookups; }
+    public long getHits()      { return hits; }
+
+    // — Queries —
+
+    /** Kinship coefficient φ(a, b), 0 … 1; φ(a, a) is ½ for a non‐inbred creature. */
+    public double kinship(Creature a, Creature b) {
+        rebase(a, b);
+        return phi(a, b);
+    }
+
+    /** Coefficient of relatedness 2φ: ½ for parent and child or full siblings. */
+    public double relatedness(Creature a, Creature b) {
+        return 2 * kinship(a, b);
+    }
+
+    /** Inbreeding coefficient F: the kinship of the creature's parents, 0 for founders. */
+    public double inbreeding(Creature c) {
+        rebase(c, c);
+        return founder(c) ? 0 : phi(c.getParentA(), c.getParentB());
+    }
+
+    /** Fills {@code out[i]} with φ(as[i], bs[i]); pairs sharing ancestors share work. */
+    public void kinship(List<Creature> as, List<Creature> bs, double[] out) {
+        if (as.size() != bs.size() || out.length < as.size())
+            throw new IllegalArgumentException("need equal‐length pair lists and room for every result");
+        for (int i = 0; i < as.size(); i++) out[i] = kinship(as.get(i), bs.get(i));
+    }
+
+    /** Symmetric matrix of φ between every two members of {@code group}. */
+    public double[][] kinshipMatrix(List<Creature> group) {
+        int n = group.size();
+        double[][] m = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) m[i][j] = m[j][i] = kinship(group.get(i), group.get(j));
+        }
+        return m;
+    }
+
+    /**
+     * The common ancestor of a and b (either may be it) fewest generations
+     * away, counting both sides, within 2 × {@code window} generations of
+     * each; ties go to the youngest. Null when they share none.
+     */
+    public Creature mostRecentCommonAncestor(Creature a, Creature b) {
+        ancestorsOfA.clear();
+        frontier.clear();
+        frontier.add(a);
+        for (int g = 0; g <= 2 * window && !frontier.isEmpty(); g++) {
+            nextFrontier.clear();
+            for (Creature c : frontier) {
+                if (ancestorsOfA.putIfAbsent(c, g) != null) continue;
+                if (c.getParentA() != null) {
+                    nextFrontier.add(c.getParentA());
+                    nextFrontier.add(c.getParentB());
+                }
+            }
+            swapFrontiers();
+        }
+
+        Creature best = null;
+        int bestGens = Integer.MAX_VALUE;
+        frontier.clear();
+        frontier.add(b);
+        for (int g = 0; g <= 2 * window && g <= bestGens && !frontier.isEmpty(); g++) {
+            nextFrontier.clear();
+            for (Creature c : frontier) {
+                if (!seenFromB.add(c)) continue;
+                Integer ga = ancestorsOfA.get(c);
+                if (ga != null && (ga + g < bestGens || (ga + g == bestGens && c.getId() > best.getId()))) {
+                    best = c;
+                    bestGens = ga + g;
+                }
+                if (c.getParentA() != null) {
+                    nextFrontier.add(c.getParentA());
+                    nextFrontier.add(c.getParentB());
+                }
+            }
+            swapFrontiers();
+        }
+        ancestorsOfA.clear();
+        seenFromB.clear();
+        frontier.clear();
+        return best;
+    }
+
+    private void swapFrontiers() {
+        frontier.clear();
+        frontier.addAll(nextFrontier);
+    }
+
+    // — Recursion —
+
+    /** Moves the floor up, and forgets everything, once a query runs 2 × window ahead of it. */
+    private void rebase(Creature a, Creature b) {
+        int g = Math.max(a.getGeneration(), b.getGeneration());
+        if (g - floor < 2 * window) return;
+        floor = g - window;
+        if (keys != null) Arrays.fill(keys, -1);
+    }
+
+    private boolean founder(Creature c) {
+        return c.getParentA() == null || c.getGeneration() < floor;
+    }
+
+    /** Birth order; a creature not yet given an id is the youngest of all. */
+    private static int order(Creature c) {
+        return c.getId() < 0 ? Integer.MAX_VALUE : c.getId();
+    }
+
+    private double phi(Creature a, Creature b) {
+        if (a == b) return founder(a) ? 0.5 : 0.5 * (1 + phi(a.getParentA(), a.getParentB()));
+        if (order(a) < order(b)) {
+            Creature t = a; a = b; b = t;
+        }
+        if (founder(a)) return 0;               // base population, or younger than b
+
+        boolean memo = a.getId() >= 0 && b.getId() >= 0;
+        int slot = 0;
+        long key = 0;
+        if (memo) {
+            if (keys == null) {
+                keys = new long[1 << cacheBits];
+                values = new double[1 << cacheBits];
+                Arrays.fill(keys, -1);
+            }
+            key = (long) a.getId() << 32 | b.getId();
+            slot = (int) (key * 0x9E3779B97F4A7C15L >>> (64 - cacheBits));
+            lookups++;
+            if (keys[slot] == key) {
+                hits++;
+                return values[slot];
+            }
+        }
+        double v = 0.5 * (phi(a.getParentA(), b) + phi(a.getParentB(), b));
+        if (memo) {
+            keys[slot] = key;
+            values[slot] = v;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,373 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Aggregate (“mean‐field”) stand‐in for crowded parts of the world.
+ *
+ * <p>The world is cut into {@value #CELL}‐px cells. Once a cell holds at
+ * least {@code threshold} creatures it goes aggregate: its creatures leave
+ * the population and become counts by sex, age and hunger, plus the count of
+ * every letter at every genome locus. Creatures that later walk into an
+ * aggregate cell are absorbed too. Each tick an aggregate cell forages,
+ * dies, breeds, ages and diffuses by binomial draws per bucket, with the same
+ * probabilities a creature in that cell would face, so its cost depends on
+ * the number of occupied buckets and not on how many creatures it holds.
+ * When a cell thins below half the threshold (the gap keeps cells from
+ * flapping) its creatures are released again as individuals.
+ *
+ * <p>What the aggregate forgets: positions within the cell, brains and
+ * memories (released creatures get fresh root brains), lineage, and which
+ * letters belong to the same genome. Genomes drawn back out of a cell are
+ * sampled locus by locus from its letter counts, without replacement, so
+ * allele counts are kept exactly but linkage is lost. Births and deaths
+ * inside a cell are not published on the event bus; absorption and release
+ * reach observers as {@link SimulationObserver#onDepart departures} and
+ * {@link SimulationObserver#onArrive arrivals}.
+ */
+final class MeanFieldGrid {
+    static final int CELL = 40;
+    static final int COLS = Simulation.WORLD_W / CELL, ROWS = Simulation.WORLD_H / CELL;
+    /** Share of an aggregate cell's creatures that walk into a neighbour cell each tick. */
+    static final double DIFFUSION = 0.10;
+
+    private static final int AGES    = Simulation.MAX_AGE + 2;      // 0 … MAX_AGE+1, the last dies
+    private static final int HUNGERS = Creature.MAX_HUNGER + 1;
+    private static final int BUCKETS = 2 * AGES * HUNGERS;          // [sex][age][hunger]
+    private static final int LETTERS = GeneticsTracker.LETTERS;
+
+    private final int loci;
+    private final Cell[] cells = new Cell[COLS * ROWS];
+    private final int[] occupancy = new int[COLS * ROWS];   // individuals per cell, rebuilt each tick
+    private final int[] born;                               // scratch: letters of this tick's births
+    private final char[] genome;                            // scratch for genome draws
+    private final int[] targets = new int[4], moved = new int[4];   // scratch for diffusion
+    private int threshold = 0;                              // 0 = off
+    private int size = 0;                                   // creatures held in aggregates
+
+    /** One cell's aggregate; allocated the first time the cell goes dense, then reused. */
+    private final class Cell {
+        final int[] counts   = new int[BUCKETS];
+        final int[] next     = new int[BUCKETS];            // scratch for the forage/death pass
+        final int[] alleles  = new int[loci * LETTERS];     // alleles[locus * LETTERS + letter]
+        // diffusion from other cells lands here and is merged once every cell has moved
+        final int[] inCounts  = new int[BUCKETS];
+        final int[] inAlleles = new int[loci * LETTERS];
+        int inSize = 0;
+        int size = 0;
+        boolean active = false;
+    }
+
+    MeanFieldGrid(int loci) {
+        this.loci   = loci;
+        this.born   = new int[loci * LETTERS];
+        this.genome = new char[loci];
+    }
+
+    boolean isEnabled()       { return threshold > 0; }
+    int getThreshold()        { return threshold; }
+    /** Creatures currently held as counts. */
+    int size()                { return size; }
+
+    void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /** Creatures held by cell (col, row); 0 for cells that are not aggregate. */
+    int cellSize(int col, int row) {
+        Cell c = cells[row * COLS + col];
+        return c != null && c.active ? c.size : 0;
+    }
+
+    private static int bucket(int sex, int age, int hunger) {
+        return (sex * AGES + age) * HUNGERS + hunger;
+    }
+
+    private static int cellOf(int x, int y) {
+        return Math.min(y / CELL, ROWS - 1) * COLS + Math.min(x / CELL, COLS - 1);
+    }
+
+    // — Tick —
+
+    /**
+     * Advances every aggregate cell by one tick, then absorbs crowds and
+     * releases thinned cells. Runs after the individual creatures have aged.
+     */
+    void step(Simulation sim) {
+        Random rng = sim.random();
+        for (int i = 0; i < cells.length; i++) {
+            Cell c = cells[i];
+            if (c != null && c.active && c.size > 0) advance(sim, rng, c, i);
+        }
+        for (Cell c : cells) {
+            if (c == null || c.inSize == 0) continue;
+            for (int k = 0; k < BUCKETS; k++) c.counts[k] += c.inCounts[k];
+            for (int k = 0; k < c.alleles.length; k++) c.alleles[k] += c.inAlleles[k];
+            Arrays.fill(c.inCounts, 0);
+            Arrays.fill(c.inAlleles, 0);
+            c.size += c.inSize;
+            c.inSize = 0;
+        }
+
+        Arrays.fill(occupancy, 0);
+        List<Creature> pop = sim.population;
+        for (int i = 0; i < pop.size(); i++) {
+            Creature c = pop.get(i);
+            occupancy[cellOf(c.getX(), c.getY())]++;
+        }
+        boolean absorb = false;
+        for (int i = 0; i < cells.length; i++) {
+            Cell c = cells[i];
+            boolean active = c != null && c.active;
+            if (active && c.size + occupancy[i] < threshold / 2) {
+                release(sim, rng, c, i);
+            } else if (!active && occupancy[i] >= threshold) {
+                if (c == null) cells[i] = c = new Cell();
+                c.active = true;
+                absorb = true;
+            } else if (active && occupancy[i] > 0) {
+                absorb = true;
+            }
+        }
+        if (absorb) absorb(sim);
+    }
+
+    /** Forage, death, birth, ageing and diffusion of one aggregate cell. */
+    private void advance(Simulation sim, Random rng, Cell c, int ci) {
+        int x0 = (ci % COLS) * CELL, y0 = (ci / COLS) * CELL;
+        int cx = x0 + CELL / 2, cy = y0 + CELL / 2;
+        Biome biome = sim.getBiomeAt(cx, cy);
+        // the aggregate stands in for creatures spread over every food cell it covers
+        FoodGrid food = sim.getFood();
+        double available = food != null ? food.meanLevel(x0, y0, x0 + CELL, y0 + CELL) : biome.forageModifier;
+        double pForage = Creature.FORAGE_PROB * available * sim.getHeight(cx, cy);
+        // creatures within PACK_RADIUS of one another, if spread evenly over the cell
+        int packmates = (int) Math.round(c.size * Math.PI * Creature.PACK_RADIUS * Creature.PACK_RADIUS
+                                         / ((double) CELL * CELL));
+        double baseDeath = sim.getDeathProbPerStep() * sim.getEvents().getDeathModifier() * biome.deathModifier;
+
+        // 1) forage or go hungrier, starve, then the death phase on the new hunger
+        int[] counts = c.counts, next = c.next;
+        Arrays.fill(next, 0);
+        int died = 0, males = 0, females = 0;
+        double fitSum = 0;
+        for (int sex = 0; sex < 2; sex++) {
+            for (int age = 0; age < AGES; age++) {
+                int row = bucket(sex, age, 0);
+                boolean old = age > Simulation.MAX_AGE;
+                double ageFactor = 1.0 + Simulation.AGE_DEATH_INCREASE_FACTOR * age / Simulation.MAX_AGE;
+                for (int h = 0; h < HUNGERS; h++) {
+                    int k = counts[row + h];
+                    if (k == 0) continue;
+                    int fed = binomial(rng, k, pForage);
+                    if (food != null && fed > 0) food.eat(x0, y0, x0 + CELL, y0 + CELL, fed);
+                    for (int pass = 0; pass < 2; pass++) {
+                        int n = pass == 0 ? fed : k - fed;
+                        int hunger = pass == 0 ? 0 : h + 1;
+                        if (n == 0) continue;
+                        if (hunger >= HUNGERS || old) { died += n; continue; }
+                        double fit = Creature.fitness(hunger, age, biome, packmates);
+                        int d = binomial(rng, n, baseDeath * ageFactor * (1.0 - 0.5 * fit / 100.0));
+                        died += d;
+                        n -= d;
+                        next[row + hunger] += n;
+                        fitSum += n * fit;
+                        if (sex == 0) males += n; else females += n;
+                    }
+                }
+            }
+        }
+        System.arraycopy(next, 0, counts, 0, BUCKETS);
+        if (died > 0) thin(rng, c.alleles, null, died, c.size);
+        c.size -= died;
+        size -= died;
+
+        // 2) births: as many opposite‐sex pairs as the pairing mode would form
+        if (males > 0 && females > 0) {
+            double chance = sim.getBirthProbPerPair() * sim.getEvents().getBirthModifier()
+                          * (1.0 + 0.5 * (fitSum / c.size) / 100.0);
+            if (biome.forageModifier > 1.0) chance *= Simulation.FOOD_BREED_BONUS;
+            int pairs;
+            if (sim.getMateSelection() == Simulation.MateSelection.NEAREST) {
+                pairs = Math.min(males, females);
+                chance *= 0.5;
+            } else {
+                pairs = (int) Math.round((double) males * females / c.size);
+            }
+            int births = binomial(rng, pairs, Math.min(1.0, chance));
+            for (int b = 0; b < births; b++) {
+                for (int l = 0; l < loci; l++) {
+                    int letter = rng.nextDouble() < 0.01 ? rng.nextInt(LETTERS) : pick(rng, c.alleles, l, c.size, false);
+                    born[l * LETTERS + letter]++;
+                }
+                counts[bucket(rng.nextBoolean() ? 0 : 1, 0, 0)]++;
+            }
+            if (births > 0) {
+                for (int k = 0; k < born.length; k++) { c.alleles[k] += born[k]; born[k] = 0; }
+                c.size += births;
+                size += births;
+            }
+        }
+
+        // 3) everyone ages; the oldest bucket was emptied by the death pass
+        for (int sex = 0; sex < 2; sex++) {
+            System.arraycopy(counts, bucket(sex, 0, 0), counts, bucket(sex, 1, 0), (AGES - 1) * HUNGERS);
+            Arrays.fill(counts, bucket(sex, 0, 0), bucket(sex, 1, 0), 0);
+        }
+
+        // 4) diffusion to the four neighbours; into aggregate cells as counts, elsewhere as creatures
+        int col = ci % COLS, rowOf = ci / COLS;
+        targets[0] = col > 0          ? ci - 1    : -1;
+        targets[1] = col < COLS - 1   ? ci + 1    : -1;
+        targets[2] = rowOf > 0        ? ci - COLS : -1;
+        targets[3] = rowOf < ROWS - 1 ? ci + COLS : -1;
+        Arrays.fill(moved, 0);
+        for (int k = 0; k < BUCKETS; k++) {
+            int n = counts[k];
+            if (n == 0) continue;
+            int out = binomial(rng, n, DIFFUSION);
+            for (int dir = 0; dir < 4 && out > 0; dir++) {
+                int m = dir == 3 ? out : binomial(rng, out, 1.0 / (4 - dir));
+                out -= m;
+                int t = targets[dir];
+                if (m == 0 || t < 0) continue;          // the world edge turns them back
+                counts[k] -= m;
+                Cell dst = cells[t];
+                if (dst != null && dst.active) {
+                    dst.inCounts[k] += m;
+                    dst.inSize += m;
+                    moved[dir] += m;
+                } else {
+                    int sex = k / (AGES * HUNGERS), age = (k / HUNGERS) % AGES, hunger = k % HUNGERS;
+                    for (int j = 0; j < m; j++) materialize(sim, rng, c, t, sex, age, hunger);
+                }
+            }
+        }
+        for (int dir = 0; dir < 4; dir++) {
+            if (moved[dir] == 0) continue;
+            Cell dst = cells[targets[dir]];
+            thin(rng, c.alleles, dst.inAlleles, moved[dir], c.size);
+            c.size -= moved[dir];
+        }
+    }
+
+    /** Absorbs every individual standing in an aggregate cell. */
+    private void absorb(Simulation sim) {
+        List<Creature> pop = sim.population;
+        int kept = 0, n = pop.size();
+        for (int i = 0; i < n; i++) {
+            Creature cr = pop.get(i);
+            Cell c = cells[cellOf(cr.getX(), cr.getY())];
+            if (c == null || !c.active) {
+                pop.set(kept++, cr);
+                continue;
+            }
+            int age = Math.min(cr.getAge(), AGES - 1), hunger = Math.min(cr.getHunger(), HUNGERS - 1);
+            c.counts[bucket(cr.getSex().ordinal(), age, hunger)]++;
+            char[] g = cr.genome();
+            for (int l = 0; l < loci; l++) c.alleles[l * LETTERS + (g[l] - 'A')]++;
+            c.size++;
+            size++;
+            sim.absorbed(cr);
+        }
+        pop.subList(kept, n).clear();
+    }
+
+    /** Turns every creature of a thinned cell back into an individual. */
+    private void release(Simulation sim, Random rng, Cell c, int ci) {
+        for (int k = 0; k < BUCKETS; k++) {
+            int sex = k / (AGES * HUNGERS), age = (k / HUNGERS) % AGES, hunger = k % HUNGERS;
+            for (int n = c.counts[k]; n > 0; n--) materialize(sim, rng, c, ci, sex, age, hunger);
+            c.counts[k] = 0;
+        }
+        c.active = false;
+    }
+
+    /** Releases every aggregate cell, e.g. when aggregation is switched off. */
+    void releaseAll(Simulation sim) {
+        for (int i = 0; i < cells.length; i++) {
+            Cell c = cells[i];
+            if (c != null && c.active) release(sim, sim.random(), c, i);
+        }
+    }
+
+    /** Draws one creature's genome out of {@code from} and places it at random in cell {@code ci}. */
+    private void materialize(Simulation sim, Random rng, Cell from, int ci, int sex, int age, int hunger) {
+        for (int l = 0; l < loci; l++) {
+            int letter = pick(rng, from.alleles, l, from.size, true);
+            genome[l] = (char) ('A' + letter);
+        }
+        from.size--;
+        size--;
+        int x = (ci % COLS) * CELL + rng.nextInt(CELL), y = (ci / COLS) * CELL + rng.nextInt(CELL);
+        sim.immigrate(Creature.rematerialize(sim, genome.clone(), Creature.Sex.values()[sex], x, y, age, hunger));
+    }
+
+    // — Sampling —
+
+    /** A letter at {@code locus} drawn in proportion to its count among {@code total}; optionally taken out. */
+    private static int pick(Random rng, int[] alleles, int locus, int total, boolean take) {
+        int base = locus * LETTERS;
+        int r = rng.nextInt(total);
+        for (int j = 0; j < LETTERS; j++) {
+            r -= alleles[base + j];
+            if (r < 0) {
+                if (take) alleles[base + j]--;
+                return j;
+            }
+        }
+        throw new IllegalStateException("allele counts out of step with cell size");
+    }
+
+    /**
+     * Removes {@code k} random genomes' letters from {@code src} (holding
+     * {@code total} genomes) at every locus, adding them to {@code dst} if not
+     * null: a multivariate hypergeometric draw by successive binomials, so the
+     * cost is per letter rather than per creature.
+     */
+    private void thin(Random rng, int[] src, int[] dst, int k, int total) {
+        for (int l = 0; l < loci; l++) {
+            int base = l * LETTERS, left = k, pool = total;
+            for (int j = 0; j < LETTERS && left > 0; j++) {
+                int c = src[base + j];
+                if (c == 0) continue;
+                int x = c == pool ? left : binomial(rng, left, (double) c / pool);
+                x = Math.max(Math.min(x, c), left - (pool - c));   // keep enough for the rest
+                src[base + j] -= x;
+                if (dst != null) dst[base + j] += x;
+                left -= x;
+                pool -= c;
+            }
+        }
+    }
+
+    /**
+     * Binomial(n, p) draw: Bernoulli trials for small n, geometric skips when
+     * few successes are expected, and a rounded normal otherwise.
+     */
+    static int binomial(Random rng, int n, double p) {
+        if (n <= 0 || p <= 0) return 0;
+        if (p >= 1) return n;
+        if (p > 0.5) return n - binomial(rng, n, 1.0 - p);
+        if (n < 32) {
+            int k = 0;
+            for (int i = 0; i < n; i++) if (rng.nextDouble() < p) k++;
+            return k;
+        }
+        double mean = n * p;
+        if (mean < 16) {
+            double logQ = Math.log1p(-p);
+            int k = 0;
+            long i = 0;
+            while (true) {
+                i += (long) (Math.log(1.0 - rng.nextDouble()) / logQ) + 1;
+                if (i > n) return k;
+                k++;
+            }
+        }
+        long k = Math.round(mean + Math.sqrt(mean * (1 - p)) * rng.nextGaussian());
+        return (int) Math.max(0, Math.min(n, k));
+    }
+}
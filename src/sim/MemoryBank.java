@@ -0,0 +1,51 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared backing store for creature memories. Each creature owns one slot of
+ * {@code entries × width} doubles, laid out as a ring by {@link Creature}; the
+ * slots are cut from large chunks and recycled through a free list on death,
+ * mirroring {@link BrainArena}.
+ */
+final class MemoryBank {
+    private static final int SLOTS_PER_CHUNK = 4096;
+
+    final int entries, width;
+    private final int slotSize;
+    private final List<double[]> chunks = new ArrayList<>();
+    private int slotsUsed = 0;
+    private int[] free = new int[0];
+    private int freeCount = 0;
+
+    MemoryBank(int entries, int width) {
+        this.entries  = entries;
+        this.width    = width;
+        this.slotSize = entries * width;
+    }
+
+    /** Returns a slot id; its contents are stale until written. */
+    int allocate() {
+        if (freeCount > 0) return free[--freeCount];
+        if (slotsUsed % SLOTS_PER_CHUNK == 0) {
+            chunks.add(new double[SLOTS_PER_CHUNK * slotSize]);
+            free = Arrays.copyOf(free, chunks.size() * SLOTS_PER_CHUNK);   // release never grows it
+        }
+        return slotsUsed++;
+    }
+
+    void release(int slot) {
+        free[freeCount++] = slot;
+    }
+
+    /** The chunk array holding {@code slot}. */
+    double[] chunk(int slot) { return chunks.get(slot / SLOTS_PER_CHUNK); }
+
+    /** Index of {@code slot}'s first double within its chunk. */
+    int base(int slot)       { return (slot % SLOTS_PER_CHUNK) * slotSize; }
+
+    /** Bytes of memory storage held. */
+    long getBytes()          { return 8L * chunks.size() * SLOTS_PER_CHUNK * slotSize; }
+}
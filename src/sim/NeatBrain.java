@@ -0,0 +1,499 @@
+package sim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * A NEAT‐style brain whose topology evolves along with its weights.
+ *
+ * <p>The genome is a list of connection genes sorted by innovation number.
+ * Each gene has an innovation, a weight and an enabled flag; its endpoints
+ * are kept once per innovation in the simulation's {@link Registry}. Nodes
+ * 0..I-1 are the inputs, I..I+O-1 the outputs, and hidden nodes get ids when
+ * a connection is first split. Mutation can add a connection or split one
+ * with a new node, and both only ever create feed‐forward edges.
+ *
+ * <p>Before use, a genome is compiled into a {@link Program}: a flat,
+ * topologically sorted list of (source, weight index) instructions grouped by
+ * target node, with no per‐node objects. Programs are cached in the registry
+ * by gene list, so structurally identical brains share one.
+ */
+final class NeatBrain implements Brain {
+    static final double ADD_CONNECTION_PROB = 0.05;
+    static final double ADD_NODE_PROB       = 0.03;
+
+    /** Per‐simulation innovation numbering and compiled‐program cache. */
+    static final class Registry {
+        private static final int MAX_PROGRAMS = 4096;
+
+        final int inputs, outputs;
+        private final Map<Long, Integer> innovationOf = new HashMap<>();   // (in,out) → innovation
+        private final Map<Integer, Integer> splitNodeOf = new HashMap<>(); // innovation → new node
+        private int[] innovIn  = new int[64];
+        private int[] innovOut = new int[64];
+        private int innovations = 0;
+        private int nextNode;
+        private int[] splitOf = new int[64];                               // hidden node − I − O → innovation
+        private final Map<GeneKey, Program> programs =
+            new LinkedHashMap<GeneKey, Program>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<GeneKey, Program> e) {
+                    return size() > MAX_PROGRAMS;
+                }
+            };
+
+        Registry(int inputs, int outputs) {
+            this.inputs   = inputs;
+            this.outputs  = outputs;
+            this.nextNode = inputs + outputs;
+        }
+
+        /** The innovation number for an in→out connection, assigned on first sight. */
+        int innovation(int in, int out) {
+            long key = ((long) in << 32) | (out & 0xffffffffL);
+            Integer known = innovationOf.get(key);
+            if (known != null) return known;
+            if (innovations == innovIn.length) {
+                innovIn  = Arrays.copyOf(innovIn, innovations * 2);
+                innovOut = Arrays.copyOf(innovOut, innovations * 2);
+            }
+            innovIn[innovations]  = in;
+            innovOut[innovations] = out;
+            innovationOf.put(key, innovations);
+            return innovations++;
+        }
+
+        /** The hidden node created by splitting {@code innovation}, the same one every time. */
+        int splitNode(int innovation) {
+            Integer known = splitNodeOf.get(innovation);
+            if (known != null) return known;
+            int node = nextNode++;
+            int h = node - inputs - outputs;
+            if (h == splitOf.length) splitOf = Arrays.copyOf(splitOf, h * 2);
+            splitOf[h] = innovation;
+            splitNodeOf.put(innovation, node);
+            return node;
+        }
+
+        /** The innovation whose split created hidden node {@code node}; its endpoints are older nodes. */
+        int splitOf(int node)        { return splitOf[node - inputs - outputs]; }
+
+        int sourceOf(int innovation) { return innovIn[innovation]; }
+        int targetOf(int innovation) { return innovOut[innovation]; }
+
+        int getProgramCount()        { return programs.size(); }
+
+        Program programFor(int[] innov, boolean[] enabled) {
+            GeneKey key = new GeneKey(innov, enabled);
+            Program p = programs.get(key);
+            if (p == null) {
+                p = new Program(this, innov, enabled);
+                programs.put(key, p);
+            }
+            return p;
+        }
+    }
+
+    /** Identity of a gene list: innovations in order, disabled ones encoded as ~innovation. */
+    private static final class GeneKey {
+        private final int[] genes;
+        private final int hash;
+
+        GeneKey(int[] innov, boolean[] enabled) {
+            genes = new int[innov.length];
+            for (int g = 0; g < innov.length; g++)
+                genes[g] = enabled[g] ? innov[g] : ~innov[g];
+            hash = Arrays.hashCode(genes);
+        }
+
+        @Override public int hashCode() { return hash; }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof GeneKey && Arrays.equals(genes, ((GeneKey) o).genes);
+        }
+    }
+
+    /**
+     * A compiled, immutable evaluation order. For the t‐th target node,
+     * {@code values[order[t]] = act(Σ values[src[k]] · w[widx[k]])} over
+     * k in [start[t], start[t+1]), with tanh for hidden nodes and identity
+     * for outputs. {@code widx} indexes the owning genome's weight array.
+     */
+    static final class Program {
+        final int nodeCount;
+        final int[] order, start, src, widx;
+        final boolean[] hidden;        // per target position
+        final int[] position;          // dense node → topo position, −1 for inputs
+        final int[] hiddenIds;         // dense I+O+h → hidden node id
+
+        Program(Registry reg, int[] innov, boolean[] enabled) {
+            int I = reg.inputs, O = reg.outputs;
+
+            // dense numbering: inputs, outputs, then hidden nodes in id order
+            int[] hiddenIds = new int[2 * innov.length];
+            int h = 0;
+            for (int g = 0; g < innov.length; g++) {
+                if (!enabled[g]) continue;
+                int a = reg.sourceOf(innov[g]), b = reg.targetOf(innov[g]);
+                if (a >= I + O) hiddenIds[h++] = a;
+                if (b >= I + O) hiddenIds[h++] = b;
+            }
+            hiddenIds = Arrays.stream(hiddenIds, 0, h).sorted().distinct().toArray();
+            this.hiddenIds = hiddenIds;
+            nodeCount = I + O + hiddenIds.length;
+
+            int[] edgeSrc = new int[innov.length], edgeDst = new int[innov.length], edgeGene = new int[innov.length];
+            int[] inDegree = new int[nodeCount];
+            int edges = 0;
+            for (int g = 0; g < innov.length; g++) {
+                if (!enabled[g]) continue;
+                edgeSrc[edges]  = dense(reg.sourceOf(innov[g]), I + O, hiddenIds);
+                edgeDst[edges]  = dense(reg.targetOf(innov[g]), I + O, hiddenIds);
+                edgeGene[edges] = g;
+                inDegree[edgeDst[edges]]++;
+                edges++;
+            }
+
+            // Kahn's algorithm over non‐input nodes; inputs are sources by construction
+            int[] remaining = inDegree.clone();
+            int[] outStart = new int[nodeCount + 1];
+            for (int e = 0; e < edges; e++) outStart[edgeSrc[e] + 1]++;
+            for (int n = 0; n < nodeCount; n++) outStart[n + 1] += outStart[n];
+            int[] outEdges = new int[edges], fill = outStart.clone();
+            for (int e = 0; e < edges; e++) outEdges[fill[edgeSrc[e]]++] = e;
+
+            ArrayDeque<Integer> ready = new ArrayDeque<>();
+            for (int n = 0; n < I; n++) ready.add(n);
+            for (int n = I; n < nodeCount; n++) if (remaining[n] == 0) ready.add(n);
+            int[] topo = new int[nodeCount];
+            int done = 0;
+            while (!ready.isEmpty()) {
+                int n = ready.poll();
+                topo[done++] = n;
+                for (int k = outStart[n]; k < outStart[n + 1]; k++) {
+                    int d = edgeDst[outEdges[k]];
+                    if (--remaining[d] == 0 && d >= I) ready.add(d);
+                }
+            }
+            if (done != nodeCount)
+                throw new IllegalStateException("NEAT genome is not feed-forward");
+
+            position = new int[nodeCount];
+            Arrays.fill(position, -1);
+            order  = new int[nodeCount - I];
+            hidden = new boolean[order.length];
+            int t = 0;
+            for (int q = 0; q < nodeCount; q++) {
+                int n = topo[q];
+                if (n < I) continue;
+                position[n] = t;
+                hidden[t] = n >= I + O;
+                order[t++] = n;
+            }
+
+            // group incoming edges by target, in topo order of targets
+            int[] inStart = new int[nodeCount + 1];
+            for (int e = 0; e < edges; e++) inStart[edgeDst[e] + 1]++;
+            for (int n = 0; n < nodeCount; n++) inStart[n + 1] += inStart[n];
+            int[] byTarget = new int[edges];
+            fill = inStart.clone();
+            for (int e = 0; e < edges; e++) byTarget[fill[edgeDst[e]]++] = e;
+
+            start = new int[order.length + 1];
+            src   = new int[edges];
+            widx  = new int[edges];
+            int k = 0;
+            for (t = 0; t < order.length; t++) {
+                start[t] = k;
+                int n = order[t];
+                for (int q = inStart[n]; q < inStart[n + 1]; q++) {
+                    int e = byTarget[q];
+                    src[k]  = edgeSrc[e];
+                    widx[k] = edgeGene[e];
+                    k++;
+                }
+            }
+            start[order.length] = k;
+        }
+
+        private static int dense(int node, int fixed, int[] hiddenIds) {
+            return node < fixed ? node : fixed + Arrays.binarySearch(hiddenIds, node);
+        }
+    }
+
+    private final Registry reg;
+    private int[] innov;          // sorted ascending
+    private double[] weight;
+    private boolean[] enabled;
+    private Program program;      // null until compiled
+    private double[] values;      // per node activations, sized to program
+    private final double[] inputs;
+    private final double[] outputs;
+
+    private NeatBrain(Registry reg, int[] innov, double[] weight, boolean[] enabled) {
+        this.reg     = reg;
+        this.innov   = innov;
+        this.weight  = weight;
+        this.enabled = enabled;
+        this.inputs  = new double[reg.inputs];
+        this.outputs = new double[reg.outputs];
+    }
+
+    /** A fully connected input→output genome with N(0, 0.5²) weights and no hidden nodes. */
+    static NeatBrain minimal(Registry reg, Random rng) {
+        int n = reg.inputs * reg.outputs;
+        int[] innov = new int[n];
+        double[] w = new double[n];
+        boolean[] on = new boolean[n];
+        int g = 0;
+        for (int i = 0; i < reg.inputs; i++) {
+            for (int o = 0; o < reg.outputs; o++) {
+                innov[g] = reg.innovation(i, reg.inputs + o);
+                w[g]     = rng.nextGaussian() * 0.5;
+                on[g]    = true;
+                g++;
+            }
+        }
+        return new NeatBrain(reg, innov, w, on);
+    }
+
+    private Program compiled() {
+        if (program == null) {
+            program = reg.programFor(innov, enabled);
+            if (values == null || values.length < program.nodeCount)
+                values = new double[program.nodeCount];
+        }
+        return program;
+    }
+
+    @Override
+    public double[] inputBuffer() {
+        return inputs;
+    }
+
+    @Override
+    public double[] forward(boolean fastMath) {
+        Program p = compiled();
+        double[] v = values, w = weight;
+        int[] order = p.order, start = p.start, src = p.src, widx = p.widx;
+        System.arraycopy(inputs, 0, v, 0, inputs.length);
+        for (int t = 0; t < order.length; t++) {
+            double sum = 0;
+            for (int k = start[t]; k < start[t + 1]; k++)
+                sum += v[src[k]] * w[widx[k]];
+            v[order[t]] = !p.hidden[t] ? sum : fastMath ? FastMath.tanh(sum) : FastMath.exactTanh(sum);
+        }
+        System.arraycopy(v, reg.inputs, outputs, 0, outputs.length);
+        return outputs;
+    }
+
+    /**
+     * Hebbian update on every enabled connection from the last forward pass.
+     * Zero rewards are skipped; updates are applied immediately, since a
+     * genome's connections are few compared with the fixed net's weights.
+     */
+    @Override
+    public void reward(double rate, double reward, int batchTicks) {
+        if (reward == 0 || program == null) return;
+        Program p = program;
+        double c = rate * reward;
+        for (int t = 0; t < p.order.length; t++) {
+            double post = values[p.order[t]];
+            for (int k = p.start[t]; k < p.start[t + 1]; k++)
+                weight[p.widx[k]] += c * values[p.src[k]] * post;
+        }
+    }
+
+    @Override
+    public void addInputBias(int inputIndex, double delta) {
+        for (int g = 0; g < innov.length; g++)
+            if (reg.sourceOf(innov[g]) == inputIndex) weight[g] += delta;
+    }
+
+    /**
+     * Structure comes from this (the primary) parent; weights of genes both
+     * parents carry are picked 50/50, as in the fixed net's crossover.
+     */
+    @Override
+    public Brain crossover(Brain other, Random rng) {
+        NeatBrain o = (NeatBrain) other;
+        int n = innov.length;
+        double[] w = new double[n];
+        int j = 0;
+        for (int g = 0; g < n; g++) {
+            while (j < o.innov.length && o.innov[j] < innov[g]) j++;
+            boolean shared = j < o.innov.length && o.innov[j] == innov[g];
+            w[g] = shared && rng.nextBoolean() ? o.weight[j] : weight[g];
+        }
+        NeatBrain child = new NeatBrain(reg, innov, w, enabled);
+        child.program = program;   // same gene list, same program
+        if (program != null) child.values = new double[program.nodeCount];
+        return child;
+    }
+
+    @Override
+    public void mutate(double rate, double magnitude, Random rng) {
+        for (int g = 0; g < weight.length; g++) {
+            if (rng.nextDouble() < rate) {
+                weight[g] += rng.nextGaussian() * magnitude;
+            }
+        }
+        if (rng.nextDouble() < ADD_CONNECTION_PROB) addConnection(rng);
+        if (rng.nextDouble() < ADD_NODE_PROB)       addNode(rng);
+    }
+
+    /** Adds u→v for a random pair where u precedes v in the current topological order. */
+    private void addConnection(Random rng) {
+        Program p = compiled();
+        int from = rng.nextInt(p.nodeCount);
+        int to   = reg.inputs + rng.nextInt(p.nodeCount - reg.inputs);
+        if (from == to || (from >= reg.inputs && p.position[from] >= p.position[to])) return;
+        int a = nodeId(p, from), b = nodeId(p, to);
+        int inv = reg.innovation(a, b);
+        if (Arrays.binarySearch(innov, inv) >= 0) return;
+        insertGene(inv, rng.nextGaussian() * 0.5, true);
+    }
+
+    /** Splits a random enabled connection a→b into a→n (weight 1) and n→b (old weight). */
+    private void addNode(Random rng) {
+        int g = rng.nextInt(innov.length);
+        if (!enabled[g]) return;
+        int split = innov[g];
+        int n = reg.splitNode(split);
+        int inA = reg.innovation(reg.sourceOf(split), n);
+        int inB = reg.innovation(n, reg.targetOf(split));
+        if (Arrays.binarySearch(innov, inA) >= 0 || Arrays.binarySearch(innov, inB) >= 0) return;
+        double old = weight[g];
+        enabled = enabled.clone();      // gene arrays may be shared with the parent
+        enabled[g] = false;
+        insertGene(inA, 1.0, true);
+        insertGene(inB, old, true);
+    }
+
+    private void insertGene(int inv, double w, boolean on) {
+        int at = -(Arrays.binarySearch(innov, inv) + 1);
+        int n = innov.length;
+        int[] ni = new int[n + 1];
+        double[] nw = new double[n + 1];
+        boolean[] ne = new boolean[n + 1];
+        System.arraycopy(innov, 0, ni, 0, at);
+        System.arraycopy(weight, 0, nw, 0, at);
+        System.arraycopy(enabled, 0, ne, 0, at);
+        ni[at] = inv; nw[at] = w; ne[at] = on;
+        System.arraycopy(innov, at, ni, at + 1, n - at);
+        System.arraycopy(weight, at, nw, at + 1, n - at);
+        System.arraycopy(enabled, at, ne, at + 1, n - at);
+        innov = ni; weight = nw; enabled = ne;
+        program = null;
+    }
+
+    /** Inverse of the program's dense numbering. */
+    private int nodeId(Program p, int dense) {
+        int fixed = reg.inputs + reg.outputs;
+        return dense < fixed ? dense : p.hiddenIds[dense - fixed];
+    }
+
+    @Override
+    public void release() {
+        // genomes are plain per‐creature arrays; nothing is pooled
+    }
+
+    /**
+     * Writes the genome in terms of nodes, since innovation numbers and hidden
+     * node ids are per simulation: first every hidden node the genes reach,
+     * oldest first, with the connection whose split created it, then each
+     * gene as source, target, weight and enabled flag. {@link #readFrom}
+     * replays the splits in the receiving registry.
+     */
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        int fixed = reg.inputs + reg.outputs;
+        TreeSet<Integer> hidden = new TreeSet<>();
+        ArrayDeque<Integer> todo = new ArrayDeque<>();
+        for (int inv : innov) {
+            todo.add(reg.sourceOf(inv));
+            todo.add(reg.targetOf(inv));
+        }
+        while (!todo.isEmpty()) {
+            int n = todo.poll();
+            if (n < fixed || !hidden.add(n)) continue;
+            todo.add(reg.sourceOf(reg.splitOf(n)));
+            todo.add(reg.targetOf(reg.splitOf(n)));
+        }
+        out.writeShort(reg.inputs);
+        out.writeShort(reg.outputs);
+        out.writeInt(hidden.size());
+        for (int n : hidden) {
+            out.writeInt(n);
+            out.writeInt(reg.sourceOf(reg.splitOf(n)));
+            out.writeInt(reg.targetOf(reg.splitOf(n)));
+        }
+        out.writeInt(innov.length);
+        for (int g = 0; g < innov.length; g++) {
+            out.writeInt(reg.sourceOf(innov[g]));
+            out.writeInt(reg.targetOf(innov[g]));
+            out.writeDouble(weight[g]);
+            out.writeBoolean(enabled[g]);
+        }
+    }
+
+    /**
+     * Rebuilds a genome written by {@link #writeTo} in another simulation,
+     * renumbering its hidden nodes and innovations in {@code reg}; a node or
+     * connection that is new here gets its number as if it had evolved here.
+     * The brain computes the same function; since genes follow the local
+     * innovation order, its sums may round differently in the last bit.
+     */
+    static NeatBrain readFrom(DataInput in, Registry reg) throws IOException {
+        int inputs = in.readShort(), outputs = in.readShort();
+        if (inputs != reg.inputs || outputs != reg.outputs)
+            throw new IOException("NEAT brain has " + inputs + " inputs and " + outputs + " outputs, expected "
+                                  + reg.inputs + " and " + reg.outputs);
+        Map<Integer, Integer> local = new HashMap<>();   // sender's hidden node → ours
+        int hidden = in.readInt();
+        for (int i = 0; i < hidden; i++) {
+            int n = in.readInt();
+            int a = localNode(reg, local, in.readInt()), b = localNode(reg, local, in.readInt());
+            local.put(n, reg.splitNode(reg.innovation(a, b)));
+        }
+        int n = in.readInt();
+        long[] order = new long[n];                      // our innovation, then gene index
+        double[] w = new double[n];
+        boolean[] on = new boolean[n];
+        for (int g = 0; g < n; g++) {
+            int a = localNode(reg, local, in.readInt()), b = localNode(reg, local, in.readInt());
+            order[g] = (long) reg.innovation(a, b) << 32 | g;
+            w[g]  = in.readDouble();
+            on[g] = in.readBoolean();
+        }
+        Arrays.sort(order);
+        int[] innov = new int[n];
+        double[] weight = new double[n];
+        boolean[] enabled = new boolean[n];
+        for (int k = 0; k < n; k++) {
+            int g = (int) order[k];
+            innov[k]   = (int) (order[k] >>> 32);
+            weight[k]  = w[g];
+            enabled[k] = on[g];
+        }
+        return new NeatBrain(reg, innov, weight, enabled);
+    }
+
+    private static int localNode(Registry reg, Map<Integer, Integer> local, int node) throws IOException {
+        if (node < reg.inputs + reg.outputs) return node;
+        Integer n = local.get(node);
+        if (n == null) throw new IOException("NEAT gene refers to undeclared hidden node " + node);
+        return n;
+    }
+
+    int getGeneCount()       { return innov.length; }
+    int getConnectionCount() { return compiled().src.length; }
+}
@@ -1,119 +1,500 @@
-package sim;
-
-import java.util.Random;
-import java.util.function.DoubleUnaryOperator;
-
-public class NeuralNet {
-	/**
-	 * A simple feed‐forward multilayer perceptron with:
-	 *  - variable number of layers and neurons per layer
-	 *  - tanh activations in hidden layers, linear outputs
-	 *  - per‐weight crossover and Gaussian‐noise mutation
-	 */
-
-	    private final int[] layerSizes;      // e.g. {5, 8, 2}
-	    private final double[][][] weights;  // weights[layer][i][j]
-	    private static final Random RNG = new Random();
-	    private final double[][] activations;  // newly added: stores per‐layer activations
-	    /**
-	     * @param layerSizes full network architecture (inputs, hidden…, outputs)
-	     */
-	    public NeuralNet(int... layerSizes) {
-	        this.layerSizes = layerSizes;
-	        this.weights    = new double[layerSizes.length - 1][][];
-	        this.activations = new double[layerSizes.length][];
-	        for (int L = 0; L < weights.length; L++) {
-	            int inN  = layerSizes[L], outN = layerSizes[L+1];
-	            weights[L] = new double[inN][outN];
-	            for (int i = 0; i < inN; i++)
-	                for (int j = 0; j < outN; j++)
-	                    weights[L][i][j] = RNG.nextGaussian() * 0.5;
-	        }
-	    }
-
-	    /**
-	     * Forward‐propagate an input vector through the network.
-	     * Uses tanh for hidden layers and linear output.
-	     *
-	     * @param input length must equal layerSizes[0]
-	     * @return      array of length layerSizes[last]
-	     */
-	    public double[] forward(double[] input) {
-	        activations[0] = input.clone();
-	        double[] act = input;
-	        for (int L = 0; L < weights.length; L++) {
-	            double[] next = new double[layerSizes[L+1]];
-	            for (int j = 0; j < next.length; j++) {
-	                double sum = 0;
-	                for (int i = 0; i < act.length; i++)
-	                    sum += act[i] * weights[L][i][j];
-	                next[j] = (L < weights.length - 1) ? Math.tanh(sum) : sum;
-	            }
-	            activations[L+1] = next;
-	            act = next;
-	        }
-	        return act.clone();
-	    }
-
-	    public void addInputBias(int inputIndex, double delta) {
-	        double[][] firstLayer = weights[0];
-	        for (int j = 0; j < firstLayer[inputIndex].length; j++) {
-	            firstLayer[inputIndex][j] += delta;
-	        }
-	    }
-	    
-	    /**
-	     * Apply a simple delta‐rule update using the last activations:
-	     * Δw = rate * reward * preActivation * postActivation
-	     *
-	     * @param rate    learning‐rate multiplier
-	     * @param reward  scalar reward signal (positive or negative)
-	     */
-	    public void reward(double rate, double reward) {
-	        for (int L = 0; L < weights.length; L++) {
-	            double[] pre  = activations[L];
-	            double[] post = activations[L + 1];
-	            for (int i = 0; i < pre.length; i++) {
-	                for (int j = 0; j < post.length; j++) {
-	                    weights[L][i][j] += rate * reward * pre[i] * post[j];
-	                }
-	            }
-	        }
-	    }
-	    
-	    /**
-	     * Create a child net by 50/50 per‐weight crossover from this and other.
-	     */
-	    public NeuralNet crossover(NeuralNet other) {
-	        NeuralNet child = new NeuralNet(layerSizes);
-	        for (int L = 0; L < weights.length; L++) {
-	            for (int i = 0; i < weights[L].length; i++) {
-	                for (int j = 0; j < weights[L][i].length; j++) {
-	                    child.weights[L][i][j] =
-	                        RNG.nextBoolean()
-	                        ? this.weights[L][i][j]
-	                        : other.weights[L][i][j];
-	                }
-	            }
-	        }
-	        return child;
-	    }
-
-	    /**
-	     * Mutate the net by adding Gaussian noise to each weight with given probability.
-	     *
-	     * @param rate      chance per weight to mutate
-	     * @param magnitude standard deviation of added Gaussian noise
-	     */
-	    public void mutate(double rate, double magnitude) {
-	        for (int L = 0; L < weights.length; L++) {
-	            for (int i = 0; i < weights[L].length; i++) {
-	                for (int j = 0; j < weights[L][i].length; j++) {
-	                    if (RNG.nextDouble() < rate) {
-	                        weights[L][i][j] += RNG.nextGaussian() * magnitude;
-	                    }
-	                }
-	            }
-	        }
-	    }
-	}
\ No newline at end of file
+package sim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+public class NeuralNet implements Brain {
+	/**
+	 * A simple feed‐forward multilayer perceptron with:
+	 *  - variable number of layers and neurons per layer
+	 *  - tanh activations in hidden layers (exact, or the table approximation
+	 *    in fast‐math mode; see {@link FastMath}), linear outputs
+	 *  - per‐weight crossover and Gaussian‐noise mutation
+	 *
+	 * All weights live in one flat row‐major array: the weight from neuron i
+	 * of layer L to neuron j of layer L+1 is weights[layerOffset[L] + i*outN + j].
+	 * The kernels walk j innermost, so every inner loop is a unit‐stride
+	 * multiply‐add over one row that the JIT can vectorise. Each output still
+	 * accumulates its inputs in order i = 0, 1, …, so results are bit‐for‐bit
+	 * the same as the original nested‐array loops.
+	 *
+	 * A net's record is its weights followed by the activations of its last
+	 * forward pass, layer by layer from the inputs; reward() learns from those.
+	 * The kernels themselves run on a per‐thread activation scratch and copy
+	 * the record's part in or out, so that weights and activations are never
+	 * the same array. Nets created by a {@link BrainArena} share its chunk
+	 * arrays: their record starts at a slot offset that is folded into
+	 * layerOffset. In an off‐heap arena the record is in a buffer instead
+	 * (layerOffset is then relative to the record), and each kernel has a
+	 * twin that reads and updates the weights in the buffer where they lie,
+	 * with absolute gets and puts in the same order, so results are the same
+	 * bit for bit. Such a net owns no arrays beyond its layer offsets: its
+	 * input and output buffers are per‐thread as well.
+	 */
+
+	    private final int[] layerSizes;      // e.g. {5, 8, 2}
+	    private final int[] layerOffset;     // start of each layer's block in weights
+	    private final int[] actOffset;       // start of each layer's activations in a record's activation part
+	    private final double[] weights;      // holds the record, see class comment; null off the heap
+	    private final DoubleBuffer slab;     // off‐heap storage, or null
+	    private final int slabBase;          // start of this net's record in slab
+	    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[0]);
+	    private static final ThreadLocal<double[][]> STAGING = ThreadLocal.withInitial(() -> new double[2][0]);
+	    private final double[] input, output;   // null off the heap: STAGING's
+	    private final int weightCount;
+	    private final BrainArena arena;      // owning arena, or null for a standalone net
+	    private boolean released = false;
+
+	    // — Deferred learning —
+	    // Pending reward steps are kept factored, as (rate*reward, activations)
+	    // snapshots, rather than as a full pre*post eligibility trace: recording
+	    // one costs O(neurons) instead of O(weights), and flushing expands the
+	    // whole batch into a single write per weight. The buffers only exist
+	    // once a net has batched a reward; unbatched rewards are applied at once.
+	    private final int actWidth;          // sum of layerSizes
+	    private double[] pendingActs;
+	    private double[] pendingCoeff;
+	    private int pendingCount = 0;
+	    private int rewardCalls  = 0;
+	    private double[] deltaRow;           // scratch row for flushRewards
+	    /**
+	     * @param rng        source for the initial Gaussian weights
+	     * @param layerSizes full network architecture (inputs, hidden…, outputs)
+	     */
+	    public NeuralNet(Random rng, int... layerSizes) {
+	        this(layerSizes, null, new double[recordSize(layerSizes)], 0);
+	        randomize(rng);
+	    }
+
+	    /** Zero‐weight standalone net of the given shape; callers fill in the weights. */
+	    private NeuralNet(int[] layerSizes) {
+	        this(layerSizes, null, new double[recordSize(layerSizes)], 0);
+	    }
+
+	    /** A net whose record occupies {@code recordSize(layerSizes)} doubles of {@code storage} from {@code base}. */
+	    NeuralNet(int[] layerSizes, BrainArena arena, double[] storage, int base) {
+	        this(layerSizes, arena, storage, null, base);
+	    }
+
+	    /** A net whose record occupies {@code recordSize(layerSizes)} doubles of off‐heap {@code slab} from {@code base}. */
+	    NeuralNet(int[] layerSizes, BrainArena arena, DoubleBuffer slab, int base) {
+	        this(layerSizes, arena, null, slab, base);
+	    }
+
+	    private NeuralNet(int[] layerSizes, BrainArena arena, double[] storage, DoubleBuffer slab, int base) {
+	        this.slab        = slab;
+	        this.slabBase    = base;
+	        if (slab != null) base = 0;      // kernels address the page
+	        this.layerSizes  = layerSizes;
+	        this.layerOffset = new int[layerSizes.length - 1];
+	        this.actOffset   = new int[layerSizes.length + 1];
+	        this.arena       = arena;
+	        int total = 0;
+	        for (int L = 0; L < layerOffset.length; L++) {
+	            layerOffset[L] = base + total;
+	            total += layerSizes[L] * layerSizes[L+1];
+	        }
+	        this.weights     = storage;
+	        this.weightCount = total;
+	        for (int L = 0; L < layerSizes.length; L++)
+	            actOffset[L+1] = actOffset[L] + layerSizes[L];
+	        this.actWidth = actOffset[layerSizes.length];
+	        this.input  = slab != null ? null : new double[layerSizes[0]];
+	        this.output = slab != null ? null : new double[layerSizes[layerSizes.length - 1]];
+	    }
+
+	    /** Number of weights in a net of this architecture. */
+	    static int weightCount(int[] layerSizes) {
+	        int total = 0;
+	        for (int L = 0; L + 1 < layerSizes.length; L++)
+	            total += layerSizes[L] * layerSizes[L+1];
+	        return total;
+	    }
+
+	    /** Doubles in the record of a net of this architecture: its weights, then one activation per neuron. */
+	    static int recordSize(int[] layerSizes) {
+	        int total = weightCount(layerSizes);
+	        for (int n : layerSizes) total += n;
+	        return total;
+	    }
+
+	    /** This thread's activation scratch, at least actWidth long. */
+	    private double[] scratch() {
+	        double[] x = SCRATCH.get();
+	        if (x.length < actWidth) {
+	            x = new double[actWidth];
+	            SCRATCH.set(x);
+	        }
+	        return x;
+	    }
+
+	    /** Copies the record's activations into {@code dst} at {@code at}. */
+	    private void readActivations(double[] dst, int at) {
+	        if (slab != null) slab.get(slabBase + weightCount, dst, at, actWidth);
+	        else System.arraycopy(weights, layerOffset[0] + weightCount, dst, at, actWidth);
+	    }
+
+	    /** Copies {@code src}'s first actWidth doubles into the record's activations. */
+	    private void writeActivations(double[] src) {
+	        if (slab != null) slab.put(slabBase + weightCount, src, 0, actWidth);
+	        else System.arraycopy(src, 0, weights, layerOffset[0] + weightCount, actWidth);
+	    }
+
+	    /** This thread's input and output buffers for this shape, off the heap. */
+	    private double[][] staging() {
+	        double[][] io = STAGING.get();
+	        if (io[0].length != layerSizes[0]) io[0] = new double[layerSizes[0]];
+	        if (io[1].length != layerSizes[layerSizes.length - 1]) io[1] = new double[layerSizes[layerSizes.length - 1]];
+	        return io;
+	    }
+
+	    /** Overwrites every weight with fresh N(0, 0.5²) noise. */
+	    void randomize(Random rng) {
+	        for (int k = 0; k < weightCount; k++)
+	            setWeight(k, rng.nextGaussian() * 0.5);
+	    }
+
+	    /**
+	     * Hands this net's slot back to its arena; the net must not be used
+	     * afterwards. Safe to call more than once, and a no‐op when standalone.
+	     */
+	    @Override
+	    public void release() {
+	        if (released) return;
+	        released     = true;
+	        pendingCount = 0;
+	        rewardCalls  = 0;
+	        if (arena != null) arena.release(this);
+	    }
+
+	    /** Called by the arena when a released net is handed to a new owner. */
+	    void reacquire() {
+	        released = false;
+	    }
+
+	    /**
+	     * Forward‐propagate an input vector through the network.
+	     * Uses tanh for hidden layers and linear output.
+	     *
+	     * @param input length must equal layerSizes[0]
+	     * @return      array of length layerSizes[last]; it is the net's own
+	     *              output buffer (off the heap, the thread's) and is
+	     *              overwritten by the next call
+	     */
+	    public double[] forward(double[] input) {
+	        System.arraycopy(input, 0, inputBuffer(), 0, layerSizes[0]);
+	        return forward();
+	    }
+
+	    /**
+	     * The input layer, length layerSizes[0]. Writing inputs here and calling
+	     * {@link #forward()} avoids building an input array per call. Off the
+	     * heap it is the calling thread's, shared by every net of this shape,
+	     * so fill it right before the forward pass that reads it.
+	     */
+	    @Override
+	    public double[] inputBuffer() {
+	        return input != null ? input : staging()[0];
+	    }
+
+	    /** Forward‐propagates whatever is currently in {@link #inputBuffer()}. */
+	    @Override
+	    public double[] forward() {
+	        return forward(false);
+	    }
+
+	    /** As {@link #forward()}; with {@code fastMath} the hidden tanh is the table approximation. */
+	    @Override
+	    public double[] forward(boolean fastMath) {
+	        if (slab != null) return forwardSlab(fastMath);
+	        double[] w = weights;
+	        double[] x = scratch();
+	        System.arraycopy(inputBuffer(), 0, x, 0, layerSizes[0]);
+	        int last = layerOffset.length - 1;
+	        for (int L = 0; L <= last; L++) {
+	            int act  = actOffset[L];
+	            int next = actOffset[L+1];
+	            int inN  = layerSizes[L];
+	            int outN = layerSizes[L+1];
+	            int base = layerOffset[L];
+	            Arrays.fill(x, next, next + outN, 0.0);
+	            for (int i = 0; i < inN; i++) {
+	                double a = x[act + i];
+	                int row = base + i * outN;
+	                for (int j = 0; j < outN; j++)
+	                    x[next + j] += a * w[row + j];
+	            }
+	            if (L < last && fastMath) {
+	                for (int j = next; j < next + outN; j++)
+	                    x[j] = FastMath.tanh(x[j]);
+	            } else if (L < last) {
+	                for (int j = next; j < next + outN; j++)
+	                    x[j] = FastMath.exactTanh(x[j]);
+	            }
+	        }
+	        writeActivations(x);
+	        System.arraycopy(x, actOffset[last + 1], output, 0, output.length);
+	        return output;
+	    }
+
+	    /** {@link #forward(boolean)} reading the weights from the slab in place. */
+	    private double[] forwardSlab(boolean fastMath) {
+	        DoubleBuffer w = slab;
+	        double[][] io = staging();
+	        double[] x = scratch();
+	        System.arraycopy(io[0], 0, x, 0, layerSizes[0]);
+	        int last = layerOffset.length - 1;
+	        for (int L = 0; L <= last; L++) {
+	            int act  = actOffset[L];
+	            int next = actOffset[L+1];
+	            int inN  = layerSizes[L];
+	            int outN = layerSizes[L+1];
+	            int base = slabBase + layerOffset[L];
+	            // output by output, down a column: each still sums over i in order
+	            for (int j = 0; j < outN; j++) {
+	                double sum = 0.0;
+	                for (int i = 0, k = base + j; i < inN; i++, k += outN)
+	                    sum += x[act + i] * w.get(k);
+	                x[next + j] = sum;
+	            }
+	            if (L < last && fastMath) {
+	                for (int j = next; j < next + outN; j++)
+	                    x[j] = FastMath.tanh(x[j]);
+	            } else if (L < last) {
+	                for (int j = next; j < next + outN; j++)
+	                    x[j] = FastMath.exactTanh(x[j]);
+	            }
+	        }
+	        writeActivations(x);
+	        System.arraycopy(x, actOffset[last + 1], io[1], 0, io[1].length);
+	        return io[1];
+	    }
+
+	    @Override
+	    public void addInputBias(int inputIndex, double delta) {
+	        int outN = layerSizes[1];
+	        int row  = inputIndex * outN;
+	        for (int j = 0; j < outN; j++) {
+	            setWeight(row + j, weight(row + j) + delta);
+	        }
+	    }
+
+	    /**
+	     * Apply a simple delta‐rule update using the last activations:
+	     * Δw = rate * reward * preActivation * postActivation
+	     *
+	     * @param rate    learning‐rate multiplier
+	     * @param reward  scalar reward signal (positive or negative)
+	     */
+	    public void reward(double rate, double reward) {
+	        if (slab != null) {
+	            rewardSlab(rate, reward);
+	            return;
+	        }
+	        double[] w = weights;
+	        double[] x = scratch();
+	        readActivations(x, 0);
+	        for (int L = 0; L < layerOffset.length; L++) {
+	            int pre  = actOffset[L];
+	            int post = actOffset[L + 1];
+	            int inN  = layerSizes[L];
+	            int outN = layerSizes[L + 1];
+	            int base = layerOffset[L];
+	            for (int i = 0; i < inN; i++) {
+	                double a = rate * reward * x[pre + i];
+	                int row = base + i * outN;
+	                for (int j = 0; j < outN; j++) {
+	                    w[row + j] += a * x[post + j];
+	                }
+	            }
+	        }
+	    }
+
+	    /** {@link #reward(double, double)} updating the weights in the slab in place. */
+	    private void rewardSlab(double rate, double reward) {
+	        DoubleBuffer w = slab;
+	        double[] x = scratch();
+	        readActivations(x, 0);
+	        for (int L = 0; L < layerOffset.length; L++) {
+	            int pre  = actOffset[L];
+	            int post = actOffset[L + 1];
+	            int inN  = layerSizes[L];
+	            int outN = layerSizes[L + 1];
+	            int base = slabBase + layerOffset[L];
+	            for (int i = 0; i < inN; i++) {
+	                double a = rate * reward * x[pre + i];
+	                int row = base + i * outN;
+	                for (int j = 0; j < outN; j++) {
+	                    w.put(row + j, w.get(row + j) + a * x[post + j]);
+	                }
+	            }
+	        }
+	    }
+
+	    /**
+	     * Batched form of {@link #reward(double, double)}. A zero reward is
+	     * skipped outright. Non‐zero rewards are recorded with the current
+	     * activations and applied together every {@code batchTicks} calls, so
+	     * with batchTicks = 1 this is exactly the immediate update. With larger
+	     * batches the net acts on slightly stale weights in between, and the
+	     * summed update rounds differently from K separate ones.
+	     *
+	     * @param batchTicks number of calls between weight writes (≥ 1)
+	     */
+	    @Override
+	    public void reward(double rate, double reward, int batchTicks) {
+	        if (batchTicks <= 1 && pendingCount == 0) {
+	            rewardCalls = 0;
+	            if (reward != 0) reward(rate, reward);
+	            return;
+	        }
+	        if (reward != 0) {
+	            if (pendingCoeff == null) {
+	                pendingCoeff = new double[0];
+	                pendingActs  = new double[0];
+	                int widest = 0;
+	                for (int n : layerSizes) widest = Math.max(widest, n);
+	                deltaRow     = new double[widest];
+	            }
+	            if (pendingCount == pendingCoeff.length) {
+	                int cap = Math.max(batchTicks, pendingCount + 1);
+	                pendingCoeff = Arrays.copyOf(pendingCoeff, cap);
+	                pendingActs  = Arrays.copyOf(pendingActs, cap * actWidth);
+	            }
+	            readActivations(pendingActs, pendingCount * actWidth);
+	            pendingCoeff[pendingCount++] = rate * reward;
+	        }
+	        if (++rewardCalls >= batchTicks) {
+	            rewardCalls = 0;
+	            flushRewards();
+	        }
+	    }
+
+	    @Override
+	    public boolean hasPendingRewards() { return pendingCount > 0; }
+
+	    /** Applies every pending reward step now; a no‐op when none are waiting. */
+	    public void flushRewards() {
+	        if (pendingCount == 0) return;
+	        for (int L = 0; L < layerOffset.length; L++) {
+	            int inN  = layerSizes[L];
+	            int outN = layerSizes[L + 1];
+	            int preAt  = actOffset[L];
+	            int postAt = actOffset[L + 1];
+	            int base = layerOffset[L];
+	            for (int i = 0; i < inN; i++) {
+	                double[] delta = deltaRow;
+	                Arrays.fill(delta, 0, outN, 0.0);
+	                for (int p = 0; p < pendingCount; p++) {
+	                    int snap = p * actWidth;
+	                    double a = pendingCoeff[p] * pendingActs[snap + preAt + i];
+	                    for (int j = 0; j < outN; j++)
+	                        delta[j] += a * pendingActs[snap + postAt + j];
+	                }
+	                int row = base + i * outN;
+	                if (slab != null) {
+	                    for (int j = 0; j < outN; j++)
+	                        slab.put(slabBase + row + j, slab.get(slabBase + row + j) + delta[j]);
+	                } else {
+	                    for (int j = 0; j < outN; j++)
+	                        weights[row + j] += delta[j];
+	                }
+	            }
+	        }
+	        pendingCount = 0;
+	    }
+
+	    /**
+	     * Create a child net by 50/50 per‐weight crossover from this and other.
+	     * The child comes from this net's arena when it has one, and every
+	     * weight is written straight into its slot.
+	     */
+	    @Override
+	    public Brain crossover(Brain other, Random rng) {
+	        return crossover((NeuralNet) other, rng);
+	    }
+
+	    public NeuralNet crossover(NeuralNet other, Random rng) {
+	        return crossover(other, newChild(), rng);
+	    }
+
+	    /** Storage for a child of this net: a slot of its arena, or a standalone net. */
+	    NeuralNet newChild() {
+	        return arena != null ? arena.acquire() : new NeuralNet(layerSizes);
+	    }
+
+	    /** Crossover into {@code child}, which came from {@link #newChild()}; every weight is overwritten. */
+	    NeuralNet crossover(NeuralNet other, NeuralNet child, Random rng) {
+	        this.flushRewards();
+	        other.flushRewards();
+	        if (slab != null || other.slab != null || child.slab != null) {
+	            // some block is in a buffer: go weight by weight
+	            for (int k = 0; k < weightCount; k++)
+	                child.setWeight(k, rng.nextBoolean() ? this.weight(k) : other.weight(k));
+	            return child;
+	        }
+	        double[] a = this.weights, b = other.weights, c = child.weights;
+	        int aBase = this.layerOffset[0], bBase = other.layerOffset[0], cBase = child.layerOffset[0];
+	        for (int k = 0; k < weightCount; k++) {
+	            c[cBase + k] =
+	                rng.nextBoolean()
+	                ? a[aBase + k]
+	                : b[bBase + k];
+	        }
+	        return child;
+	    }
+
+	    /** Weight k in flat row‐major order, wherever the block lives. */
+	    double weight(int k) {
+	        return slab != null ? slab.get(slabBase + k) : weights[layerOffset[0] + k];
+	    }
+
+	    private void setWeight(int k, double v) {
+	        if (slab != null) slab.put(slabBase + k, v);
+	        else weights[layerOffset[0] + k] = v;
+	    }
+
+	    /**
+	     * Mutate the net by adding Gaussian noise to each weight with given probability.
+	     *
+	     * @param rate      chance per weight to mutate
+	     * @param magnitude standard deviation of added Gaussian noise
+	     * @param rng       source of the mutation draws
+	     */
+	    @Override
+	    public void mutate(double rate, double magnitude, Random rng) {
+	        for (int k = 0; k < weightCount; k++) {
+	            if (rng.nextDouble() < rate) {
+	                setWeight(k, weight(k) + rng.nextGaussian() * magnitude);
+	            }
+	        }
+	    }
+
+	    /** Writes the architecture and every weight, for {@link #readFrom}. */
+	    @Override
+	    public void writeTo(DataOutput out) throws IOException {
+	        flushRewards();
+	        out.writeByte(layerSizes.length);
+	        for (int n : layerSizes) out.writeShort(n);
+	        for (int k = 0; k < weightCount; k++)
+	            out.writeDouble(weight(k));
+	    }
+
+	    /**
+	     * Rebuilds a net written by {@link #writeTo}, in {@code arena} when its
+	     * shape fits; activations start empty.
+	     */
+	    static NeuralNet readFrom(DataInput in, BrainArena arena) throws IOException {
+	        int[] sizes = new int[in.readByte()];
+	        for (int L = 0; L < sizes.length; L++) sizes[L] = in.readShort();
+	        NeuralNet net = arena != null && arena.fits(sizes) ? arena.acquire() : new NeuralNet(sizes);
+	        for (int k = 0; k < net.weightCount; k++)
+	            net.setWeight(k, in.readDouble());
+	        return net;
+	    }
+	}
@@ -0,0 +1,133 @@
+package sim;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Verification harness for off‐heap brain storage ({@link OffHeapSlabs}):
+ * runs one seed with the brains in heap arrays, in direct buffers and in
+ * memory‐mapped files, checks that all three end in the same state, and
+ * reports for each the brain storage held, the heap objects the simulation
+ * holds (in all and per creature), the file descriptors it keeps open, the
+ * collector time spent and the mean tick time.
+ *
+ * <p>Usage: {@code OffHeapCheck [population] [ticks] [seed]}. Exits with
+ * status 1 if any store disagrees with the heap or keeps a descriptor open.
+ */
+public class OffHeapCheck {
+
+    /** Order‐sensitive hash of every creature's id, body, genome and fitness. */
+    private static long fingerprint(Simulation sim) {
+        long h = 1125899906842597L;
+        for (Creature c : sim.getCreatures()) {
+            h = 31 * h + c.getId();
+            h = 31 * h + c.getX();
+            h = 31 * h + c.getY();
+            h = 31 * h + c.getAge();
+            h = 31 * h + c.getHunger();
+            h = 31 * h + Arrays.hashCode(c.genome());
+            h = 31 * h + Double.hashCode(c.getFitness(sim));
+        }
+        return h;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Live objects on the heap, from a class histogram (which runs a full
+     * collection first). Byte totals are not used: they include the filler
+     * arrays the collector leaves in part‐used regions, which vary by
+     * megabytes between collections.
+     */
+    private static long liveObjects() throws JMException {
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+            new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+            new Object[] { null }, new String[] { String[].class.getName() });
+        String[] lines = histogram.trim().split("\n");
+        String[] total = lines[lines.length - 1].trim().split("\\s+");   // Total <instances> <bytes>
+        return Long.parseLong(total[1]);
+    }
+
+    /** Open file descriptors of this process, or 0 where the platform cannot tell. */
+    private static long openFiles() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof UnixOperatingSystemMXBean ? ((UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount() : 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks      = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        long seed      = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Terrain terrain = Terrain.load(seed);
+        Path dir = Files.createTempDirectory("offheap-check");
+        String[] stores = { "heap", "direct", dir.toString() };
+        String[] names  = { "heap", "direct", "mapped" };
+
+        long expect = 0;
+        boolean same = true, leaks = false;
+        for (int i = 0; i < stores.length; i++) {
+            System.setProperty(OffHeapSlabs.PROPERTY, stores[i]);
+            long[] r = measure(names[i], population, ticks, seed, terrain, i == 0 ? 0 : expect);
+            if (i == 0) expect = r[0];
+            else if (r[0] != expect) same = false;
+            if (r[1] > 0) leaks = true;
+        }
+        System.clearProperty(OffHeapSlabs.PROPERTY);
+        Files.deleteIfExists(dir);
+        if (same && !leaks) {
+            System.out.println("Every store gives the same run");
+            return;
+        }
+        if (leaks) System.out.println("A store keeps files open");
+        System.exit(1);
+    }
+
+    /**
+     * Runs the seed once with the store {@value OffHeapSlabs#PROPERTY} names
+     * and prints its line; returns its fingerprint and the files it left
+     * open. The heap held is what a collection frees once the simulation
+     * is dropped, so scratch the worker threads keep between runs is not
+     * counted against it.
+     */
+    private static long[] measure(String name, int population, int ticks, long seed, Terrain terrain, long expect)
+            throws JMException {
+        long files0 = openFiles();
+        long gc0 = gcMillis();
+        long t0 = System.nanoTime();
+        Simulation sim = new Simulation(population, 10, 0.006, 0.025, seed, terrain, Simulation.BrainMode.FIXED_MLP);
+        sim.getEvents().setVerbose(false);
+        sim.run(ticks);
+        double msPerTick = (System.nanoTime() - t0) / 1e6 / ticks;
+        long gc = gcMillis() - gc0;
+        long files = openFiles() - files0;
+
+        long print = fingerprint(sim);
+        long brains = sim.getBrainArena().getBytes();
+        boolean offHeap = sim.getBrainArena().isOffHeap();
+        int pop = sim.getCreatures().size();
+        long held = liveObjects();
+        sim = null;                                 // per‐thread scratch outlives the run; count only what the run holds
+        long objects = held - liveObjects();
+        System.out.printf(Locale.ROOT, "%-7s brains %6.1f MB %-8s heap held %7d objects (%4.1f per creature), %d files open, gc %4d ms, %6.2f ms/tick, population %d, %016x%s%n",
+                          name, brains / 1e6, offHeap ? "off heap" : "on heap",
+                          objects, pop == 0 ? 0 : (double) objects / pop,
+                          files, gc, msPerTick, pop, print,
+                          expect == 0 || print == expect ? "" : "   MISMATCH");
+        return new long[] { print, files };
+    }
+}
@@ -0,0 +1,91 @@
+package sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Chunk storage outside the Java heap for {@link BrainArena}: direct
+ * buffers, or memory‐mapped files so that the operating system pages
+ * brains in and out and the arena can outgrow RAM as well as the heap.
+ * Either way the chunks are invisible to the garbage collector.
+ *
+ * <p>Chosen by the system property {@value #PROPERTY}: "heap" (the
+ * default, plain arrays, no instance), "direct", or a directory to map
+ * files in. Each mapped chunk is a file of its own, named
+ * {@code slabs-*.bin}: it is mapped, its channel closed and the file
+ * deleted at once (where the platform allows; otherwise at exit), so a
+ * store holds no descriptors and nothing is left behind however the
+ * process ends. The disk space, like a direct chunk's memory, goes back
+ * when the chunk is collected with the arena that held it. Chunks are in
+ * native byte order. Direct buffers count against
+ * {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap
+ * size; mapped files are bounded only by disk.
+ *
+ * <p>This is a brain store, not a population store: each {@link Creature}
+ * and its genome, lineage and memory ring stay on the heap, and the phases
+ * still walk the population list. What leaves the heap is a brain's record
+ * (1.3 KB at the default shape, most of a creature's bytes), so the heap
+ * a population needs shrinks but still grows with it.
+ */
+final class OffHeapSlabs {
+    static final String PROPERTY = "sim.slabs";
+
+    private final Path dir;               // null: direct buffers
+
+    private OffHeapSlabs(Path dir) {
+        this.dir = dir;
+    }
+
+    /** The store {@value #PROPERTY} asks for, or null for heap arrays. */
+    static OffHeapSlabs fromProperty() {
+        String where = System.getProperty(PROPERTY, "heap").trim();
+        if (where.isEmpty() || where.equalsIgnoreCase("heap")) return null;
+        if (where.equalsIgnoreCase("direct")) return new OffHeapSlabs(null);
+        return mapped(Paths.get(where));
+    }
+
+    /** A store of chunks mapped from fresh files in {@code dir}. */
+    static OffHeapSlabs mapped(Path dir) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot map slabs in " + dir, e);
+        }
+        return new OffHeapSlabs(dir);
+    }
+
+    boolean isMapped()  { return dir != null; }
+
+    /** A zeroed chunk of {@code doubles} doubles. */
+    DoubleBuffer allocate(int doubles) {
+        long bytes = 8L * doubles;
+        ByteBuffer b;
+        if (dir == null) {
+            b = ByteBuffer.allocateDirect((int) bytes);
+        } else {
+            try {
+                Path path = Files.createTempFile(dir, "slabs-", ".bin");
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    b = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes);   // outlives the channel
+                } finally {
+                    try {
+                        Files.delete(path);       // the mapping keeps the data alive
+                    } catch (IOException e) {
+                        path.toFile().deleteOnExit();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot map a slab in " + dir, e);
+            }
+        }
+        return b.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+}
@@ -0,0 +1,87 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Verification harness for parallel births ({@link Simulation#setParallelBirths}):
+ * runs one seed on fork‐join pools of 1, 2 and 4 threads (a parallel stream
+ * started on a pool worker runs on that pool) for both mate selections,
+ * with and without inbreeding avoidance and with NEAT brains, and checks
+ * that every pool size ends in the same state. Reports births per second
+ * of birth‐phase time for each pool size.
+ *
+ * <p>Usage: {@code ParallelBirthCheck [population] [ticks] [seed]}. Exits
+ * with status 1 if any two pool sizes disagree.
+ */
+public class ParallelBirthCheck {
+    static final int[] POOLS = { 1, 2, 4 };
+
+    private static final class Births implements SimulationObserver {
+        long births = 0;
+        @Override public void onBirth(Creature c) { births++; }
+    }
+
+    /** Order‐sensitive hash of every creature's id, body, genome and fitness. */
+    private static long fingerprint(Simulation sim) {
+        long h = 1125899906842597L;
+        for (Creature c : sim.getCreatures()) {
+            h = 31 * h + c.getId();
+            h = 31 * h + c.getX();
+            h = 31 * h + c.getY();
+            h = 31 * h + c.getAge();
+            h = 31 * h + c.getHunger();
+            h = 31 * h + Arrays.hashCode(c.genome());
+            h = 31 * h + Double.hashCode(c.getFitness(sim));
+        }
+        return h;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks      = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        long seed      = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Terrain terrain = Terrain.load(seed);
+        List<String> bad = new ArrayList<>();
+
+        String[] names = { "age pairs", "nearest", "age pairs, avoidance 1", "NEAT" };
+        for (int config = 0; config < names.length; config++) {
+            long expect = 0;
+            for (int i = 0; i < POOLS.length; i++) {
+                Simulation sim = new Simulation(population, 10, 0.006, 0.025, seed, terrain,
+                                                config == 3 ? Simulation.BrainMode.NEAT : Simulation.BrainMode.FIXED_MLP);
+                sim.getEvents().setVerbose(false);
+                sim.setParallelBirths(true);
+                if (config == 1) sim.setMateSelection(Simulation.MateSelection.NEAREST);
+                if (config == 2) sim.setInbreedingAvoidance(1);
+                Births births = new Births();
+                sim.addObserver(births);
+                PhaseMeter meter = new PhaseMeter();
+                sim.setPhaseMeter(meter);
+
+                ForkJoinPool pool = new ForkJoinPool(POOLS[i]);
+                try {
+                    pool.submit(() -> sim.run(ticks)).get();
+                } finally {
+                    pool.shutdown();
+                }
+                long print = fingerprint(sim);
+                if (i == 0) expect = print;
+                else if (print != expect) bad.add(names[config] + ": " + POOLS[i] + " threads differ from 1");
+                double seconds = meter.nanos(PhaseMeter.BIRTH) / 1e9;
+                System.out.printf(Locale.ROOT, "%-26s %d threads: %6d births, %9.0f births/s of birth phase, population %d, %016x%n",
+                                  names[config], POOLS[i], births.births, births.births / seconds,
+                                  sim.getCreatures().size(), print);
+            }
+        }
+        if (bad.isEmpty()) {
+            System.out.println("Every pool size gives the same run");
+            return;
+        }
+        for (String line : bad) System.out.println("MISMATCH " + line);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,100 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs one partition of a spatially split world, or launches all of them as
+ * local processes.
+ *
+ * <pre>
+ *   PartitionedRunner &lt;cols&gt; &lt;rows&gt; &lt;index&gt; [steps] [seed] [initialPop] [basePort] [brainMode]
+ *   PartitionedRunner launch &lt;cols&gt; &lt;rows&gt; [steps] [seed] [initialPop] [basePort] [brainMode]
+ * </pre>
+ * Every partition must be given the same seed and initial population so they
+ * agree on which creatures start where, and the same brain mode
+ * ({@code FIXED_MLP} by default, or {@code NEAT}) so migrants' brains decode.
+ */
+public class PartitionedRunner {
+    private static final int DEFAULT_BASE_PORT = 47100;
+    private static final int REPORT_EVERY      = 100;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("launch")) {
+            launchAll(args);
+            return;
+        }
+        if (args.length < 3) {
+            System.err.println("usage: PartitionedRunner <cols> <rows> <index> [steps] [seed] [initialPop] [basePort] [brainMode]");
+            System.err.println("       PartitionedRunner launch <cols> <rows> [steps] [seed] [initialPop] [basePort] [brainMode]");
+            System.exit(2);
+        }
+        int cols       = Integer.parseInt(args[0]);
+        int rows       = Integer.parseInt(args[1]);
+        int index      = Integer.parseInt(args[2]);
+        int steps      = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        long seed      = args.length > 4 ? Long.parseLong(args[4])   : 1L;
+        int initialPop = args.length > 5 ? Integer.parseInt(args[5]) : 1000;
+        int basePort   = args.length > 6 ? Integer.parseInt(args[6]) : DEFAULT_BASE_PORT;
+        Simulation.BrainMode mode = args.length > 7 ? Simulation.BrainMode.valueOf(args[7]) : Simulation.BrainMode.FIXED_MLP;
+
+        Simulation sim = new Simulation(initialPop, 10, 0.006, 0.025, seed, Terrain.load(seed), mode);
+        sim.getEvents().setVerbose(false);
+        sim.setPartition(new WorldPartition(index, cols, rows));
+
+        try (HaloExchange exchange = HaloExchange.connect(sim, "127.0.0.1", basePort)) {
+            System.out.println(sim.getPartition() + ": " + sim.getCreatures().size()
+                               + " creatures, " + exchange.getNeighbourCount() + " neighbours");
+            long tickNanos = 0, exchangeNanos = 0;
+            for (int s = 1; s <= steps; s++) {
+                long t0 = System.nanoTime();
+                sim.run(1);
+                exchange.exchange();
+                tickNanos     += System.nanoTime() - t0;
+                exchangeNanos += exchange.getLastExchangeNanos();
+                if (s % REPORT_EVERY == 0) {
+                    System.out.printf("[%d] step %d pop=%d halo=%d tick=%.0fus exchange=%.0fus%n",
+                                      index, s, sim.getCreatures().size(), sim.haloCount,
+                                      tickNanos / 1e3 / REPORT_EVERY, exchangeNanos / 1e3 / REPORT_EVERY);
+                    tickNanos = exchangeNanos = 0;
+                }
+            }
+        }
+    }
+
+    /** Starts one child JVM per partition with this JVM's class/module path and waits for all. */
+    private static void launchAll(String[] args) throws Exception {
+        int cols = Integer.parseInt(args[1]);
+        int rows = Integer.parseInt(args[2]);
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String modulePath = System.getProperty("jdk.module.path");
+
+        List<Process> children = new ArrayList<>();
+        for (int i = 0; i < cols * rows; i++) {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(java);
+            if (modulePath != null) {
+                cmd.add("-p");
+                cmd.add(modulePath);
+                cmd.add("-m");
+                cmd.add("Simulation/" + PartitionedRunner.class.getName());
+            } else {
+                cmd.add("-cp");
+                cmd.add(System.getProperty("java.class.path"));
+                cmd.add(PartitionedRunner.class.getName());
+            }
+            cmd.add(String.valueOf(cols));
+            cmd.add(String.valueOf(rows));
+            cmd.add(String.valueOf(i));
+            for (int a = 3; a < args.length; a++) cmd.add(args[a]);
+            children.add(new ProcessBuilder(cmd).inheritIO().start());
+        }
+        int failed = 0;
+        for (Process p : children)
+            if (p.waitFor() != 0) failed++;
+        if (failed > 0) {
+            System.err.println(failed + " partition(s) failed");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package sim;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Bytes allocated and time spent per phase of {@link Simulation#step()}, on
+ * the simulation thread, accumulated over every tick since the last
+ * {@link #reset()}. Attach with {@link Simulation#setPhaseMeter}; the step
+ * calls {@link #start()} once and {@link #end(int)} after each phase, so a
+ * phase's figure is everything between the previous mark and its own.
+ *
+ * <p>Allocation comes from {@code com.sun.management.ThreadMXBean}, which
+ * counts only the calling thread: work handed to the common pool in
+ * parallel mode is not included. Reading the counter itself does not
+ * allocate.
+ */
+final class PhaseMeter {
+    static final int SEASON = 0, EVENTS = 1, FOOD = 2, ACT = 3, DEATH = 4, BIRTH = 5,
+                     AGE = 6, AGGREGATE = 7, MIGRATE = 8, OBSERVERS = 9;
+    static final String[] PHASES = {
+        "season", "events", "food", "act", "death", "birth", "age", "aggregate", "migrate", "observers"
+    };
+
+    private final com.sun.management.ThreadMXBean mx =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long[] bytes = new long[PHASES.length];
+    private final long[] maxBytes = new long[PHASES.length];   // most in any one tick
+    private final long[] nanos = new long[PHASES.length];
+    private long ticks = 0;
+    private long lastBytes, lastNanos;
+
+    PhaseMeter() {
+        if (!mx.isThreadAllocatedMemorySupported())
+            throw new UnsupportedOperationException("this JVM does not count allocated bytes per thread");
+        mx.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /** Marks the start of a tick. */
+    void start() {
+        ticks++;
+        lastNanos = System.nanoTime();
+        lastBytes = mx.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Charges everything since the previous mark to {@code phase}. */
+    void end(int phase) {
+        long b = mx.getCurrentThreadAllocatedBytes();
+        long t = System.nanoTime();
+        long db = b - lastBytes;
+        bytes[phase] += db;
+        if (db > maxBytes[phase]) maxBytes[phase] = db;
+        nanos[phase] += t - lastNanos;
+        lastNanos = t;
+        lastBytes = mx.getCurrentThreadAllocatedBytes();   // leave out our own bookkeeping
+    }
+
+    void reset() {
+        Arrays.fill(bytes, 0);
+        Arrays.fill(maxBytes, 0);
+        Arrays.fill(nanos, 0);
+        ticks = 0;
+    }
+
+    long ticks()                 { return ticks; }
+    long bytes(int phase)        { return bytes[phase]; }
+    long maxBytes(int phase)     { return maxBytes[phase]; }
+    long nanos(int phase)        { return nanos[phase]; }
+}
@@ -0,0 +1,298 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Plays back a file written by {@link ReplayRecorder}. The file is memory‐mapped
+ * a window at a time, and {@link #seek(int)} jumps to the nearest keyframe at
+ * or before the requested tick and decodes forward from there, so any tick of
+ * a long run is at most one keyframe interval away. Stepping forward from the
+ * current tick decodes only the frames in between.
+ *
+ * <p>The decoded world is exposed as parallel arrays of the first
+ * {@link #count} creatures; {@code born[i]} is the tick at which creature i
+ * had age 0.
+ */
+final class ReplayReader implements Closeable {
+    private static final long WINDOW = 1L << 28;    // bytes mapped at a time
+
+    private final FileChannel channel;
+    private final long size;
+    private long framesEnd;                         // where the keyframe index (or the file) starts
+    private final long framesStart;
+    final int worldW, worldH, keyframeEvery;
+    final long terrainSeed;
+
+    private int[] keyTicks = new int[16];
+    private long[] keyOffsets = new long[16];
+    private int keyCount = 0;
+    private int firstTick, lastTick;
+
+    private MappedByteBuffer map;
+    private long mapStart = 0, mapEnd = 0;
+    private long pos;                               // read cursor, absolute file offset
+
+    // — Decoded state at {@link #tick} —
+    int tick = -1;
+    Simulation.Season season = Simulation.Season.SPRING;
+    String eventName = "None";
+    int count = 0;
+    int[] ids = new int[256], xs = new int[256], ys = new int[256], born = new int[256];
+    byte[] sex = new byte[256];
+    private int[] slotOf = new int[256];            // id → index in the arrays, or -1
+    private long next;                              // offset of the frame after the decoded state
+
+    ReplayReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        Arrays.fill(slotOf, -1);
+        pos = 0;
+        if (size < 4 || readInt32() != ReplayRecorder.MAGIC) {
+            channel.close();
+            throw new IOException(file + " is not a replay recording");
+        }
+        int version = readVarint();
+        if (version != ReplayRecorder.VERSION) {
+            channel.close();
+            throw new IOException("unsupported replay version " + version);
+        }
+        worldW = readVarint();
+        worldH = readVarint();
+        keyframeEvery = readVarint();
+        terrainSeed = readInt64();
+        framesStart = pos;
+        if (!readIndex()) scanIndex();
+        if (keyCount == 0) {
+            channel.close();
+            throw new IOException(file + " holds no complete keyframe");
+        }
+        firstTick = keyTicks[0];
+        findLastTick();
+        seek(firstTick);
+    }
+
+    int getFirstTick() { return firstTick; }
+    int getLastTick()  { return lastTick; }
+
+    /**
+     * Decodes the world as it was at the end of {@code t}, clamped to the
+     * recorded range.
+     */
+    void seek(int t) throws IOException {
+        t = Math.max(firstTick, Math.min(lastTick, t));
+        int k = keyFor(t);
+        if (tick < 0 || t < tick || keyFor(tick) != k) {
+            pos = keyOffsets[k];
+            readFrame();
+        }
+        pos = next;
+        while (tick < t && pos < framesEnd) readFrame();
+    }
+
+    /** Index of the last keyframe at or before {@code t}. */
+    private int keyFor(int t) {
+        int k = Arrays.binarySearch(keyTicks, 0, keyCount, t);
+        return k >= 0 ? k : Math.max(0, -k - 2);
+    }
+
+    // — Frames —
+
+    /** Decodes the frame at {@link #pos}; keyframes replace the state, deltas advance it. */
+    private void readFrame() throws IOException {
+        int type = readByte();
+        int t = readVarint();
+        int len = readVarint();
+        long end = pos + len;
+        if (type == ReplayRecorder.KEY) {
+            if (t != tick) loadKeyframe(t);          // stepping past a keyframe we already match
+        } else {
+            applyDelta(t);
+        }
+        pos = end;
+        next = end;
+    }
+
+    private void loadKeyframe(int t) throws IOException {
+        for (int i = 0; i < count; i++) slotOf[ids[i]] = -1;
+        count = 0;
+        season = Simulation.Season.values()[readVarint()];
+        eventName = readString();
+        int n = readVarint();
+        for (int i = 0; i < n; i++) {
+            int id = readVarint(), x = readVarint(), y = readVarint(), age = readVarint();
+            add(id, x, y, t - age, (byte) readByte());
+        }
+        tick = t;
+    }
+
+    private void applyDelta(int t) throws IOException {
+        int flags = readByte();
+        if ((flags & ReplayRecorder.FLAG_SEASON) != 0) season = Simulation.Season.values()[readVarint()];
+        if ((flags & ReplayRecorder.FLAG_EVENT) != 0)  eventName = readString();
+        int id = 0;
+        for (int n = readVarint(); n > 0; n--) {
+            id += readZigzag();
+            int i = slotOf[id];
+            xs[i] += readZigzag();
+            ys[i] += readZigzag();
+        }
+        for (int n = readVarint(); n > 0; n--) {
+            int cid = readVarint(), x = readVarint(), y = readVarint(), age = readVarint();
+            add(cid, x, y, t - age - 1, (byte) readByte());   // aged once more at the end of the tick
+        }
+        id = 0;
+        for (int n = readVarint(); n > 0; n--) {
+            id += readZigzag();
+            remove(id);
+        }
+        tick = t;
+    }
+
+    private void add(int id, int x, int y, int bornAt, byte s) {
+        if (count == ids.length) {
+            int cap = count * 2;
+            ids = Arrays.copyOf(ids, cap);
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+            born = Arrays.copyOf(born, cap);
+            sex = Arrays.copyOf(sex, cap);
+        }
+        if (id >= slotOf.length) {
+            int old = slotOf.length;
+            slotOf = Arrays.copyOf(slotOf, Math.max(old * 2, id + 1));
+            Arrays.fill(slotOf, old, slotOf.length, -1);
+        }
+        ids[count] = id; xs[count] = x; ys[count] = y; born[count] = bornAt; sex[count] = s;
+        slotOf[id] = count++;
+    }
+
+    private void remove(int id) {
+        int i = slotOf[id];
+        slotOf[id] = -1;
+        int last = --count;
+        if (i != last) {
+            ids[i] = ids[last]; xs[i] = xs[last]; ys[i] = ys[last];
+            born[i] = born[last]; sex[i] = sex[last];
+            slotOf[ids[i]] = i;
+        }
+    }
+
+    // — Index —
+
+    /** Loads the keyframe index written by {@link ReplayRecorder#close()}; false when absent. */
+    private boolean readIndex() throws IOException {
+        if (size < framesStart + 12) return false;
+        pos = size - 4;
+        if (readInt32() != ReplayRecorder.TRAILER_MAGIC) return false;
+        pos = size - 12;
+        long indexAt = readInt64();
+        if (indexAt < framesStart || indexAt > size - 12) return false;
+        pos = indexAt;
+        int n = readVarint();
+        for (int k = 0; k < n; k++) addKey(readVarint(), readInt64());
+        framesEnd = indexAt;
+        return true;
+    }
+
+    /** Rebuilds the index of a file that was never closed, up to its last whole frame. */
+    private void scanIndex() throws IOException {
+        keyCount = 0;
+        framesEnd = size;
+        pos = framesStart;
+        long good = framesStart;
+        while (pos < size) {
+            long at = pos;
+            int type, t, len;
+            try {
+                type = readByte();
+                t = readVarint();
+                len = readVarint();
+            } catch (IOException truncated) {
+                break;
+            }
+            long end = pos + len;
+            if ((type != ReplayRecorder.KEY && type != ReplayRecorder.DELTA) || end > size) break;
+            if (type == ReplayRecorder.KEY) addKey(t, at);
+            pos = good = end;
+        }
+        framesEnd = good;
+    }
+
+    private void addKey(int t, long offset) {
+        if (keyCount == keyTicks.length) {
+            keyTicks = Arrays.copyOf(keyTicks, keyCount * 2);
+            keyOffsets = Arrays.copyOf(keyOffsets, keyCount * 2);
+        }
+        keyTicks[keyCount] = t;
+        keyOffsets[keyCount++] = offset;
+    }
+
+    /** Walks the frame headers after the last keyframe to find the final tick. */
+    private void findLastTick() throws IOException {
+        pos = keyOffsets[keyCount - 1];
+        lastTick = keyTicks[keyCount - 1];
+        while (pos < framesEnd) {
+            readByte();
+            lastTick = readVarint();
+            int len = readVarint();
+            pos += len;
+        }
+    }
+
+    // — Primitive decoding over the mapped window —
+
+    private int readByte() throws IOException {
+        if (pos < mapStart || pos >= mapEnd) {
+            if (pos >= size) throw new IOException("replay truncated at " + pos);
+            mapStart = pos;
+            mapEnd = Math.min(size, pos + WINDOW);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        }
+        return map.get((int) (pos++ - mapStart)) & 0xFF;
+    }
+
+    private int readVarint() throws IOException {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private int readZigzag() throws IOException {
+        int v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private int readInt32() throws IOException {
+        int v = 0;
+        for (int i = 0; i < 4; i++) v = v << 8 | readByte();
+        return v;
+    }
+
+    private long readInt64() throws IOException {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = v << 8 | readByte();
+        return v;
+    }
+
+    private String readString() throws IOException {
+        byte[] b = new byte[readVarint()];
+        for (int i = 0; i < b.length; i++) b[i] = (byte) readByte();
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        map = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,259 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Records a run as a stream of per‐tick deltas for {@link ReplayReader}.
+ *
+ * <p>File layout (all integers are LEB128 varints, signed ones zig‐zagged):
+ * <pre>
+ *   header   MAGIC(4 bytes), VERSION, worldW, worldH, keyframeEvery, terrainSeed(8 bytes)
+ *   frame*   type(1 byte) tick length payload
+ *   index    keyframe count, then (tick, offset(8 bytes)) per keyframe
+ *   trailer  index offset(8 bytes), TRAILER_MAGIC(4 bytes)   — both written by close()
+ * </pre>
+ * A DELTA payload holds a flags byte (new season / new event), those
+ * values, then the tick's moves (id delta, dx, dy), births (id, x, y, age,
+ * sex) and deaths (id delta). Applied in that order they reproduce the tick:
+ * only existing creatures move, and a child can leave its partition in the
+ * tick it is born. A KEY payload is a full snapshot: season, event and every
+ * creature as a birth. One is written at the start and every
+ * {@code keyframeEvery} ticks, so a reader can seek to any tick by decoding
+ * at most that many deltas. The trailer indexes the keyframes; a file cut
+ * short by a crash is still readable by scanning.
+ *
+ * <p>Frames are assembled in reusable byte arrays and written through a
+ * direct buffer, so a tick costs no allocation beyond array growth.
+ */
+final class ReplayRecorder implements SimulationObserver, Closeable {
+    static final int MAGIC = 0x53494D52;            // "SIMR"
+    static final int TRAILER_MAGIC = 0x53494D49;    // "SIMI"
+    static final int VERSION = 1;
+    static final byte KEY = 1, DELTA = 2;
+    static final int FLAG_SEASON = 1, FLAG_EVENT = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.BIG_ENDIAN);
+    private long written = 0;                       // bytes handed to the channel
+    private final Simulation sim;
+    private final int keyframeEvery;
+
+    // — Current tick, one section per kind of change —
+    private final Bytes moves = new Bytes(), deaths = new Bytes(), births = new Bytes();
+    private final Bytes frame = new Bytes(), head = new Bytes();
+    private int moveCount, deathCount, birthCount;
+    private int lastMoveId, lastDeathId;
+    private int tick;
+    private Simulation.Season season;
+    private String eventName;
+
+    private int[] keyTicks = new int[16];
+    private long[] keyOffsets = new long[16];
+    private int keyCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Opens {@code file} (replacing it), writes a keyframe of the current
+     * state and starts observing {@code sim}.
+     */
+    ReplayRecorder(Simulation sim, Path file, int keyframeEvery) throws IOException {
+        if (keyframeEvery < 1) throw new IllegalArgumentException("keyframe interval must be >= 1, got " + keyframeEvery);
+        this.sim = sim;
+        this.keyframeEvery = keyframeEvery;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+        this.tick = sim.getCurrentStep();
+        this.season = sim.getCurrentSeason();
+        this.eventName = sim.getCurrentEventName();
+        frame.int32(MAGIC);
+        frame.varint(VERSION);
+        frame.varint(Simulation.WORLD_W);
+        frame.varint(Simulation.WORLD_H);
+        frame.varint(keyframeEvery);
+        frame.int64(sim.getTerrain().getSeed());
+        put(frame.buf, frame.len);
+        frame.len = 0;
+        writeKeyframe();
+        sim.addObserver(this);
+    }
+
+    // — Observer callbacks —
+
+    @Override
+    public void onBirth(Creature c) {
+        births.varint(c.getId());
+        births.varint(c.getX());
+        births.varint(c.getY());
+        births.varint(c.getAge());
+        births.bytes(c.getSex() == Creature.Sex.MALE ? 0 : 1);
+        birthCount++;
+    }
+
+    @Override
+    public void onDeath(Creature c) {
+        deaths.zigzag(c.getId() - lastDeathId);
+        lastDeathId = c.getId();
+        deathCount++;
+    }
+
+    @Override
+    public void onMove(Creature c, int fromX, int fromY) {
+        moves.zigzag(c.getId() - lastMoveId);
+        moves.zigzag(c.getX() - fromX);
+        moves.zigzag(c.getY() - fromY);
+        lastMoveId = c.getId();
+        moveCount++;
+    }
+
+    @Override
+    public void onTickEnd(Simulation s) {
+        tick++;
+        int flags = 0;
+        if (s.getCurrentSeason() != season) { season = s.getCurrentSeason(); flags |= FLAG_SEASON; }
+        if (!s.getCurrentEventName().equals(eventName)) { eventName = s.getCurrentEventName(); flags |= FLAG_EVENT; }
+        frame.bytes(flags);
+        if ((flags & FLAG_SEASON) != 0) frame.varint(season.ordinal());
+        if ((flags & FLAG_EVENT) != 0)  frame.string(eventName);
+        frame.varint(moveCount);  frame.append(moves);
+        frame.varint(birthCount); frame.append(births);
+        frame.varint(deathCount); frame.append(deaths);
+        writeFrame(DELTA);
+        moves.len = deaths.len = births.len = 0;
+        moveCount = deathCount = birthCount = 0;
+        lastMoveId = lastDeathId = 0;
+        if (tick % keyframeEvery == 0) writeKeyframe();
+    }
+
+    // — Frames —
+
+    private void writeKeyframe() {
+        if (keyCount == keyTicks.length) {
+            keyTicks   = Arrays.copyOf(keyTicks, keyCount * 2);
+            keyOffsets = Arrays.copyOf(keyOffsets, keyCount * 2);
+        }
+        keyTicks[keyCount]   = tick;
+        keyOffsets[keyCount] = written + out.position();
+        keyCount++;
+        frame.varint(season.ordinal());
+        frame.string(eventName);
+        frame.varint(sim.getCreatures().size());
+        for (Creature c : sim.getCreatures()) {
+            frame.varint(c.getId());
+            frame.varint(c.getX());
+            frame.varint(c.getY());
+            frame.varint(c.getAge());
+            frame.bytes(c.getSex() == Creature.Sex.MALE ? 0 : 1);
+        }
+        writeFrame(KEY);
+    }
+
+    private void writeFrame(byte type) {
+        head.bytes(type);
+        head.varint(tick);
+        head.varint(frame.len);
+        put(head.buf, head.len);
+        put(frame.buf, frame.len);
+        head.len = frame.len = 0;
+    }
+
+    private void put(byte[] b, int len) {
+        int off = 0;
+        while (off < len) {
+            if (!out.hasRemaining()) drain();
+            int n = Math.min(out.remaining(), len - off);
+            out.put(b, off, n);
+            off += n;
+        }
+    }
+
+    private void drain() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) written += channel.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("replay write failed", e);
+        }
+        out.clear();
+    }
+
+    /** Stops observing, writes the keyframe index and closes the file. Idempotent. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        sim.removeObserver(this);
+        long indexAt = written + out.position();
+        frame.varint(keyCount);
+        for (int k = 0; k < keyCount; k++) {
+            frame.varint(keyTicks[k]);
+            frame.int64(keyOffsets[k]);
+        }
+        frame.int64(indexAt);
+        frame.int32(TRAILER_MAGIC);
+        put(frame.buf, frame.len);
+        frame.len = 0;
+        drain();
+        channel.close();
+    }
+
+    int getTick() { return tick; }
+
+    /** Growable byte array with the varint encodings used by the format. */
+    static final class Bytes {
+        byte[] buf = new byte[256];
+        int len;
+
+        private void ensure(int n) {
+            if (len + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+
+        void bytes(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+        }
+
+        void varint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void zigzag(int v) { varint((v << 1) ^ (v >> 31)); }
+
+        void int32(int v) {
+            ensure(4);
+            for (int s = 24; s >= 0; s -= 8) buf[len++] = (byte) (v >>> s);
+        }
+
+        void int64(long v) {
+            ensure(8);
+            for (int s = 56; s >= 0; s -= 8) buf[len++] = (byte) (v >>> s);
+        }
+
+        void string(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, len, b.length);
+            len += b.length;
+        }
+
+        void append(Bytes other) {
+            ensure(other.len);
+            System.arraycopy(other.buf, 0, buf, len, other.len);
+            len += other.len;
+        }
+    }
+}
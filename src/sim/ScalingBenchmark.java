@@ -0,0 +1,363 @@
+package sim;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * End‐to‐end scaling report for the tick loop: runs one seeded
+ * {@link Simulation} per (population, parallel) case and measures
+ * <ul>
+ *   <li>{@code ticksPerSec} and {@code nsPerCreatureTick},</li>
+ *   <li>{@code allocBytesPerTick}, summed over all threads (ThreadMXBean),</li>
+ *   <li>{@code gcMillis}, collector time during {@code ticks} measured ticks,</li>
+ *   <li>{@code peakRssKb}, the process high‐water mark (VmHWM, Linux only).</li>
+ * </ul>
+ * Every case runs {@code repeats} times, each in a fresh JVM started with this
+ * one's JVM options, so the high‐water mark and the JIT state belong to that
+ * case alone; each metric reported is the median over the repeats. Each
+ * metric is compared against a baseline properties file and the run exits
+ * with status 1 if any is worse by more than its tolerance, so changes to the
+ * tick loop can be gated on it. The default tolerances are wide enough that
+ * a second run on an idle machine passes against the baseline the first one
+ * wrote, and a change smaller than the metric's noise floor (a few
+ * milliseconds of GC, 16 MB of RSS) never counts. Parallel cases need as
+ * many idle cores as the common pool has workers; on a smaller or busy
+ * machine their timings swing far more, and want a wider
+ * {@code tolerance.ticksPerSec} and {@code tolerance.nsPerCreatureTick}.
+ *
+ * <p>The spec is a properties file:
+ * <pre>
+ *   populations      = 100, 1000, 10000, 100000, 1000000
+ *   parallel         = false, true
+ *   seed             = 1
+ *   jitWarmupSec     = 10      # unmeasured passes of the case first, until the JIT settles
+ *   warmupTicks      = 3
+ *   ticks            = 10
+ *   minMeasureSec    = 1       # rerun the case in its JVM until this much is measured
+ *   repeats          = 5       # fresh JVMs per case; metrics are their median
+ *   caseBudgetSec    = 300     # skip cases projected to take longer, repeats included
+ *   tolerance        = 20      # % allowed regression, every metric
+ *   tolerance.peakRssKb = 25   # per‐metric override
+ * </pre>
+ * Without {@code tolerance} each metric has its own default, in
+ * {@link #DEFAULT_TOLERANCE}.
+ * Cases run smallest first. A case is skipped, and reported as such, when
+ * the previous case's tick time scaled quadratically by population says it
+ * would overrun {@code caseBudgetSec}; pack sensing is still a full scan.
+ * The world is the fixed {@link Simulation#WORLD_W} × {@link Simulation#WORLD_H},
+ * so population is the only density knob.
+ */
+public class ScalingBenchmark {
+    static final String[] METRICS = { "ticksPerSec", "nsPerCreatureTick", "allocBytesPerTick", "gcMillis", "peakRssKb" };
+    /** % regression allowed per metric unless the spec says otherwise: timings are the noisiest. */
+    static final double[] DEFAULT_TOLERANCE = { 30, 30, 10, 50, 15 };
+    /** Absolute changes below these never count, whatever the percentage. */
+    static final double[] NOISE_FLOOR = { 0, 0, 1024, 20, 16384 };
+
+    /** Measured values of one case, in {@link #METRICS} order; null when skipped. */
+    static final class Result {
+        final String name;
+        final int population;
+        final boolean parallel;
+        double[] values;
+        int finalPop;
+
+        Result(int population, boolean parallel) {
+            this.name       = "pop" + population + (parallel ? ".par" : ".seq");
+            this.population = population;
+            this.parallel   = parallel;
+        }
+    }
+
+    private final Properties spec;
+
+    ScalingBenchmark(Properties spec) {
+        this.spec = spec;
+    }
+
+    List<Result> run() {
+        long seed      = Long.parseLong(spec.getProperty("seed", "1").trim());
+        int warmup     = Integer.parseInt(spec.getProperty("warmupTicks", "3").trim());
+        int ticks      = Integer.parseInt(spec.getProperty("ticks", "10").trim());
+        double budget  = Double.parseDouble(spec.getProperty("caseBudgetSec", "300").trim());
+        int repeats    = Math.max(1, Integer.parseInt(spec.getProperty("repeats", "5").trim()));
+        double jitSec  = Double.parseDouble(spec.getProperty("jitWarmupSec", "10").trim());
+        double minSec  = Double.parseDouble(spec.getProperty("minMeasureSec", "1").trim());
+        List<Integer> pops = new ArrayList<>();
+        for (String t : spec.getProperty("populations", "100, 1000, 10000").split(",")) pops.add(Integer.parseInt(t.trim()));
+        pops.sort(null);
+        List<Boolean> modes = new ArrayList<>();
+        for (String t : spec.getProperty("parallel", "false, true").split(",")) modes.add(Boolean.parseBoolean(t.trim()));
+
+        List<Result> results = new ArrayList<>();
+        for (boolean par : modes) {
+            double lastTickSec = 0;
+            int lastPop = 0;
+            for (int pop : pops) {
+                Result r = new Result(pop, par);
+                results.add(r);
+                double scale = lastPop == 0 ? 0 : (double) pop / lastPop;
+                double pass = lastTickSec * scale * scale * (warmup + ticks);
+                if (lastPop > 0 && repeats * (Math.max(jitSec, pass) + Math.max(minSec, pass)) > budget) {
+                    System.out.println(r.name + ": skipped, projected over " + budget + " s");
+                    continue;
+                }
+                measure(r, seed, jitSec, minSec, warmup, ticks, repeats);
+                lastTickSec = 1.0 / r.values[0];
+                lastPop = pop;
+                System.out.println(format(r));
+            }
+        }
+        return results;
+    }
+
+    /** Runs the case {@code repeats} times in fresh JVMs and keeps the median of each metric. */
+    private static void measure(Result r, long seed, double jitSec, double minSec, int warmup, int ticks, int repeats) {
+        double[][] runs = new double[repeats][];
+        for (int i = 0; i < repeats; i++) runs[i] = runChild(r, seed, jitSec, minSec, warmup, ticks);
+        r.values = new double[METRICS.length];
+        double[] column = new double[repeats];
+        for (int m = 0; m < METRICS.length; m++) {
+            for (int i = 0; i < repeats; i++) column[i] = runs[i][m];
+            Arrays.sort(column);
+            r.values[m] = repeats % 2 == 1 ? column[repeats / 2]
+                                           : (column[repeats / 2 - 1] + column[repeats / 2]) / 2;
+        }
+        r.finalPop = (int) runs[0][METRICS.length];   // seeded: the same every time
+    }
+
+    /** One run of the case in a child JVM; its metrics, then the final population. */
+    private static double[] runChild(Result r, long seed, double jitSec, double minSec, int warmup, int ticks) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(ProcessHandle.current().info().command().orElse("java"));
+        cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null) {
+            cmd.add("-p");
+            cmd.add(modulePath);
+            cmd.add("-m");
+            cmd.add("Simulation/" + ScalingBenchmark.class.getName());
+        } else {
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add(ScalingBenchmark.class.getName());
+        }
+        cmd.add(CASE_FLAG);
+        cmd.add(String.valueOf(seed));
+        cmd.add(String.valueOf(jitSec));
+        cmd.add(String.valueOf(minSec));
+        cmd.add(String.valueOf(warmup));
+        cmd.add(String.valueOf(ticks));
+        cmd.add(String.valueOf(r.population));
+        cmd.add(String.valueOf(r.parallel));
+        try {
+            Process p = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String last = null;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                for (String line; (line = out.readLine()) != null; ) last = line;
+            }
+            if (p.waitFor() != 0 || last == null)
+                throw new IllegalStateException(r.name + ": case JVM failed with status " + p.exitValue());
+            String[] parts = last.trim().split(" ");
+            double[] values = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i]);
+            return values;
+        } catch (IOException e) {
+            throw new IllegalStateException(r.name + ": cannot start case JVM", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(r.name + ": interrupted", e);
+        }
+    }
+
+    /** The measurement itself, in the case JVM; prints the metrics and final population on one line. */
+    private static void runCase(long seed, double jitSec, double minMeasureSec, int warmup, int ticks,
+                                int population, boolean parallel) {
+        // the case from scratch again and again: unmeasured until jitSec has passed, so
+        // the JIT has settled on the case's own code paths, then until minMeasureSec is measured
+        Terrain terrain = Terrain.generate(seed);
+        com.sun.management.ThreadMXBean mx =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long nanos = 0, alloc = 0, gc = 0, creatureTicks = 0;
+        int done = 0, passes = 0, finalPop = 0;
+        long settleEnd = System.nanoTime() + (long) (jitSec * 1e9);
+        for (boolean settle = true; settle || nanos < minMeasureSec * 1e9; ) {
+            Simulation sim = new Simulation(population, 10, 0.006, 0.025, seed, terrain);
+            sim.getEvents().setVerbose(false);
+            sim.setParallel(parallel);
+            for (int i = 0; i < warmup && !sim.getCreatures().isEmpty(); i++) sim.run(1);
+
+            long alloc0 = allocatedBytes(mx);
+            long gc0 = gcMillis();
+            long passCreatureTicks = 0;
+            int passDone = 0;
+            long t0 = System.nanoTime();
+            for (; passDone < ticks && !sim.getCreatures().isEmpty(); passDone++) {
+                passCreatureTicks += sim.getCreatures().size();
+                sim.run(1);
+            }
+            long passNanos = System.nanoTime() - t0;
+            if (settle) {
+                settle = System.nanoTime() < settleEnd;
+                continue;
+            }
+            nanos += passNanos;
+            alloc += allocatedBytes(mx) - alloc0;
+            gc    += gcMillis() - gc0;
+            done  += passDone;
+            creatureTicks += passCreatureTicks;
+            finalPop = sim.getCreatures().size();
+            passes++;
+        }
+        done = Math.max(1, done);
+
+        double[] values = {
+            done * 1e9 / nanos,
+            (double) nanos / Math.max(1, creatureTicks),
+            (double) alloc / done,
+            (double) gc / passes,
+            peakRssKb(),
+            finalPop
+        };
+        StringBuilder line = new StringBuilder();
+        for (double v : values) line.append(line.length() == 0 ? "" : " ").append(v);
+        System.out.println(line);
+    }
+
+    /** Bytes allocated so far by every live thread, including fork‐join workers. */
+    private static long allocatedBytes(com.sun.management.ThreadMXBean mx) {
+        long total = 0;
+        for (long b : mx.getThreadAllocatedBytes(mx.getAllThreadIds())) {
+            if (b > 0) total += b;
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /** Peak resident set size from /proc/self/status, or -1 where unavailable. */
+    static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static String format(Result r) {
+        return String.format(Locale.ROOT,
+            "%-16s %10.1f ticks/s %12.0f ns/creature-tick %14.0f B/tick %6.0f ms GC %9.0f kB RSS  (pop %d -> %d)",
+            r.name, r.values[0], r.values[1], r.values[2], r.values[3], r.values[4], r.population, r.finalPop);
+    }
+
+    // — Baseline comparison —
+
+    /**
+     * Lists every metric that is worse than {@code baseline} by more than its
+     * tolerance. Throughput regresses downwards, everything else upwards.
+     * Cases or metrics missing from either side are not compared.
+     */
+    List<String> regressions(List<Result> results, Properties baseline) {
+        String anyTol = spec.getProperty("tolerance");
+        List<String> out = new ArrayList<>();
+        for (Result r : results) {
+            if (r.values == null) continue;
+            for (int m = 0; m < METRICS.length; m++) {
+                String base = baseline.getProperty(r.name + "." + METRICS[m]);
+                if (base == null || r.values[m] < 0) continue;
+                double b = Double.parseDouble(base);
+                if (b <= 0) continue;
+                String def = anyTol != null ? anyTol : String.valueOf(DEFAULT_TOLERANCE[m]);
+                double tol = Double.parseDouble(spec.getProperty("tolerance." + METRICS[m], def).trim());
+                double change = (r.values[m] - b) / b * 100.0;
+                double worse = m == 0 ? -change : change;
+                if (worse > tol && Math.abs(r.values[m] - b) >= NOISE_FLOOR[m]) {
+                    out.add(String.format(Locale.ROOT, "%s.%s: %.1f vs baseline %.1f (%+.1f%%, limit %.0f%%)",
+                                          r.name, METRICS[m], r.values[m], b, change, tol));
+                }
+            }
+        }
+        return out;
+    }
+
+    static void writeBaseline(List<Result> results, Path file) throws IOException {
+        Properties p = new Properties();
+        for (Result r : results) {
+            if (r.values == null) continue;
+            for (int m = 0; m < METRICS.length; m++)
+                p.setProperty(r.name + "." + METRICS[m], String.format(Locale.ROOT, "%.1f", r.values[m]));
+        }
+        try (Writer w = Files.newBufferedWriter(file)) {
+            p.store(w, "ScalingBenchmark baseline");
+        }
+    }
+
+    private static final String CASE_FLAG = "--case";
+
+    /**
+     * Usage: {@code ScalingBenchmark <spec.properties> <baseline.properties> [--write-baseline]}.
+     * Without the flag the run is compared with the baseline; with it the
+     * baseline is (re)written from this run.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 8 && args[0].equals(CASE_FLAG)) {
+            runCase(Long.parseLong(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3]),
+                    Integer.parseInt(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]),
+                    Boolean.parseBoolean(args[7]));
+            return;
+        }
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("--write-baseline"))) {
+            System.err.println("usage: ScalingBenchmark <spec.properties> <baseline.properties> [--write-baseline]");
+            System.exit(2);
+        }
+        Properties spec = new Properties();
+        try (Reader in = Files.newBufferedReader(Paths.get(args[0]))) {
+            spec.load(in);
+        }
+        ScalingBenchmark bench = new ScalingBenchmark(spec);
+        List<Result> results = bench.run();
+
+        Path baselinePath = Paths.get(args[1]);
+        if (args.length == 3) {
+            writeBaseline(results, baselinePath);
+            System.out.println("Baseline written to " + baselinePath);
+            return;
+        }
+        Properties baseline = new Properties();
+        try (Reader in = Files.newBufferedReader(baselinePath)) {
+            baseline.load(in);
+        }
+        List<String> bad = bench.regressions(results, baseline);
+        if (bad.isEmpty()) {
+            System.out.println("No regressions against " + baselinePath);
+            return;
+        }
+        System.out.println("REGRESSIONS:");
+        for (String line : bad) System.out.println("  " + line);
+        System.exit(1);
+    }
+}
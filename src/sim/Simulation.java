@@ -1,310 +1,975 @@
-package sim;
-
-import java.util.*;
-import java.util.stream.Collectors;
-
-public class Simulation {
-    public static final int WORLD_W = 800, WORLD_H = 600;
-
-    private final Random rng = new Random();
-    final List<Creature> population = new ArrayList<>();
-    private final List<Biome> biomes = new ArrayList<>();
-
-    private final int genomeLength;
-    private final double deathProbPerStep;
-    private final double birthProbPerPair;
-
-    static final int MAX_AGE = 100;
-    private static final double AGE_DEATH_INCREASE_FACTOR = 1.0;
-    private static final int JITTER_WINDOW = 4;
-    private static final double FOOD_BREED_BONUS = 3.5;
-    
-    private int currentStep = 0;
-    private final Events events = new Events();
-    public interface MutationListener { void onMutation(Creature c); }
-    private final List<MutationListener> mutationListeners = new ArrayList<>();
-    public void addMutationListener(MutationListener l) {
-        mutationListeners.add(l);
-    }
-    private void notifyMutation(Creature c) {
-        for (var l : mutationListeners) l.onMutation(c);
-    }
-    
-    // — Seasonal cycle configuration —
-    public enum Season { SPRING, SUMMER, FALL, WINTER }
-    private Season currentSeason = Season.SPRING;
-    private int seasonLength = 25;        // number of ticks per season
-    private int ticksIntoSeason = 0;
-    
-    private final double[][] heightMap;
-    
-    public Simulation(int initialPop, int genomeLength,
-                      double deathProbPerStep, double birthProbPerPair) {
-        this.genomeLength     = genomeLength;
-        this.deathProbPerStep = deathProbPerStep;
-        this.birthProbPerPair = birthProbPerPair;
-        
-        // seed initial creatures
-        for (int i = 0; i < initialPop; i++) {
-            population.add(Creature.randomCreature(genomeLength));
-        }
-
-        // Define biomes in order so that getBiomeAt finds the first match:
-        biomes.clear();
-        // Desert in top-left quadrant
-        biomes.add(new Biome("Desert",
-                             0, 0,
-                             WORLD_W/2, WORLD_H/2,
-                             /*forageMod=*/0.2,
-                             /*deathMod=*/1.5));
-        // Oasis in center
-        biomes.add(new Biome("Oasis",
-                             WORLD_W/4, WORLD_H/4,
-                             WORLD_W/2, WORLD_H/2,
-                             /*forageMod=*/3.0,
-                             /*deathMod=*/0.9));
-        // Plains as catch-all
-        biomes.add(new Biome("Plains",
-                             0, 0,
-                             WORLD_W, WORLD_H,
-                             /*forageMod=*/1.0,
-                             /*deathMod=*/1.0));
-        // Ensure seasonal modifiers are applied for SPRING
-        applySeasonalModifiers();
-        
-        // 3) Generate & smooth a random heightMap
-        heightMap = new double[WORLD_W][WORLD_H];
-        generateHeightMap();
-    }
-
-    public void run(int steps) {
-        for (int i = 0; i < steps; i++) {
-            step();
-            currentStep++;
-        }
-    }
-
-
-    
-    /** one full tick: events → regen → act → death → birth → aging */
-    void step() {
-    	  // 1) Advance seasonal clock
-        ticksIntoSeason++;
-        if (ticksIntoSeason >= seasonLength) {
-            ticksIntoSeason = 0;
-            currentSeason = nextSeason(currentSeason);
-            applySeasonalModifiers();
-        }
-     // 2) Global events update
-        events.update();
-
-     // 3) Creature actions (foraging, movement, learning)
-        Iterator<Creature> cit = population.iterator();
-        while (cit.hasNext()) {
-            Creature c = cit.next();
-            c.act(this);
-            if (!c.isAlive()) cit.remove();
-        }
-         
-        // 3) Death phase (old‐age + random, modified by biome)
-        double eventDeathMod = events.getDeathModifier();
-        population.removeIf(c -> {
-            boolean old = c.getAge() > MAX_AGE;
-            Biome b = getBiomeAt(c.getX(), c.getY());
-            double ageFactor = 1.0 + AGE_DEATH_INCREASE_FACTOR * c.getAge()/MAX_AGE;
-            double fitRaw = c.getFitness(this);       
-            double fitNorm = fitRaw / 100.0;
-            double fitnessScale = 1.0 - 0.5 * fitNorm;
-            double pDie = deathProbPerStep
-                        * eventDeathMod
-                        * b.deathModifier
-                        * ageFactor
-                        * fitnessScale;
-            boolean rand = rng.nextDouble() < pDie;
-            if (old || rand) c.die();
-            return old || rand;
-        });
-
-        // 4) Birth phase (always allowed, bonus if in high‐forage biome)
-        List<Creature> survivors = new ArrayList<>(population);
-        survivors.sort(Comparator.comparingInt(Creature::getAge));
-        for (int i = 0; i < survivors.size(); i += JITTER_WINDOW) {
-            int end = Math.min(i+JITTER_WINDOW, survivors.size());
-            Collections.shuffle(survivors.subList(i,end), rng);
-        }
-        double eventBirthMod = events.getBirthModifier();
-        for (int i = 0; i + 1 < survivors.size(); i += 2) {
-            Creature a = survivors.get(i), b = survivors.get(i+1);
-            if (a.getSex() != b.getSex()) {
-                // base chance
-                double chance = birthProbPerPair * eventBirthMod;
-                //fitness modifier
-                double fitA = a.getFitness(this) / 100.0;
-                double fitB = b.getFitness(this) / 100.0;
-                double pairFit = (fitA + fitB) / 2.0;       // [0.01…1.0]
-                double fitnessScale = 1.0 + 0.5 * pairFit;  // [1.005…1.5]
-                double fchance = chance * fitnessScale;
-                // if both in a high‐forage biome (e.g. Oasis), boost chance
-                Biome ba = getBiomeAt(a.getX(), a.getY());
-                Biome bb = getBiomeAt(b.getX(), b.getY());
-                if (ba.forageModifier > 1.0 && bb.forageModifier > 1.0) {
-                    fchance *= FOOD_BREED_BONUS;
-                }
-                if (rng.nextDouble() < fchance) {
-                    Creature child = a.mateWith(b);
-                    // spawn child at parents' midpoint
-                    int cx = (a.getX() + b.getX())/2;
-                    int cy = (a.getY() + b.getY())/2;
-                    child.setPosition(cx, cy);
-                    population.add(child);
-                    notifyMutation(child);
-                }
-            }
-        }
-
-        // 8) age all survivors
-        population.forEach(Creature::stepAge);
-    }
-    /** Returns the next season in the cycle. */
-    private Season nextSeason(Season s) {
-        switch (s) {
-            case SPRING: return Season.SUMMER;
-            case SUMMER: return Season.FALL;
-            case FALL:   return Season.WINTER;
-            case WINTER: return Season.SPRING;
-            default:     return Season.SPRING;
-        }
-    }
-    
-    /** Adjust each biome’s modifiers according to the current season. */
-    private void applySeasonalModifiers() {
-        for (Biome b : biomes) {
-            switch (currentSeason) {
-                case SPRING:
-                    switch (b.name) {
-                        case "Desert":
-                            b.forageModifier = 0.3;
-                            b.deathModifier  = 1.1;
-                            break;
-                        case "Oasis":
-                            b.forageModifier = 2.0;
-                            b.deathModifier  = 0.9;
-                            break;
-                        case "Plains":
-                            b.forageModifier = 1.2;
-                            b.deathModifier  = 0.8;
-                            break;
-                    }
-                    break;
-                case SUMMER:
-                    switch (b.name) {
-                        case "Desert":
-                            b.forageModifier = 0.1;
-                            b.deathModifier  = 1.5;
-                            break;
-                        case "Oasis":
-                            b.forageModifier = 3.0;
-                            b.deathModifier  = 0.7;
-                            break;
-                        case "Plains":
-                            b.forageModifier = 1.0;
-                            b.deathModifier  = 1.0;
-                            break;
-                    }
-                    break;
-                case FALL:
-                    switch (b.name) {
-                        case "Desert":
-                            b.forageModifier = 0.2;
-                            b.deathModifier  = 1.2;
-                            break;
-                        case "Oasis":
-                            b.forageModifier = 1.75;
-                            b.deathModifier  = 1.0;
-                            break;
-                        case "Plains":
-                            b.forageModifier = 1.0;
-                            b.deathModifier  = 0.9;
-                            break;
-                    }
-                    break;
-                case WINTER:
-                    switch (b.name) {
-                        case "Desert":
-                            b.forageModifier = 0.05;
-                            b.deathModifier  = 1.8;
-                            break;
-                        case "Oasis":
-                            b.forageModifier = 1.5;
-                            b.deathModifier  = 1.2;
-                            break;
-                        case "Plains":
-                            b.forageModifier = 0.8;
-                            b.deathModifier  = 1.3;
-                            break;
-                    }
-                    break;
-            }
-        }
-    }
-    
-    /**
-     * Fills heightMap using 2D fractal Perlin noise. The result is in [0,1].
-     * We sample at scaled coordinates to control “hill size.” 
-     */
-    private void generateHeightMap() {
-        int octaves = 5;
-        double persistence = 0.5;
-        double scale = 0.005;  
-        // scale < 0.01 → large, smooth hills; scale > 0.01 → smaller, bumpier hills
-
-        for (int i = 0; i < WORLD_W; i++) {
-            for (int j = 0; j < WORLD_H; j++) {
-                // Evaluate fractal noise in [−1…+1]
-                double nx = i * scale;
-                double ny = j * scale;
-                double val = PerlinNoise.fractal(nx, ny, octaves, persistence);
-
-                // Map from [−1…+1] to [0…1]
-                heightMap[i][j] = (val + 1) * 0.5;
-            }
-        }
-    }
-
-    /**
-     * Returns a value in [0,1] at (x,y), where 0 = lowest elevation, 1 = highest.
-     * Coordinates are clamped to [0..WORLD_W-1]×[0..WORLD_H-1].
-     */
-    public double getHeight(int x, int y) {
-        int cx = Math.max(0, Math.min(WORLD_W - 1, x));
-        int cy = Math.max(0, Math.min(WORLD_H - 1, y));
-        return heightMap[cx][cy];
-    }
-    
-    public Biome getBiomeAt(int px, int py) {
-        for (Biome b : biomes) {
-            if (b.contains(px, py)) {
-                return b;
-            }
-        }
-        return biomes.get(biomes.size() - 1);
-    }
-    
-    public int getCurrentStep()           { return currentStep; }
-    public List<Creature> getCreatures()  { return Collections.unmodifiableList(population); }
-    public Events getEvents()             { return events; }
-    public String getCurrentEventName()   { return events.getCurrentEventName(); }
-    public List<Biome> getBiomes() 		  { return Collections.unmodifiableList(biomes);}
-    public Season getCurrentSeason()       { return currentSeason; }
-    
-    public String getCreatureReport() {
-        StringBuilder sb = new StringBuilder("Step ").append(currentStep).append("\n");
-        population.forEach(c -> sb.append(c).append("\n"));
-        return sb.toString();
-    }
-    private int clamp(int v, int lo, int hi) {
-        if (v < lo) return lo;
-        if (v > hi) return hi;
-        return v;
-    }
-}
+package sim;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class Simulation {
+    public static final int WORLD_W = 800, WORLD_H = 600;
+
+    private final Random rng;
+    private final long seed;
+    final List<Creature> population = new ArrayList<>();
+    private final List<Biome> biomes = new ArrayList<>();
+
+    private final int genomeLength;
+    private final double deathProbPerStep;
+    private final double birthProbPerPair;
+
+    static final int MAX_AGE = 100;
+    static final double AGE_DEATH_INCREASE_FACTOR = 1.0;
+    private static final int JITTER_WINDOW = 4;
+    static final double FOOD_BREED_BONUS = 3.5;
+    
+    private int currentStep = 0;
+    private int nextId = 0;               // next Creature.id to hand out
+    private final Events events;
+    // births, deaths, mutations, seasons and events for consumers on any thread
+    private final SimulationEventBus bus = new SimulationEventBus();
+    private final GeneticsTracker genetics;
+    // observers see every birth, death and move (see SimulationObserver)
+    private SimulationObserver[] observers = new SimulationObserver[0];
+    
+    // — Seasonal cycle configuration —
+    public enum Season { SPRING, SUMMER, FALL, WINTER }
+    private Season currentSeason = Season.SPRING;
+    private Biome bestBiome;              // highest forage/death ratio this season
+    private boolean flowSensing = false;
+    private final FlowField[] flowFields = new FlowField[Season.values().length];
+    private int seasonLength = 25;        // number of ticks per season
+    private int ticksIntoSeason = 0;
+    
+    private final Terrain terrain;
+    // — Brains: fixed MLPs in a slab arena, or evolving NEAT topologies —
+    public enum BrainMode { FIXED_MLP, NEAT }
+    private final BrainMode brainMode;
+    // brain records (weights and activations) on the heap, or off it per OffHeapSlabs.PROPERTY (read when the simulation is built)
+    private final BrainArena brains = new BrainArena(OffHeapSlabs.fromProperty(), Creature.BRAIN_LAYERS);
+    private final NeatBrain.Registry neat;
+    private final MemoryBank memories = new MemoryBank(Creature.MEMORY_SIZE, Creature.MEMORY_WIDTH);
+    private int rewardBatchTicks = 1;     // brain learning: ticks between weight writes
+
+    // — Parallel scoring (see evaluateFitness) —
+    private static final int PARALLEL_MIN = 512;
+    private boolean parallel = false;
+    private boolean fastMath = false;     // approximate tanh in brains, see FastMath
+    private double[] fitness = new double[0];   // death‐phase scores, reused every tick
+    private final ArrayList<Creature> survivors = new ArrayList<>();   // birth‐phase scratch
+    private static final Comparator<Creature> BY_AGE = Comparator.comparingInt(Creature::getAge);
+    private PhaseMeter meter;             // per‐phase allocation and time, when measuring
+
+    // — Mate selection: neighbours in the age‐sorted list, or nearest in space (see pairNearest) —
+    public enum MateSelection { AGE_PAIRS, NEAREST }
+    static final int MATE_K      = 8;                      // candidates considered per creature
+    static final int MATE_RADIUS = 2 * Creature.PACK_RADIUS;
+    private static final ThreadLocal<KdTree.Neighbours> MATE_BUFFER =
+        ThreadLocal.withInitial(() -> new KdTree.Neighbours(MATE_K));
+    private MateSelection mateSelection = MateSelection.AGE_PAIRS;
+    private final Kinship kinship = new Kinship();
+    private double inbreedingAvoidance = 0;   // birth chance × (1 − this × relatedness)
+    private final KdTree mateTree = new KdTree();
+    private int[] mateX = new int[0], mateY = new int[0], mateSex = new int[0];
+    private int[] mateCandidates = new int[0];   // MATE_K per survivor, nearest first, −1 padded
+    private int[] matePairs = new int[0];        // survivor indices, two per pair
+    private boolean[] mated = new boolean[0];
+
+    // — Births pair by pair on the common pool (see breedPairs) —
+    private static final int BIRTH_CHUNK = 64;             // pairs per fork‐join task
+    private static final ThreadLocal<Random> BIRTH_RNG = ThreadLocal.withInitial(Random::new);
+    private boolean parallelBirths = false;
+    private double[] pairRelatedness = new double[0];
+    private boolean[] pairBorn = new boolean[0];
+    private NeuralNet[] childBrains = new NeuralNet[0];    // storage taken in pair order
+    private int[] childMemory = new int[0];
+    private Creature[] children = new Creature[0];         // each task fills its own range
+
+    // — Depletable food per cell (see FoodGrid); null while off —
+    private FoodGrid food = null;
+
+    // — Quiet creatures skip their turns (see SleepScheduler); null while off —
+    private SleepScheduler sleeper = null;
+
+    // — Dense cells advanced as counts instead of creatures (see MeanFieldGrid) —
+    private final MeanFieldGrid meanField;
+
+    // — Spatial partitioning (one process per rectangle, see HaloExchange) —
+    private WorldPartition partition = WorldPartition.whole();
+    int[] haloX = new int[0], haloY = new int[0];   // read-only mirrors of neighbours' border creatures
+    int haloCount = 0;
+    private final List<Creature> emigrants = new ArrayList<>();
+    
+    /**
+     * Builds a simulation with fresh random draws on the shared default
+     * terrain, so every GUI reset and launch maps the same cached world.
+     */
+    public Simulation(int initialPop, int genomeLength,
+                      double deathProbPerStep, double birthProbPerPair) {
+        this(initialPop, genomeLength, deathProbPerStep, birthProbPerPair,
+             new Random().nextLong(), Terrain.load(Terrain.DEFAULT_SEED));
+    }
+
+    public Simulation(int initialPop, int genomeLength,
+                      double deathProbPerStep, double birthProbPerPair, long seed) {
+        this(initialPop, genomeLength, deathProbPerStep, birthProbPerPair,
+             seed, Terrain.load(seed));
+    }
+
+    /**
+     * Builds a simulation whose every random draw comes from {@code seed}, on a
+     * terrain that may be shared with other instances (it is never mutated).
+     */
+    public Simulation(int initialPop, int genomeLength,
+                      double deathProbPerStep, double birthProbPerPair,
+                      long seed, Terrain terrain) {
+        this(initialPop, genomeLength, deathProbPerStep, birthProbPerPair,
+             seed, terrain, BrainMode.FIXED_MLP);
+    }
+
+    /** As above, with creatures controlled by brains of the given kind. */
+    public Simulation(int initialPop, int genomeLength,
+                      double deathProbPerStep, double birthProbPerPair,
+                      long seed, Terrain terrain, BrainMode brainMode) {
+        this.genomeLength     = genomeLength;
+        this.genetics         = new GeneticsTracker(genomeLength);
+        this.meanField        = new MeanFieldGrid(genomeLength);
+        this.deathProbPerStep = deathProbPerStep;
+        this.birthProbPerPair = birthProbPerPair;
+        this.seed             = seed;
+        this.rng              = new Random(seed);
+        this.events           = new Events(rng);
+        this.terrain          = terrain;
+        this.brainMode        = brainMode;
+        this.neat             = brainMode == BrainMode.NEAT
+            ? new NeatBrain.Registry(Creature.BRAIN_LAYERS[0], Creature.BRAIN_LAYERS[Creature.BRAIN_LAYERS.length - 1])
+            : null;
+        
+        // seed initial creatures
+        for (int i = 0; i < initialPop; i++) {
+            adopt(Creature.randomCreature(this, genomeLength));
+        }
+
+        // Define biomes in order so that getBiomeAt finds the first match:
+        biomes.clear();
+        // Desert in top-left quadrant
+        biomes.add(new Biome("Desert",
+                             0, 0,
+                             WORLD_W/2, WORLD_H/2,
+                             /*forageMod=*/0.2,
+                             /*deathMod=*/1.5));
+        // Oasis in center
+        biomes.add(new Biome("Oasis",
+                             WORLD_W/4, WORLD_H/4,
+                             WORLD_W/2, WORLD_H/2,
+                             /*forageMod=*/3.0,
+                             /*deathMod=*/0.9));
+        // Plains as catch-all
+        biomes.add(new Biome("Plains",
+                             0, 0,
+                             WORLD_W, WORLD_H,
+                             /*forageMod=*/1.0,
+                             /*deathMod=*/1.0));
+        // Ensure seasonal modifiers are applied for SPRING
+        applySeasonalModifiers();
+    }
+
+    public void run(int steps) {
+        for (int i = 0; i < steps; i++) {
+            step();
+            currentStep++;
+        }
+    }
+
+
+    
+    /** one full tick: events → regen → act → death → birth → aging */
+    void step() {
+        PhaseMeter m = meter;
+        if (m != null) m.start();
+        advanceSeason();
+        if (m != null) m.end(PhaseMeter.SEASON);
+        updateEvents();
+        if (m != null) m.end(PhaseMeter.EVENTS);
+        // 2b) food regrows and spreads before anyone forages
+        if (food != null) food.step(parallel);
+        if (m != null) m.end(PhaseMeter.FOOD);
+        SimulationObserver[] obs = observers;
+        actPhase(obs);
+        if (m != null) m.end(PhaseMeter.ACT);
+        deathPhase(obs);
+        if (m != null) m.end(PhaseMeter.DEATH);
+        birthPhase(obs);
+        if (m != null) m.end(PhaseMeter.BIRTH);
+        // 8) age all survivors
+        population.forEach(Creature::stepAge);
+        if (m != null) m.end(PhaseMeter.AGE);
+        // 8b) advance aggregate cells, absorb crowds, release cells that thinned out
+        if (meanField.isEnabled()) meanField.step(this);
+        if (m != null) m.end(PhaseMeter.AGGREGATE);
+        // 9) hand creatures that left our rectangle to the exchange
+        if (partition.cols * partition.rows > 1) emigrate(obs);
+        if (m != null) m.end(PhaseMeter.MIGRATE);
+        for (SimulationObserver o : obs) o.onTickEnd(this);
+        if (m != null) m.end(PhaseMeter.OBSERVERS);
+    }
+
+    // 1) Advance seasonal clock
+    private void advanceSeason() {
+        ticksIntoSeason++;
+        if (ticksIntoSeason >= seasonLength) {
+            ticksIntoSeason = 0;
+            currentSeason = nextSeason(currentSeason);
+            applySeasonalModifiers();
+            if (food != null) food.setSeason(biomes);
+            if (sleeper != null) sleeper.wakeAll();
+            if (bus.wants(SimulationEventBus.SEASON))
+                bus.publish(SimulationEventBus.SEASON, currentStep, currentSeason, 0);
+        }
+    }
+
+    // 2) Global events update
+    private void updateEvents() {
+        String eventBefore = events.getCurrentEventName();
+        events.update();
+        boolean eventChanged = !eventBefore.equals(events.getCurrentEventName());
+        if (eventChanged && sleeper != null) sleeper.wakeAll();
+        if (eventChanged && bus.wants(SimulationEventBus.EVENT)) {
+            boolean started = !events.getCurrentEventName().equals("None");
+            bus.publish(SimulationEventBus.EVENT, currentStep,
+                        started ? events.getCurrentEventName() : eventBefore, started ? 1 : 0);
+        }
+    }
+
+    /**
+     * 3) Creature actions (foraging, movement, learning), in list order. A
+     * creature that dies stays listed, skipped by everyone's sensing, until
+     * the loop is over, and the dead are then dropped in one pass.
+     */
+    private void actPhase(SimulationObserver[] obs) {
+        SleepScheduler zz = sleeper;
+        if (zz != null) zz.wakeDue(currentStep);
+        boolean anyDied = false;
+        for (int i = 0, n = population.size(); i < n; i++) {
+            Creature c = population.get(i);
+            int ox = c.getX(), oy = c.getY();
+            if (c.isAlive() && (c.wakeTick < 0 || !zz.doze(c, currentStep))) {   // starved in wakeDue
+                c.act(this);
+                if (zz != null && c.isAlive()) zz.consider(c, currentStep);
+            }
+            if (!c.isAlive()) {
+                anyDied = true;
+                genetics.remove(c);
+                for (SimulationObserver o : obs) o.onDeath(c);
+                if (bus.wants(SimulationEventBus.DEATH)) bus.publish(SimulationEventBus.DEATH, currentStep, c, 0);
+            } else if (obs.length > 0 && (c.getX() != ox || c.getY() != oy)) {
+                for (SimulationObserver o : obs) o.onMove(c, ox, oy);
+            }
+        }
+        if (zz != null) zz.acted(currentStep);
+        if (!anyDied) return;
+        int kept = 0;
+        for (int i = 0, n = population.size(); i < n; i++) {
+            Creature c = population.get(i);
+            if (c.isAlive()) population.set(kept++, c);
+        }
+        truncatePopulation(kept);
+    }
+
+    // 4) Death phase (old‐age + random, modified by biome)
+    private void deathPhase(SimulationObserver[] obs) {
+        double eventDeathMod = events.getDeathModifier();
+        int n = population.size();
+        double[] fit = evaluateFitness();
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            Creature c = population.get(i);
+            boolean old = c.getAge() > MAX_AGE;
+            Biome b = getBiomeAt(c.getX(), c.getY());
+            double ageFactor = 1.0 + AGE_DEATH_INCREASE_FACTOR * c.getAge()/MAX_AGE;
+            double fitRaw = fit[i];
+            double fitNorm = fitRaw / 100.0;
+            double fitnessScale = 1.0 - 0.5 * fitNorm;
+            double pDie = deathProbPerStep
+                        * eventDeathMod
+                        * b.deathModifier
+                        * ageFactor
+                        * fitnessScale;
+            boolean rand = rng.nextDouble() < pDie;
+            for (SimulationObserver o : obs) o.onEvaluated(c, fitRaw);
+            if (old || rand) {
+                c.die();
+                genetics.remove(c);
+                for (SimulationObserver o : obs) o.onDeath(c);
+                if (bus.wants(SimulationEventBus.DEATH)) bus.publish(SimulationEventBus.DEATH, currentStep, c, 0);
+            } else {
+                population.set(kept++, c);
+            }
+        }
+        truncatePopulation(kept);
+    }
+
+    // 5) Birth phase (always allowed, bonus if in high‐forage biome)
+    private void birthPhase(SimulationObserver[] obs) {
+        survivors.clear();
+        for (int i = 0, n = population.size(); i < n; i++) survivors.add(population.get(i));
+        survivors.sort(BY_AGE);
+        for (int i = 0; i < survivors.size(); i += JITTER_WINDOW) {
+            int end = Math.min(i+JITTER_WINDOW, survivors.size());
+            Collections.shuffle(survivors.subList(i,end), rng);
+        }
+        double eventBirthMod = events.getBirthModifier();
+        if (mateSelection == MateSelection.NEAREST) {
+            // an age pair is of opposite sex only half the time, a nearest pair always:
+            // halve the chance so the expected number of births stays comparable
+            int pairs = pairNearest(survivors);
+            if (parallelBirths) {
+                breedPairs(survivors, pairs, 0.5 * eventBirthMod, obs);
+            } else {
+                for (int p = 0; p < pairs; p++) {
+                    breed(survivors.get(matePairs[2*p]), survivors.get(matePairs[2*p + 1]), 0.5 * eventBirthMod, obs);
+                }
+            }
+        } else if (parallelBirths) {
+            breedPairs(survivors, agePairs(survivors), eventBirthMod, obs);
+        } else {
+            for (int i = 0; i + 1 < survivors.size(); i += 2) {
+                Creature a = survivors.get(i), b = survivors.get(i+1);
+                if (a.getSex() != b.getSex()) breed(a, b, eventBirthMod, obs);
+            }
+        }
+        survivors.clear();
+        reserveFitness(population.size());   // grow here, not in the next death phase
+    }
+
+    private void emigrate(SimulationObserver[] obs) {
+        int kept = 0;
+        for (int i = 0, n = population.size(); i < n; i++) {
+            Creature c = population.get(i);
+            if (partition.contains(c.getX(), c.getY())) {
+                population.set(kept++, c);
+                continue;
+            }
+            emigrants.add(c);
+            genetics.remove(c);
+            for (SimulationObserver o : obs) o.onDepart(c);
+        }
+        truncatePopulation(kept);
+    }
+
+    /** Drops the tail of the population list from {@code size} on, without a subList view. */
+    private void truncatePopulation(int size) {
+        for (int i = population.size() - 1; i >= size; i--) population.remove(i);
+    }
+
+    /**
+     * Scores every creature for the death phase. Scoring only reads the
+     * population, so in parallel mode large populations are scored on the
+     * common fork‐join pool; the random draws that follow stay sequential,
+     * so a seeded run gives the same result either way.
+     */
+    private double[] evaluateFitness() {
+        int n = population.size();
+        reserveFitness(n);
+        double[] fit = fitness;
+        if (parallel && n >= PARALLEL_MIN) {
+            IntStream.range(0, n).parallel().forEach(i -> fit[i] = population.get(i).getFitness(this));
+        } else {
+            for (int i = 0; i < n; i++) fit[i] = population.get(i).getFitness(this);
+        }
+        return fit;
+    }
+
+    private void reserveFitness(int n) {
+        if (fitness.length < n) fitness = new double[Math.max(n, fitness.length * 2)];
+    }
+
+    /** One mating attempt of an opposite‐sex pair; on success the child joins the population. */
+    private void breed(Creature a, Creature b, double eventBirthMod, SimulationObserver[] obs) {
+        double fchance = birthChance(a, b, eventBirthMod,
+                                     inbreedingAvoidance > 0 ? kinship.relatedness(a, b) : 0);
+        if (rng.nextDouble() < fchance) {
+            Creature child = a.mateWith(b, rng);
+            // spawn child at parents' midpoint
+            int cx = (a.getX() + b.getX())/2;
+            int cy = (a.getY() + b.getY())/2;
+            child.setPosition(cx, cy);
+            welcome(child, obs);
+        }
+    }
+
+    /** Adds a newborn to the population and tells the bus and the observers. */
+    private void welcome(Creature child, SimulationObserver[] obs) {
+        adopt(child);
+        if (bus.wants(SimulationEventBus.BIRTH))
+            bus.publish(SimulationEventBus.BIRTH, currentStep, child, 0);
+        if (child.pointMutations > 0 && bus.wants(SimulationEventBus.MUTATION))
+            bus.publish(SimulationEventBus.MUTATION, currentStep, child, child.pointMutations);
+        for (SimulationObserver o : obs) o.onBirth(child);
+    }
+
+    /**
+     * Chance that a and b have a child this tick. Only reads the population,
+     * so it is safe from any thread while nobody is being added or removed.
+     */
+    private double birthChance(Creature a, Creature b, double eventBirthMod, double relatedness) {
+        // base chance
+        double chance = birthProbPerPair * eventBirthMod;
+        //fitness modifier
+        double fitA = a.getFitness(this) / 100.0;
+        double fitB = b.getFitness(this) / 100.0;
+        double pairFit = (fitA + fitB) / 2.0;       // [0.01…1.0]
+        double fitnessScale = 1.0 + 0.5 * pairFit;  // [1.005…1.5]
+        double fchance = chance * fitnessScale;
+        // if both in a high‐forage biome (e.g. Oasis), boost chance
+        Biome ba = getBiomeAt(a.getX(), a.getY());
+        Biome bb = getBiomeAt(b.getX(), b.getY());
+        if (ba.forageModifier > 1.0 && bb.forageModifier > 1.0) {
+            fchance *= FOOD_BREED_BONUS;
+        }
+        if (inbreedingAvoidance > 0) {
+            fchance *= Math.max(0, 1 - inbreedingAvoidance * relatedness);
+        }
+        return fchance;
+    }
+
+    /** Neighbours in the age‐sorted list of opposite sex, as pairs in {@link #matePairs}. */
+    private int agePairs(List<Creature> survivors) {
+        int n = survivors.size();
+        if (matePairs.length < n) matePairs = new int[Math.max(n, matePairs.length * 2)];
+        int pairs = 0;
+        for (int i = 0; i + 1 < n; i += 2) {
+            if (survivors.get(i).getSex() == survivors.get(i+1).getSex()) continue;
+            matePairs[2 * pairs]     = i;
+            matePairs[2 * pairs + 1] = i + 1;
+            pairs++;
+        }
+        return pairs;
+    }
+
+    /**
+     * The birth phase with every pair on its own: pair p draws from a random
+     * stream seeded by one draw of the simulation's stream per tick and p,
+     * so whether it breeds and what its child looks like depend neither on
+     * the other pairs nor on the order they run in. That lets the rolls and
+     * the child construction (genome, brain crossover and mutation, memory)
+     * run in chunks of {@value #BIRTH_CHUNK} pairs on the common pool, each
+     * task writing only its own range of the per‐pair buffers. What is
+     * shared stays on this thread: relatedness (the kinship memo), taking
+     * brain and memory storage for the children in pair order, and finally
+     * adding them to the population, also in pair order. Every pair is
+     * scored against the population as it was before the first birth.
+     */
+    private void breedPairs(List<Creature> survivors, int pairs, double eventBirthMod, SimulationObserver[] obs) {
+        if (pairs == 0) return;
+        if (pairBorn.length < pairs) {
+            int cap = Math.max(pairs, pairBorn.length * 2);
+            pairRelatedness = new double[cap];
+            pairBorn        = new boolean[cap];
+            childBrains     = new NeuralNet[cap];
+            childMemory     = new int[cap];
+            children        = new Creature[cap];
+        }
+        long tickSeed = rng.nextLong();
+        int chunks = (pairs + BIRTH_CHUNK - 1) / BIRTH_CHUNK;
+
+        // 1) relatedness and the rolls
+        for (int p = 0; p < pairs; p++) {
+            pairRelatedness[p] = inbreedingAvoidance > 0
+                ? kinship.relatedness(survivors.get(matePairs[2*p]), survivors.get(matePairs[2*p + 1]))
+                : 0;
+        }
+        IntStream.range(0, chunks).parallel().forEach(k -> {
+            Random r = BIRTH_RNG.get();
+            for (int p = k * BIRTH_CHUNK, end = Math.min(pairs, p + BIRTH_CHUNK); p < end; p++) {
+                r.setSeed(pairSeed(tickSeed, 2 * p));
+                Creature a = survivors.get(matePairs[2*p]), b = survivors.get(matePairs[2*p + 1]);
+                pairBorn[p] = r.nextDouble() < birthChance(a, b, eventBirthMod, pairRelatedness[p]);
+            }
+        });
+
+        // 2) storage for every child, in pair order
+        for (int p = 0; p < pairs; p++) {
+            if (!pairBorn[p]) continue;
+            Creature a = survivors.get(matePairs[2*p]);
+            childBrains[p] = a.reserveChildBrain();
+            childMemory[p] = a.reserveChildMemory();
+        }
+
+        // 3) build the children; NEAT brains share the innovation registry, so those stay here
+        IntStream build = IntStream.range(0, chunks);
+        (brainMode == BrainMode.FIXED_MLP ? build.parallel() : build).forEach(k -> {
+            Random r = BIRTH_RNG.get();
+            for (int p = k * BIRTH_CHUNK, end = Math.min(pairs, p + BIRTH_CHUNK); p < end; p++) {
+                if (!pairBorn[p]) continue;
+                r.setSeed(pairSeed(tickSeed, 2 * p + 1));
+                Creature a = survivors.get(matePairs[2*p]), b = survivors.get(matePairs[2*p + 1]);
+                children[p] = a.mateWith(b, r, childBrains[p], childMemory[p]);
+            }
+        });
+
+        // 4) merge in pair order
+        for (int p = 0; p < pairs; p++) {
+            if (!pairBorn[p]) continue;
+            welcome(children[p], obs);
+            children[p] = null;
+            childBrains[p] = null;
+        }
+    }
+
+    /** Seed of stream {@code k} of a tick (SplitMix64 finaliser). */
+    private static long pairSeed(long tickSeed, int k) {
+        long z = tickSeed + (k + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Pairs survivors with partners close by: a k‐d tree over their
+     * positions is built once, every survivor looks up its {@link #MATE_K}
+     * nearest of the opposite sex within {@link #MATE_RADIUS}, and then, in
+     * list order, each still‐single survivor picks one of its still‐single
+     * candidates at random. The lookups are O(log N) each and only read the
+     * tree, so in parallel mode they run on the common pool, each worker with
+     * its own result buffer; the picks stay sequential, so seeded runs do not
+     * depend on the thread count.
+     *
+     * @return number of pairs, stored as survivor indices in {@link #matePairs}
+     */
+    private int pairNearest(List<Creature> survivors) {
+        int n = survivors.size();
+        if (mateX.length < n) {
+            int cap = Math.max(n, mateX.length * 2);
+            mateX = new int[cap]; mateY = new int[cap]; mateSex = new int[cap];
+            mateCandidates = new int[cap * MATE_K];
+            matePairs = new int[cap];
+            mated = new boolean[cap];
+        }
+        for (int i = 0; i < n; i++) {
+            Creature c = survivors.get(i);
+            mateX[i] = c.getX();
+            mateY[i] = c.getY();
+            mateSex[i] = c.getSex().ordinal();
+            mated[i] = false;
+        }
+        mateTree.build(mateX, mateY, mateSex, n);
+        if (parallel && n >= PARALLEL_MIN) {
+            IntStream.range(0, n).parallel().forEach(this::findMates);
+        } else {
+            for (int i = 0; i < n; i++) findMates(i);
+        }
+
+        int pairs = 0;
+        int[] open = new int[MATE_K];
+        for (int i = 0; i < n; i++) {
+            if (mated[i]) continue;
+            int m = 0;
+            for (int k = 0; k < MATE_K; k++) {
+                int j = mateCandidates[i * MATE_K + k];
+                if (j < 0) break;
+                if (!mated[j]) open[m++] = j;
+            }
+            if (m == 0) continue;
+            int j = open[m == 1 ? 0 : rng.nextInt(m)];
+            mated[i] = mated[j] = true;
+            matePairs[2 * pairs]     = i;
+            matePairs[2 * pairs + 1] = j;
+            pairs++;
+        }
+        return pairs;
+    }
+
+    /** Fills survivor {@code i}'s row of {@link #mateCandidates}; safe to call from any thread. */
+    private void findMates(int i) {
+        KdTree.Neighbours nb = MATE_BUFFER.get();
+        int opposite = 1 - mateSex[i];
+        mateTree.nearest(mateX[i], mateY[i], MATE_RADIUS, opposite, i, nb);
+        int row = i * MATE_K;
+        for (int k = 0; k < MATE_K; k++) {
+            mateCandidates[row + k] = k < nb.size ? nb.index[k] : -1;
+        }
+    }
+
+    /** Adds a creature to the population under a fresh id. */
+    private void adopt(Creature c) {
+        c.id = nextId++;
+        population.add(c);
+        genetics.add(c);
+    }
+
+    /** Returns the next season in the cycle. */
+    private Season nextSeason(Season s) {
+        switch (s) {
+            case SPRING: return Season.SUMMER;
+            case SUMMER: return Season.FALL;
+            case FALL:   return Season.WINTER;
+            case WINTER: return Season.SPRING;
+            default:     return Season.SPRING;
+        }
+    }
+    
+    /** Adjust each biome’s modifiers according to the current season. */
+    private void applySeasonalModifiers() {
+        setSeasonalModifiers();
+        bestBiome = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < biomes.size(); i++) {
+            Biome b = biomes.get(i);
+            double score = b.forageModifier / b.deathModifier;
+            if (score > bestScore) {
+                bestScore = score;
+                bestBiome = b;
+            }
+        }
+    }
+
+    private void setSeasonalModifiers() {
+        for (int i = 0; i < biomes.size(); i++) {
+            Biome b = biomes.get(i);
+            switch (currentSeason) {
+                case SPRING:
+                    switch (b.name) {
+                        case "Desert":
+                            b.forageModifier = 0.3;
+                            b.deathModifier  = 1.1;
+                            break;
+                        case "Oasis":
+                            b.forageModifier = 2.0;
+                            b.deathModifier  = 0.9;
+                            break;
+                        case "Plains":
+                            b.forageModifier = 1.2;
+                            b.deathModifier  = 0.8;
+                            break;
+                    }
+                    break;
+                case SUMMER:
+                    switch (b.name) {
+                        case "Desert":
+                            b.forageModifier = 0.1;
+                            b.deathModifier  = 1.5;
+                            break;
+                        case "Oasis":
+                            b.forageModifier = 3.0;
+                            b.deathModifier  = 0.7;
+                            break;
+                        case "Plains":
+                            b.forageModifier = 1.0;
+                            b.deathModifier  = 1.0;
+                            break;
+                    }
+                    break;
+                case FALL:
+                    switch (b.name) {
+                        case "Desert":
+                            b.forageModifier = 0.2;
+                            b.deathModifier  = 1.2;
+                            break;
+                        case "Oasis":
+                            b.forageModifier = 1.75;
+                            b.deathModifier  = 1.0;
+                            break;
+                        case "Plains":
+                            b.forageModifier = 1.0;
+                            b.deathModifier  = 0.9;
+                            break;
+                    }
+                    break;
+                case WINTER:
+                    switch (b.name) {
+                        case "Desert":
+                            b.forageModifier = 0.05;
+                            b.deathModifier  = 1.8;
+                            break;
+                        case "Oasis":
+                            b.forageModifier = 1.5;
+                            b.deathModifier  = 1.2;
+                            break;
+                        case "Plains":
+                            b.forageModifier = 0.8;
+                            b.deathModifier  = 1.3;
+                            break;
+                    }
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Returns a value in [0,1] at (x,y), where 0 = lowest elevation, 1 = highest.
+     * Coordinates are clamped to [0..WORLD_W-1]×[0..WORLD_H-1].
+     */
+    public double getHeight(int x, int y) {
+        return terrain.getHeight(x, y);
+    }
+    
+    public Biome getBiomeAt(int px, int py) {
+        for (int i = 0, n = biomes.size(); i < n; i++) {
+            Biome b = biomes.get(i);
+            if (b.contains(px, py)) {
+                return b;
+            }
+        }
+        return biomes.get(biomes.size() - 1);
+    }
+    
+    /**
+     * Restricts this simulation to one rectangle of a partitioned world and
+     * drops the initial creatures that some other partition owns, handing
+     * their brain and memory slots back for the births to come. Every process
+     * builds the same seeded initial population, so the split is consistent.
+     */
+    public void setPartition(WorldPartition p) {
+        this.partition = p;
+        population.removeIf(c -> {
+            if (p.contains(c.getX(), c.getY())) return false;
+            genetics.remove(c);
+            c.die();
+            return true;
+        });
+    }
+
+    public WorldPartition getPartition()   { return partition; }
+
+    /**
+     * Lets creatures that keep their heading without reward sleep and coast
+     * until something they sense could turn them; see {@link SleepScheduler}.
+     * Off by default: results stay statistically the same, but the random
+     * stream differs from dense stepping.
+     */
+    public void setSleeping(boolean on) {
+        if (on == (sleeper != null)) return;
+        if (on) {
+            sleeper = new SleepScheduler(this);
+            addObserver(sleeper);
+        } else {
+            sleeper.wakeEveryone(population);
+            removeObserver(sleeper);
+            sleeper = null;
+        }
+    }
+
+    public boolean isSleeping()            { return sleeper != null; }
+    /** Creatures currently asleep; 0 while sleeping is off. */
+    public int getSleepingCount()          { return sleeper == null ? 0 : sleeper.asleep(); }
+    SleepScheduler getSleepScheduler()     { return sleeper; }
+
+    /**
+     * Lets grid cells holding at least {@code threshold} creatures switch to
+     * an aggregate of counts advanced statistically, so dense booms cost per
+     * cell rather than per creature; see {@link MeanFieldGrid} for what is
+     * lost. 0 (the default) turns aggregation off and releases every cell.
+     */
+    public void setAggregationThreshold(int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("aggregation threshold must be >= 0, got " + threshold);
+        meanField.setThreshold(threshold);
+        if (threshold == 0) meanField.releaseAll(this);
+    }
+
+    public int getAggregationThreshold()   { return meanField.getThreshold(); }
+    /** Creatures currently held as counts in aggregate cells, not in {@link #getCreatures()}. */
+    public int getAggregatedCount()        { return meanField.size(); }
+    /** Individuals plus aggregated creatures. */
+    public int getTotalPopulation()        { return population.size() + meanField.size(); }
+    MeanFieldGrid getMeanField()           { return meanField; }
+
+    /**
+     * How many ticks each brain buffers its non‐zero rewards before writing
+     * its weights; 1 (the default) updates every tick as before.
+     */
+    public void setRewardBatchTicks(int ticks) {
+        if (ticks < 1) throw new IllegalArgumentException("reward batch must be >= 1, got " + ticks);
+        this.rewardBatchTicks = ticks;
+    }
+
+    public int getRewardBatchTicks()       { return rewardBatchTicks; }
+
+    /** Lets the death phase score creatures on several cores; results are unchanged. */
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+    public boolean isParallel()            { return parallel; }
+
+    /**
+     * Makes food a field that foraging depletes and that regrows per biome
+     * and season (see {@link FoodGrid}) instead of an endless supply. Turning
+     * it on starts every cell full; off discards the grid. Off by default.
+     */
+    public void setFoodGrid(boolean on) {
+        if (on == (food != null)) return;
+        food = on ? FoodGrid.forWorld(this) : null;
+        if (sleeper != null) sleeper.wakeAll();   // naps drew their forage at the old rates
+    }
+
+    public boolean isFoodGrid()            { return food != null; }
+    FoodGrid getFood()                     { return food; }
+
+    /**
+     * Runs the birth phase pair by pair on the common pool (see
+     * {@link #breedPairs}). Each pair draws from its own stream, so a seeded
+     * run gives the same result on any number of cores, but not the same as
+     * with this off, where pairs draw one after another from the
+     * simulation's stream. Off by default.
+     */
+    public void setParallelBirths(boolean on) { this.parallelBirths = on; }
+    public boolean isParallelBirths()      { return parallelBirths; }
+
+    /** Measures each phase of every following tick into {@code meter}; null stops measuring. */
+    void setPhaseMeter(PhaseMeter meter)   { this.meter = meter; }
+
+    /**
+     * How the birth phase forms pairs: {@code AGE_PAIRS} (the default) pairs
+     * neighbours in the age‐sorted survivor list wherever they stand;
+     * {@code NEAREST} pairs each creature with one of its nearest
+     * opposite‐sex neighbours, so mating follows who is actually close.
+     */
+    public void setMateSelection(MateSelection mode) { this.mateSelection = mode; }
+    public MateSelection getMateSelection() { return mateSelection; }
+
+    /**
+     * Makes related pairs less likely to breed: a pair's birth chance is
+     * scaled by 1 − {@code strength} × their relatedness, so with strength 1
+     * full siblings breed at half the rate and clones not at all. 0, the
+     * default, turns the kinship check off.
+     */
+    public void setInbreedingAvoidance(double strength) {
+        if (strength < 0 || strength > 1) throw new IllegalArgumentException("strength must be in [0, 1], got " + strength);
+        this.inbreedingAvoidance = strength;
+    }
+
+    public double getInbreedingAvoidance()  { return inbreedingAvoidance; }
+
+    /**
+     * Opts into {@link FastMath}'s approximate tanh for every brain. Faster,
+     * but runs diverge from strict runs of the same seed; see FastMathCheck.
+     */
+    public void setFastMath(boolean fastMath) { this.fastMath = fastMath; }
+    public boolean isFastMath()            { return fastMath; }
+
+    /**
+     * Makes creatures sense the way to the season's best biome along the
+     * cheapest path over the terrain (a {@link FlowField}, built once per
+     * season) instead of straight at its centre. Changes behaviour, so runs
+     * differ from runs without it.
+     */
+    public void setFlowSensing(boolean flowSensing) { this.flowSensing = flowSensing; }
+    public boolean isFlowSensing()         { return flowSensing; }
+
+    /** The season's best biome: highest forage to death modifier ratio, first on ties. */
+    Biome getBestBiome()                   { return bestBiome; }
+
+    /** This season's flow field when flow sensing is on, otherwise null. */
+    FlowField getFlowField() {
+        if (!flowSensing) return null;
+        int s = currentSeason.ordinal();
+        if (flowFields[s] == null) flowFields[s] = FlowField.compute(this, bestBiome, parallel);
+        return flowFields[s];
+    }
+
+    /**
+     * Replaces the halo with the first {@code n} positions of the given arrays,
+     * which must not be the ones currently held: the cells of the old halo are
+     * stamped for sleepers as well as the new.
+     */
+    void setHalo(int[] xs, int[] ys, int n) {
+        if (sleeper != null) {
+            sleeper.touchAll(haloX, haloY, haloCount);
+            sleeper.touchAll(xs, ys, n);
+        }
+        haloX = xs;
+        haloY = ys;
+        haloCount = n;
+    }
+
+    /** Number of halo creatures within {@code r} of (x,y). */
+    int countHaloWithin(int x, int y, int r) {
+        int n = 0;
+        for (int h = 0; h < haloCount; h++) {
+            int dx = haloX[h] - x, dy = haloY[h] - y;
+            if (dx*dx + dy*dy <= r*r) n++;
+        }
+        return n;
+    }
+
+    /** Creatures that crossed out of this partition during the last tick; the list is live. */
+    List<Creature> getEmigrants()          { return emigrants; }
+
+    /** Adopts a creature that migrated in from a neighbouring partition or left an aggregate cell. */
+    void immigrate(Creature c) {
+        adopt(c);
+        for (SimulationObserver o : observers) o.onArrive(c);
+    }
+
+    /** A creature the mean‐field grid took in as counts; the caller removes it from the population. */
+    void absorbed(Creature c) {
+        genetics.remove(c);
+        for (SimulationObserver o : observers) o.onDepart(c);
+        c.die();
+    }
+
+    /** Registers an observer; it is told about changes from the next tick on. */
+    public void addObserver(SimulationObserver o) {
+        observers = Arrays.copyOf(observers, observers.length + 1);
+        observers[observers.length - 1] = o;
+    }
+
+    public void removeObserver(SimulationObserver o) {
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i] == o) {
+                SimulationObserver[] rest = new SimulationObserver[observers.length - 1];
+                System.arraycopy(observers, 0, rest, 0, i);
+                System.arraycopy(observers, i + 1, rest, i, rest.length - i);
+                observers = rest;
+                return;
+            }
+        }
+    }
+
+    public int getCurrentStep()           { return currentStep; }
+    double getDeathProbPerStep()          { return deathProbPerStep; }
+    double getBirthProbPerPair()          { return birthProbPerPair; }
+    public List<Creature> getCreatures()  { return Collections.unmodifiableList(population); }
+    public Events getEvents()             { return events; }
+    public SimulationEventBus getEventBus() { return bus; }
+    /** Allele and diversity statistics of the current population, kept up to date every tick. */
+    public GeneticsTracker getGenetics()   { return genetics; }
+    /** Kinship, inbreeding and common‐ancestor queries over this run's lineage. */
+    public Kinship getKinship()            { return kinship; }
+    public String getCurrentEventName()   { return events.getCurrentEventName(); }
+    public List<Biome> getBiomes() 		  { return Collections.unmodifiableList(biomes);}
+    public Season getCurrentSeason()       { return currentSeason; }
+    public Terrain getTerrain()            { return terrain; }
+    BrainArena getBrainArena()             { return brains; }
+    public BrainMode getBrainMode()        { return brainMode; }
+
+    /** A brain written by {@link Brain#writeTo} in a partition of the same brain mode. */
+    Brain readBrain(DataInput in) throws IOException {
+        if (brainMode == BrainMode.NEAT) {
+            return NeatBrain.readFrom(in, neat);
+        }
+        return NeuralNet.readFrom(in, brains);
+    }
+
+    /** A freshly randomised brain for a root creature, of this simulation's kind. */
+    Brain newRootBrain() {
+        if (brainMode == BrainMode.NEAT) {
+            return NeatBrain.minimal(neat, rng);
+        }
+        NeuralNet net = brains.acquire();
+        net.randomize(rng);
+        return net;
+    }
+    MemoryBank getMemoryBank()             { return memories; }
+    public long getSeed()                  { return seed; }
+    /** The simulation's own random stream; creatures draw from it during their turn. */
+    Random random()                        { return rng; }
+    
+    public String getCreatureReport() {
+        StringBuilder sb = new StringBuilder("Step ").append(currentStep).append("\n");
+        population.forEach(c -> sb.append(c).append("\n"));
+        return sb.toString();
+    }
+    private int clamp(int v, int lo, int hi) {
+        if (v < lo) return lo;
+        if (v > hi) return hi;
+        return v;
+    }
+}
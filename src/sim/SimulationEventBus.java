@@ -0,0 +1,209 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Typed stream of what happens in a {@link Simulation}: births, deaths,
+ * genome mutations, season changes and world events.
+ *
+ * <p>The simulation thread is the only producer. Every subscription owns a
+ * single‐producer/single‐consumer ring, so publishing is a few array writes
+ * and one ordered store per interested subscriber, with no locks and no
+ * allocation; event types nobody subscribed to cost one volatile read.
+ * Consumers on any thread call {@link Subscription#poll} and receive
+ * everything waiting as one {@link Batch}.
+ *
+ * <p>When a ring is full the subscription's {@link Policy} decides:
+ * {@code DROP} discards the new event, {@code BLOCK} stalls the tick until
+ * the consumer catches up, and {@code SAMPLE} thins events to one in
+ * {@code sampleEvery} once the ring is half full (and drops when full).
+ * Dropped events are counted.
+ */
+public final class SimulationEventBus {
+    /** Event type bits, combined into subscription masks. */
+    public static final int BIRTH = 1, DEATH = 2, MUTATION = 4, SEASON = 8, EVENT = 16;
+    public static final int ALL = BIRTH | DEATH | MUTATION | SEASON | EVENT;
+
+    public enum Policy { DROP, BLOCK, SAMPLE }
+
+    /** Receives events in batches; the batch is only valid during the call. */
+    public interface Listener {
+        void onEvents(Batch batch);
+    }
+
+    private volatile Subscription[] subs = new Subscription[0];
+    private volatile int mask = 0;            // union of the live subscriptions' masks
+
+    /**
+     * Subscribes {@code listener} to the event types in {@code typeMask}.
+     * Subscribing a listener that is already subscribed returns its existing
+     * handle unchanged, so repeated calls do not pile up.
+     *
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public synchronized Subscription subscribe(Listener listener, int typeMask, Policy policy, int capacity) {
+        for (Subscription s : subs) {
+            if (s.listener == listener) return s;
+        }
+        Subscription s = new Subscription(this, listener, typeMask, policy, capacity);
+        Subscription[] next = Arrays.copyOf(subs, subs.length + 1);
+        next[subs.length] = s;
+        subs = next;
+        mask |= typeMask;
+        return s;
+    }
+
+    private synchronized void unsubscribe(Subscription s) {
+        int m = 0, k = 0;
+        Subscription[] next = new Subscription[subs.length];
+        for (Subscription o : subs) {
+            if (o != s) {
+                next[k++] = o;
+                m |= o.typeMask;
+            }
+        }
+        subs = Arrays.copyOf(next, k);
+        mask = m;
+    }
+
+    /** True if some subscription wants events of {@code type}; check before building an event. */
+    boolean wants(int type) {
+        return (mask & type) != 0;
+    }
+
+    /** Called by the simulation thread only. */
+    void publish(int type, int tick, Object subject, int value) {
+        for (Subscription s : subs) {
+            if ((s.typeMask & type) != 0) s.offer(type, tick, subject, value);
+        }
+    }
+
+    /** A consumer's view of the events delivered by one {@link Subscription#poll}. */
+    public static final class Batch {
+        private Subscription sub;
+        private long start;
+        private int size;
+
+        public int size()            { return size; }
+        public int type(int i)       { return sub.types[slot(i)]; }
+        public int tick(int i)       { return sub.ticks[slot(i)]; }
+        /** The creature, {@link Simulation.Season} or event name the event is about. */
+        public Object subject(int i) { return sub.subjects[slot(i)]; }
+        /**
+         * Extra detail: mutated loci for MUTATION, 1 for an event starting
+         * and 0 for one ending; otherwise 0.
+         */
+        public int value(int i)      { return sub.values[slot(i)]; }
+
+        public Creature creature(int i) {
+            Object o = subject(i);
+            return o instanceof Creature ? (Creature) o : null;
+        }
+
+        private int slot(int i) {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+            return (int) (start + i) & sub.ringMask;
+        }
+    }
+
+    /** Handle for one listener's ring. {@link #close()} may be called any number of times. */
+    public static final class Subscription implements AutoCloseable {
+        private static final int SAMPLE_EVERY = 8;
+
+        private final SimulationEventBus bus;
+        private final Listener listener;
+        private final int typeMask;
+        private final Policy policy;
+        private final int ringMask;
+        private final int[] types, ticks, values;
+        private final Object[] subjects;
+        private final AtomicLong head = new AtomicLong();   // next slot to read, consumer‐owned
+        private final AtomicLong tail = new AtomicLong();   // next slot to write, producer‐owned
+        private long headCache = 0;                          // producer's last view of head
+        private int sampleCounter = 0;
+        private volatile long dropped = 0;
+        private volatile boolean closed = false;
+        private final Batch batch = new Batch();
+
+        private Subscription(SimulationEventBus bus, Listener listener, int typeMask, Policy policy, int capacity) {
+            int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            this.bus      = bus;
+            this.listener = listener;
+            this.typeMask = typeMask;
+            this.policy   = policy;
+            this.ringMask = cap - 1;
+            this.types    = new int[cap];
+            this.ticks    = new int[cap];
+            this.values   = new int[cap];
+            this.subjects = new Object[cap];
+        }
+
+        private void offer(int type, int tick, Object subject, int value) {
+            long t = tail.get();
+            int cap = ringMask + 1;
+            long used = t - headCache;
+            if (used >= cap / 2) {
+                headCache = head.get();
+                used = t - headCache;
+                if (policy == Policy.SAMPLE && used >= cap / 2 && ++sampleCounter % SAMPLE_EVERY != 0) {
+                    dropped++;
+                    return;
+                }
+            }
+            while (used >= cap) {
+                if (policy != Policy.BLOCK || closed) {
+                    dropped++;
+                    return;
+                }
+                LockSupport.parkNanos(50_000);
+                headCache = head.get();
+                used = t - headCache;
+            }
+            int i = (int) t & ringMask;
+            types[i]    = type;
+            ticks[i]    = tick;
+            subjects[i] = subject;
+            values[i]   = value;
+            tail.lazySet(t + 1);                  // publish the slot to the consumer
+        }
+
+        /**
+         * Hands every waiting event (at most {@code max}) to the listener as
+         * one batch and frees their slots. Call from one consumer thread.
+         *
+         * @return number of events delivered
+         */
+        public int poll(int max) {
+            long h = head.get();
+            long t = tail.get();
+            int n = (int) Math.min(t - h, max);
+            if (n <= 0) return 0;
+            batch.sub   = this;
+            batch.start = h;
+            batch.size  = n;
+            try {
+                listener.onEvents(batch);
+            } finally {
+                for (long k = h; k < h + n; k++) subjects[(int) k & ringMask] = null;
+                batch.size = 0;
+                head.lazySet(h + n);
+            }
+            return n;
+        }
+
+        public int poll()             { return poll(Integer.MAX_VALUE); }
+
+        /** Events lost to a full ring or to sampling. */
+        public long getDropped()      { return dropped; }
+        public boolean isClosed()     { return closed; }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            bus.unsubscribe(this);
+        }
+    }
+}
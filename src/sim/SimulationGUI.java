@@ -1,316 +1,638 @@
-package sim;
-
-import javax.swing.*;
-import java.awt.*;
-import java.util.List;
-import javax.swing.event.ListSelectionEvent;
-import javax.swing.event.ListSelectionListener;
-
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartPanel;
-import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
-
-public class SimulationGUI extends JFrame {
-    private static final int WINDOW_W = 800;
-    private static final int WINDOW_H = 600;
-
-    // Grab the Simulation instance from Main
-    private Simulation simulation = Main.getSimulationInstance();
-    private final MutationVisualizer viz = new MutationVisualizer();
-    private SimulationPanel simPanel;
-    private FamilyTreePanel familyPanel = new FamilyTreePanel();
-    private final DefaultListModel<Creature> listModel = new DefaultListModel<>();
-    private final JList<Creature> creatureList = new JList<>(listModel);
-    private JTextArea infoArea;
-    private JButton startBtn, pauseBtn, resetBtn, stepBtn;
-    private JLabel stepLabel, seasonLabel;
-    private Timer timer;
-
-    // — Statistics chart (JFreeChart) —
-    private XYSeries popSeries;     // series for population size
-    private XYSeries fitSeries;     // series for average fitness
-    private XYSeriesCollection dataset;
-    private ChartPanel chartPanel;
-    
-    public SimulationGUI() {
-        super("Creature Simulation GUI");
-
-        // Tab 1: simulation view
-        simPanel = new SimulationPanel();
-        simPanel.setPreferredSize(new Dimension(WINDOW_W, WINDOW_H));
-        
-        // Tab 2: Family Tree view
-       // familyPanel = new FamilyTreePanel();
-        creatureList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        creatureList.addListSelectionListener(new ListSelectionListener() {
-            @Override
-            public void valueChanged(ListSelectionEvent e) {
-                if (!e.getValueIsAdjusting()) {
-                    Creature sel = creatureList.getSelectedValue();
-                    if (sel != null) {
-                        familyPanel.showLineage(sel);
-                    }
-                }
-            }
-        });
-        JScrollPane listScroll = new JScrollPane(creatureList);
-        listScroll.setPreferredSize(new Dimension(200, WINDOW_H));
-        JPanel familyTab = new JPanel(new BorderLayout());
-        familyTab.add(listScroll, BorderLayout.WEST);
-        familyTab.add(familyPanel, BorderLayout.CENTER);
-        
-        // Tab 3: textual info
-        infoArea = new JTextArea();
-        infoArea.setEditable(false);
-        JScrollPane infoScroll = new JScrollPane(infoArea);
-
-        // 4) Build the Stats tab (JFreeChart line chart)
-        popSeries = new XYSeries("Population");
-        fitSeries = new XYSeries("Avg. Fitness");
-        dataset = new XYSeriesCollection();
-        dataset.addSeries(popSeries);
-        dataset.addSeries(fitSeries);
-
-        JFreeChart lineChart = ChartFactory.createXYLineChart(
-            "Population & Fitness Over Time",
-            "Step",
-            "Value",
-            dataset,
-            PlotOrientation.VERTICAL,
-            true,   // legend
-            false,  // tooltips
-            false   // URLs
-        );
-        
-        chartPanel = new ChartPanel(lineChart);
-        chartPanel.setPreferredSize(new Dimension(WINDOW_W, WINDOW_H));
-        
-        JTabbedPane tabs = new JTabbedPane();
-        tabs.addTab("Simulation", simPanel);
-        tabs.addTab("Family-Tree", familyTab);
-        tabs.addTab("Info", infoScroll);
-        tabs.addTab("Stats",       chartPanel);
-
-        // 5) Season label (displays current season)
-        seasonLabel = new JLabel("Season: " + simulation.getCurrentSeason());
-        seasonLabel.setFont(seasonLabel.getFont().deriveFont(Font.BOLD, 16f));
-        
-        // Controls
-        startBtn = new JButton("Start");
-        pauseBtn = new JButton("Pause");
-        resetBtn = new JButton("Reset");
-        stepBtn  = new JButton("Step");
-        stepLabel = new JLabel("Step: 0");
-
-        startBtn.addActionListener(e -> timer.start());
-        pauseBtn.addActionListener(e -> timer.stop());
-        resetBtn.addActionListener(e -> {
-            timer.stop();
-            simulation = new Simulation(150, 10, 0.006, 0.025);
-            updateStepLabel();
-            simPanel.repaint();
-            updateInfoArea();
-            simulation.addMutationListener(viz::registerMutation);
-            refreshCreatureList();
-            // Clear the chart series:
-            popSeries.clear();
-            fitSeries.clear();
-        });
-        stepBtn.addActionListener(e -> {
-            simulation.run(1);
-            updateStepLabel();
-            simPanel.repaint();
-            updateInfoArea();
-            simulation.addMutationListener(viz::registerMutation);
-            refreshCreatureList();
-        });
-
-        JPanel controls = new JPanel();
-        controls.add(startBtn);
-        controls.add(pauseBtn);
-        controls.add(resetBtn);
-        controls.add(stepBtn);
-        controls.add(stepLabel);
-
-        // Layout
-        getContentPane().setLayout(new BorderLayout());
-        getContentPane().add(tabs,     BorderLayout.CENTER);
-        getContentPane().add(controls, BorderLayout.SOUTH);
-
-        // Timer (~30 FPS)
-        timer = new Timer(33, e -> {
-        	simulation.addMutationListener(viz::registerMutation);
-        	viz.tick(); 
-        	simulation.run(1);
-            updateStepLabel();
-            simPanel.repaint();
-            updateInfoArea();
-            refreshCreatureList();
-            
-            // Append new data point to the chart
-            int step = simulation.getCurrentStep();
-            int popSize = simulation.getCreatures().size();
-            popSeries.add(step, popSize);
-
-            // Compute average fitness
-            double sumFit = 0;
-            for (Creature c : simulation.getCreatures()) {
-                sumFit += c.getFitness(simulation);
-            }
-            double avgFit = simulation.getCreatures().isEmpty() ? 0 : sumFit / simulation.getCreatures().size();
-            fitSeries.add(step, avgFit);
-        
-        });
-
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        pack();
-        setLocationRelativeTo(null);
-        refreshCreatureList();
-        updateInfoArea();
-        
-    }
-
-    private void refreshCreatureList() {
-        listModel.clear();
-        for (Creature c : simulation.getCreatures()) {
-            listModel.addElement(c);
-        }
-        if (!listModel.isEmpty()) {
-            creatureList.setSelectedIndex(0);
-        }
-    }
-    
-    private void updateStepLabel() {
-        stepLabel.setText("Step: " + simulation.getCurrentStep());
-    }
-
-    /** Update season display. */
-    private void updateSeasonLabel() {
-        seasonLabel.setText("Season: " + simulation.getCurrentSeason());
-    }
-    
-    private void updateInfoArea() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Step ").append(simulation.getCurrentStep()).append("\n\n");
-        sb.append("Season: ").append(simulation.getCurrentSeason()).append("\n\n");
-        sb.append("Biomes:\n");
-        for (Biome b : simulation.getBiomes()) {
-        	 long count = simulation.getCreatures().stream()
-        	            .filter(c -> simulation.getBiomeAt(c.getX(), c.getY()) == b)
-        	            .count();
-        	        sb.append(String.format(
-        	            "  %s @(%d,%d %dx%d) — forage×%.2f, death×%.2f, creatures=%d%n",
-        	            b.name, b.x, b.y, b.width, b.height,
-        	            b.forageModifier, b.deathModifier, count
-        	        ));
-        	    }
-        
-        sb.append("\nCreatures:\n");
-        for (Creature c : simulation.getCreatures()) {
-        	double f = c.getFitness(simulation);
-            sb.append(String.format("  #%d: (%d,%d) Age:%d Hunger:%d%n Fitness:%.1f%n",
-                         simulation.getCreatures().indexOf(c),
-                         c.getX(), c.getY(), c.getAge(), /*c.getHunger()*/0, f));
-        }
-        infoArea.setText(sb.toString());
-        infoArea.setCaretPosition(0);
-    }
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new SimulationGUI().setVisible(true));
-    }
-
-    /**
-     * Panel that draws food patches and creatures in 2D space.
-     */
-    private class SimulationPanel extends JPanel {
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-
-            Simulation sim = simulation; // from outer class
-
-           
-            // 1) Draw the Plains base (always full size)
-            g.setColor(new Color(173, 216, 230));
-            g.fillRect(0, 0, WINDOW_W, WINDOW_H);
-
-            // 2) Draw the other biomes (Desert and Oasis) on top
-            for (Biome b : simulation.getBiomes()) {
-                if (b.name.equals("Plains")) continue;  // skip, already drawn
-            // Draw biomes
-                Color base;
-                switch (b.name) {
-                    case "Desert": base = new Color(236, 182, 142); break;
-                    case "Oasis":  base = new Color(9, 148, 9); break;
-                    case "Plains": base = new Color(2, 94, 123); break;
-                    default:       base = Color.LIGHT_GRAY;          break;
-                }
-                Color fill = seasonTint(base, simulation.getCurrentSeason());
-                g.setColor(fill);
-                g.fillRect(b.x, b.y, b.width, b.height);
-            }
-            
-            // 1) Draw elevation as a semi‐transparent grayscale overlay
-            Graphics2D g2 = (Graphics2D) g.create();
-            // We’ll sample every 10×10 pixels to lighten the drawing load:
-            int step = 1;
-            for (int i = 0; i < Simulation.WORLD_W; i += step) {
-                for (int j = 0; j < Simulation.WORLD_H; j += step) {
-                    double h = sim.getHeight(i, j); // [0…1]
-                    // Map to alpha in [0…100] (0 = no overlay, 100 = darkest)
-                    int alpha = (int) (h * 200);
-                    alpha = Math.min(200, Math.max(0, alpha));
-                    g2.setColor(new Color(0, 0, 0, alpha));
-                    g2.fillRect(i, j, step, step);
-                }
-            }
-            g2.dispose();
-
-            // Draw creatures
-            for (Creature c : simulation.getCreatures()) {
-                float ageRatio = Math.min(1f, c.getAge() / 100f);
-                float hue = 0.33f * (1f - ageRatio);
-                // get possibly‐highlighted color
-                Color baseColor = Color.getHSBColor(hue, 1f, 1f);
-                Color col = viz.getColor(c, baseColor);
-                
-                g.setColor(col);
-                g.fillOval(c.getX() - 5, c.getY() - 5, 10, 10);
-            }
-
-            // Draw current event
-            g.setColor(Color.BLACK);
-            g.drawString("Event: " + simulation.getCurrentEventName(),
-                         20, getHeight() - 20);
-        }
-
-    }
-    /**
-     * Returns a seasonally‐tinted version of the given color:
-     * - In SUMMER → brighten by 15%
-     * - In WINTER → darken by 25%
-     * - In SPRING/FALL → no change
-     */
-    private Color seasonTint(Color c, Simulation.Season season) {
-        float[] hsb = Color.RGBtoHSB(c.getRed(), c.getGreen(), c.getBlue(), null);
-        switch (season) {
-            case SUMMER:
-                // Increase brightness up to 1.0
-                hsb[2] = Math.min(1f, hsb[2] * 1.15f);
-                break;
-            case WINTER:
-                // Decrease brightness
-                hsb[2] = Math.max(0f, hsb[2] * 0.75f);
-                break;
-            default:
-                // SPRING/FALL: no change
-                break;
-        }
-        return Color.getHSBColor(hsb[0], hsb[1], hsb[2]);
-    }
-}
-
-
+package sim;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+public class SimulationGUI extends JFrame {
+    private static final int WINDOW_W = 800;
+    private static final int WINDOW_H = 600;
+
+    // — Speed control —
+    private static final String[] SPEEDS = { "1x", "4x", "16x", "64x", "Max" };
+    private static final int FRAME_MS = 33;             // ~30 FPS
+    private static final long FRAME_BUDGET_NANOS = 25_000_000L;  // sim share of a "Max" frame
+    private static final int FAST_STATS_EVERY = 10;     // chart sample interval while fast‐forwarding
+    private static final int FAST_UI_EVERY_FRAMES = 15; // list/info refresh interval while fast‐forwarding
+
+    // Grab the Simulation instance from Main
+    private Simulation simulation = Main.getSimulationInstance();
+    private final MutationVisualizer viz = new MutationVisualizer();
+    // every birth carries a freshly mutated brain, so births drive the highlight
+    private final SimulationEventBus.Listener birthHighlighter = batch -> {
+        for (int i = 0; i < batch.size(); i++) viz.registerMutation(batch.creature(i));
+    };
+    private SimulationEventBus.Subscription births;
+    private SimulationPanel simPanel;
+    private FamilyTreePanel familyPanel = new FamilyTreePanel();
+    private final DefaultListModel<Creature> listModel = new DefaultListModel<>();
+    private final JList<Creature> creatureList = new JList<>(listModel);
+    private JTextArea infoArea;
+    private JButton startBtn, pauseBtn, resetBtn, stepBtn;
+    private JLabel stepLabel, seasonLabel;
+    private Timer timer;
+    private JComboBox<String> speedBox;
+    private int ticksPerFrame = 1;     // 0 = as many as fit in FRAME_BUDGET_NANOS
+    private int frameCount = 0;
+    private BufferedImage terrainOverlay;   // elevation shading, rebuilt per Simulation
+
+    // — Heatmap overlay —
+    private static final String[] HEATMAPS = { "Off", "Density", "Fitness", "Hunger" };
+    private static final double TRAIL_DECAY = 0.95;
+    private static final int AGGREGATE_THRESHOLD = 40;   // creatures per mean‐field cell
+    private JCheckBox aggregateBox;
+    private JCheckBox sleepBox;
+    private JCheckBox flowBox;
+    private JCheckBox foodBox;
+    private JComboBox<String> heatmapBox;
+    private JCheckBox trailsBox;
+    private HeatmapLayer heatmap;           // null while the overlay is off
+
+    // — Recording and replay —
+    private static final int REPLAY_KEYFRAME_EVERY = 1000;
+    private JToggleButton recordBtn;
+    private JButton replayBtn;
+    private JSlider replaySlider;
+    private ReplayRecorder recorder;        // non-null while recording
+    private ReplayReader replay;            // non-null in replay mode
+
+    // — Statistics chart (JFreeChart) —
+    private XYSeries popSeries;     // series for population size
+    private XYSeries fitSeries;     // series for average fitness
+    private XYSeriesCollection dataset;
+    private ChartPanel chartPanel;
+    private XYSeries hetSeries;      // mean expected heterozygosity
+    private XYSeries distinctSeries; // distinct genomes / population
+    private final DefaultCategoryDataset alleleData = new DefaultCategoryDataset();
+    
+    public SimulationGUI() {
+        super("Creature Simulation GUI");
+
+        // Tab 1: simulation view
+        simPanel = new SimulationPanel();
+        births = subscribeBirths(simulation);
+        simPanel.setPreferredSize(new Dimension(WINDOW_W, WINDOW_H));
+        
+        // Tab 2: Family Tree view
+       // familyPanel = new FamilyTreePanel();
+        creatureList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        creatureList.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                if (!e.getValueIsAdjusting()) {
+                    Creature sel = creatureList.getSelectedValue();
+                    if (sel != null) {
+                        familyPanel.showLineage(sel);
+                    }
+                }
+            }
+        });
+        JScrollPane listScroll = new JScrollPane(creatureList);
+        listScroll.setPreferredSize(new Dimension(200, WINDOW_H));
+        JPanel familyTab = new JPanel(new BorderLayout());
+        familyTab.add(listScroll, BorderLayout.WEST);
+        familyTab.add(familyPanel, BorderLayout.CENTER);
+        
+        // Tab 3: textual info
+        infoArea = new JTextArea();
+        infoArea.setEditable(false);
+        JScrollPane infoScroll = new JScrollPane(infoArea);
+
+        // 4) Build the Stats tab (JFreeChart line chart)
+        popSeries = new XYSeries("Population");
+        fitSeries = new XYSeries("Avg. Fitness");
+        dataset = new XYSeriesCollection();
+        dataset.addSeries(popSeries);
+        dataset.addSeries(fitSeries);
+
+        JFreeChart lineChart = ChartFactory.createXYLineChart(
+            "Population & Fitness Over Time",
+            "Step",
+            "Value",
+            dataset,
+            PlotOrientation.VERTICAL,
+            true,   // legend
+            false,  // tooltips
+            false   // URLs
+        );
+        
+        chartPanel = new ChartPanel(lineChart);
+
+        hetSeries      = new XYSeries("Heterozygosity");
+        distinctSeries = new XYSeries("Distinct genomes / population");
+        XYSeriesCollection diversity = new XYSeriesCollection();
+        diversity.addSeries(hetSeries);
+        diversity.addSeries(distinctSeries);
+        JFreeChart diversityChart = ChartFactory.createXYLineChart(
+            "Genetic Diversity", "Step", "Fraction", diversity,
+            PlotOrientation.VERTICAL, true, false, false);
+        JFreeChart alleleChart = ChartFactory.createStackedBarChart(
+            "Allele Frequencies by Locus", "Locus", "Frequency", alleleData,
+            PlotOrientation.VERTICAL, false, true, false);
+
+        JPanel statsTab = new JPanel(new GridLayout(3, 1));
+        statsTab.add(chartPanel);
+        statsTab.add(new ChartPanel(diversityChart));
+        statsTab.add(new ChartPanel(alleleChart));
+        statsTab.setPreferredSize(new Dimension(WINDOW_W, WINDOW_H));
+        
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Simulation", simPanel);
+        tabs.addTab("Family-Tree", familyTab);
+        tabs.addTab("Info", infoScroll);
+        tabs.addTab("Stats",       statsTab);
+
+        // 5) Season label (displays current season)
+        seasonLabel = new JLabel("Season: " + simulation.getCurrentSeason());
+        seasonLabel.setFont(seasonLabel.getFont().deriveFont(Font.BOLD, 16f));
+        
+        // Controls
+        startBtn = new JButton("Start");
+        pauseBtn = new JButton("Pause");
+        resetBtn = new JButton("Reset");
+        stepBtn  = new JButton("Step");
+        stepLabel = new JLabel("Step: 0");
+        speedBox = new JComboBox<>(SPEEDS);
+        speedBox.addActionListener(e -> {
+            String sel = (String) speedBox.getSelectedItem();
+            ticksPerFrame = sel.equals("Max") ? 0 : Integer.parseInt(sel.substring(0, sel.length() - 1));
+        });
+
+        heatmapBox = new JComboBox<>(HEATMAPS);
+        trailsBox  = new JCheckBox("Trails");
+        heatmapBox.addActionListener(e -> { attachHeatmap(); simPanel.repaint(); });
+        trailsBox.addActionListener(e -> { attachHeatmap(); simPanel.repaint(); });
+
+        aggregateBox = new JCheckBox("Aggregate");
+        aggregateBox.setToolTipText("Advance crowded cells as counts instead of creatures");
+        aggregateBox.addActionListener(e -> { applyAggregation(); simPanel.repaint(); });
+
+        sleepBox = new JCheckBox("Sleep");
+        sleepBox.setToolTipText("Let creatures that keep their heading coast without thinking");
+        sleepBox.addActionListener(e -> simulation.setSleeping(sleepBox.isSelected()));
+        flowBox = new JCheckBox("Flow");
+        flowBox.setToolTipText("Creatures sense the cheapest path over the terrain to the best biome");
+        flowBox.addActionListener(e -> simulation.setFlowSensing(flowBox.isSelected()));
+        foodBox = new JCheckBox("Food");
+        foodBox.setToolTipText("Foraging eats the food where a creature stands; it regrows by biome and season");
+        foodBox.addActionListener(e -> simulation.setFoodGrid(foodBox.isSelected()));
+
+        recordBtn = new JToggleButton("Record");
+        recordBtn.addActionListener(e -> {
+            if (recordBtn.isSelected()) startRecording();
+            else stopRecording();
+        });
+        replayBtn = new JButton("Open Replay");
+        replayBtn.addActionListener(e -> {
+            if (replay == null) openReplay();
+            else closeReplay();
+        });
+        replaySlider = new JSlider();
+        replaySlider.setVisible(false);
+        replaySlider.addChangeListener(e -> {
+            if (replay == null) return;
+            try {
+                replay.seek(replaySlider.getValue());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Replay read failed: " + ex.getMessage());
+                closeReplay();
+                return;
+            }
+            stepLabel.setText("Step: " + replay.tick);
+            simPanel.repaint();
+        });
+
+        startBtn.addActionListener(e -> timer.start());
+        pauseBtn.addActionListener(e -> timer.stop());
+        resetBtn.addActionListener(e -> {
+            timer.stop();
+            stopRecording();
+            if (replay != null) closeReplay();
+            births.close();
+            simulation = new Simulation(150, 10, 0.006, 0.025);
+            births = subscribeBirths(simulation);
+            applyAggregation();
+            simulation.setSleeping(sleepBox.isSelected());
+            simulation.setFlowSensing(flowBox.isSelected());
+            simulation.setFoodGrid(foodBox.isSelected());
+            terrainOverlay = null;
+            attachHeatmap();
+            updateStepLabel();
+            simPanel.repaint();
+            updateInfoArea();
+            refreshCreatureList();
+            // Clear the chart series:
+            popSeries.clear();
+            fitSeries.clear();
+            hetSeries.clear();
+            distinctSeries.clear();
+            updateAlleleChart();
+        });
+        stepBtn.addActionListener(e -> {
+            simulation.run(1);
+            births.poll();
+            updateStepLabel();
+            simPanel.repaint();
+            updateInfoArea();
+            updateAlleleChart();
+            refreshCreatureList();
+        });
+
+        JPanel controls = new JPanel();
+        controls.add(startBtn);
+        controls.add(pauseBtn);
+        controls.add(resetBtn);
+        controls.add(stepBtn);
+        controls.add(new JLabel("Speed:"));
+        controls.add(speedBox);
+        controls.add(new JLabel("Heatmap:"));
+        controls.add(heatmapBox);
+        controls.add(trailsBox);
+        controls.add(aggregateBox);
+        controls.add(sleepBox);
+        controls.add(flowBox);
+        controls.add(foodBox);
+        controls.add(recordBtn);
+        controls.add(replayBtn);
+        controls.add(replaySlider);
+        controls.add(stepLabel);
+
+        // Layout
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(tabs,     BorderLayout.CENTER);
+        getContentPane().add(controls, BorderLayout.SOUTH);
+
+        // Timer (~30 FPS)
+        timer = new Timer(FRAME_MS, e -> advanceFrame());
+
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        pack();
+        setLocationRelativeTo(null);
+        refreshCreatureList();
+        updateInfoArea();
+        updateAlleleChart();
+
+    }
+
+    private void applyAggregation() {
+        simulation.setAggregationThreshold(aggregateBox.isSelected() ? AGGREGATE_THRESHOLD : 0);
+    }
+
+    /**
+     * (Re)binds the heatmap overlay to the current simulation according to the
+     * controls; the layer only observes the simulation while it is shown.
+     */
+    private void attachHeatmap() {
+        if (heatmap != null) heatmap.detach();
+        heatmap = null;
+        int sel = heatmapBox.getSelectedIndex();
+        if (sel == 0) return;
+        heatmap = new HeatmapLayer(simulation);
+        heatmap.setKind(HeatmapLayer.Kind.values()[sel - 1]);
+        heatmap.setDecay(trailsBox.isSelected() ? TRAIL_DECAY : 0);
+    }
+
+    /** The highlight feed; one subscription per simulation, drained on the EDT after each tick. */
+    private SimulationEventBus.Subscription subscribeBirths(Simulation sim) {
+        return sim.getEventBus().subscribe(birthHighlighter, SimulationEventBus.BIRTH,
+                                           SimulationEventBus.Policy.DROP, 4096);
+    }
+
+    /** Asks for a file and starts recording the current simulation into it. */
+    private void startRecording() {
+        JFileChooser fc = new JFileChooser();
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            recordBtn.setSelected(false);
+            return;
+        }
+        try {
+            recorder = new ReplayRecorder(simulation, fc.getSelectedFile().toPath(), REPLAY_KEYFRAME_EVERY);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Cannot record: " + ex.getMessage());
+            recordBtn.setSelected(false);
+        }
+    }
+
+    private void stopRecording() {
+        recordBtn.setSelected(false);
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Recording not finished cleanly: " + ex.getMessage());
+        }
+        recorder = null;
+    }
+
+    /**
+     * Switches the view to a recorded run: the live simulation is paused and
+     * the slider scrubs through the recording's ticks.
+     */
+    private void openReplay() {
+        JFileChooser fc = new JFileChooser();
+        if (fc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            replay = new ReplayReader(fc.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Cannot open replay: " + ex.getMessage());
+            return;
+        }
+        timer.stop();
+        terrainOverlay = null;
+        startBtn.setEnabled(false);
+        stepBtn.setEnabled(false);
+        replayBtn.setText("Exit Replay");
+        replaySlider.setMinimum(replay.getFirstTick());
+        replaySlider.setMaximum(replay.getLastTick());
+        replaySlider.setValue(replay.getFirstTick());
+        replaySlider.setVisible(true);
+        stepLabel.setText("Step: " + replay.tick);
+        simPanel.repaint();
+    }
+
+    private void closeReplay() {
+        try {
+            replay.close();
+        } catch (IOException ignored) {
+            // read‐only; nothing to lose
+        }
+        replay = null;
+        terrainOverlay = null;
+        startBtn.setEnabled(true);
+        stepBtn.setEnabled(true);
+        replayBtn.setText("Open Replay");
+        replaySlider.setVisible(false);
+        updateStepLabel();
+        simPanel.repaint();
+    }
+
+    /**
+     * One timer frame: runs {@code ticksPerFrame} ticks (or, in "Max", as many
+     * as fit in the frame budget), sampling the chart every tick at 1x and
+     * every {@link #FAST_STATS_EVERY} ticks otherwise. The view is redrawn once
+     * per frame; the list and info text only every few frames when fast.
+     */
+    private void advanceFrame() {
+        boolean fast = ticksPerFrame != 1;
+        int statsEvery = fast ? FAST_STATS_EVERY : 1;
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        int ticks = 0, samples = 0;
+        do {
+            viz.tick();
+            simulation.run(1);
+            births.poll();
+            ticks++;
+            if (simulation.getCurrentStep() % statsEvery == 0) {
+                sampleStats();
+                samples++;
+            }
+        } while (ticksPerFrame == 0 ? System.nanoTime() < deadline : ticks < ticksPerFrame);
+
+        // the samples were added silently; redraw the chart once for all of them
+        if (samples > 0) {
+            popSeries.fireSeriesChanged();
+            fitSeries.fireSeriesChanged();
+            hetSeries.fireSeriesChanged();
+            distinctSeries.fireSeriesChanged();
+        }
+        updateStepLabel();
+        simPanel.repaint();
+        if (!fast || ++frameCount % FAST_UI_EVERY_FRAMES == 0) {
+            updateInfoArea();
+            updateAlleleChart();
+            refreshCreatureList();
+        }
+    }
+
+    /** Append population and average fitness at the current step to the chart. */
+    private void sampleStats() {
+        int step = simulation.getCurrentStep();
+        int popSize = simulation.getTotalPopulation();
+        popSeries.add(step, popSize, false);
+
+        // Compute average fitness
+        double sumFit = 0;
+        for (Creature c : simulation.getCreatures()) {
+            sumFit += c.getFitness(simulation);
+        }
+        double avgFit = simulation.getCreatures().isEmpty() ? 0 : sumFit / simulation.getCreatures().size();
+        fitSeries.add(step, avgFit, false);
+
+        GeneticsTracker gen = simulation.getGenetics();
+        hetSeries.add(step, gen.getMeanHeterozygosity(), false);
+        int tracked = simulation.getCreatures().size();      // aggregated creatures leave the tracker
+        distinctSeries.add(step, tracked == 0 ? 0 : (double) gen.getDistinctGenomes() / tracked, false);
+    }
+
+    /** Redraws the allele chart from the tracker's counts with a single change event. */
+    private void updateAlleleChart() {
+        GeneticsTracker gen = simulation.getGenetics();
+        alleleData.setNotify(false);
+        alleleData.clear();
+        for (int l = 0; l < gen.getLoci(); l++) {
+            for (char ch = 'A'; ch <= 'Z'; ch++) {
+                double f = gen.getAlleleFrequency(l, ch);
+                if (f > 0) alleleData.addValue(f, String.valueOf(ch), "L" + (l + 1));
+            }
+        }
+        alleleData.setNotify(true);
+    }
+
+    private void refreshCreatureList() {
+        listModel.clear();
+        for (Creature c : simulation.getCreatures()) {
+            listModel.addElement(c);
+        }
+        if (!listModel.isEmpty()) {
+            creatureList.setSelectedIndex(0);
+        }
+    }
+    
+    private void updateStepLabel() {
+        stepLabel.setText("Step: " + simulation.getCurrentStep());
+    }
+
+    /** Update season display. */
+    private void updateSeasonLabel() {
+        seasonLabel.setText("Season: " + simulation.getCurrentSeason());
+    }
+    
+    private void updateInfoArea() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Step ").append(simulation.getCurrentStep()).append("\n\n");
+        sb.append("Season: ").append(simulation.getCurrentSeason()).append("\n\n");
+        if (simulation.isSleeping())
+            sb.append("Asleep: ").append(simulation.getSleepingCount()).append(" creatures coasting\n\n");
+        if (simulation.getAggregatedCount() > 0)
+            sb.append("Aggregated: ").append(simulation.getAggregatedCount()).append(" creatures in dense cells\n\n");
+        sb.append("Biomes:\n");
+        for (Biome b : simulation.getBiomes()) {
+        	 long count = simulation.getCreatures().stream()
+        	            .filter(c -> simulation.getBiomeAt(c.getX(), c.getY()) == b)
+        	            .count();
+        	        sb.append(String.format(
+        	            "  %s @(%d,%d %dx%d) — forage×%.2f, death×%.2f, creatures=%d%n",
+        	            b.name, b.x, b.y, b.width, b.height,
+        	            b.forageModifier, b.deathModifier, count
+        	        ));
+        	    }
+        
+        sb.append("\nCreatures:\n");
+        for (Creature c : simulation.getCreatures()) {
+        	double f = c.getFitness(simulation);
+            sb.append(String.format("  #%d: (%d,%d) Age:%d Hunger:%d%n Fitness:%.1f%n",
+                         simulation.getCreatures().indexOf(c),
+                         c.getX(), c.getY(), c.getAge(), /*c.getHunger()*/0, f));
+        }
+        infoArea.setText(sb.toString());
+        infoArea.setCaretPosition(0);
+    }
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new SimulationGUI().setVisible(true));
+    }
+
+    /**
+     * Panel that draws food patches and creatures in 2D space.
+     */
+    private class SimulationPanel extends JPanel {
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+
+            Simulation sim = simulation; // from outer class
+            ReplayReader rep = replay;    // non-null: draw the recording instead
+            Simulation.Season season = rep != null ? rep.season : sim.getCurrentSeason();
+
+           
+            // 1) Draw the Plains base (always full size)
+            g.setColor(new Color(173, 216, 230));
+            g.fillRect(0, 0, WINDOW_W, WINDOW_H);
+
+            // 2) Draw the other biomes (Desert and Oasis) on top
+            for (Biome b : simulation.getBiomes()) {
+                if (b.name.equals("Plains")) continue;  // skip, already drawn
+            // Draw biomes
+                Color base;
+                switch (b.name) {
+                    case "Desert": base = new Color(236, 182, 142); break;
+                    case "Oasis":  base = new Color(9, 148, 9); break;
+                    case "Plains": base = new Color(2, 94, 123); break;
+                    default:       base = Color.LIGHT_GRAY;          break;
+                }
+                Color fill = seasonTint(base, season);
+                g.setColor(fill);
+                g.fillRect(b.x, b.y, b.width, b.height);
+            }
+            
+            // 1) Draw elevation as a semi‐transparent grayscale overlay
+            if (terrainOverlay == null) {
+                terrainOverlay = buildTerrainOverlay(rep != null ? Terrain.load(rep.terrainSeed) : sim.getTerrain());
+            }
+            g.drawImage(terrainOverlay, 0, 0, null);
+
+            if (rep != null) {
+                for (int i = 0; i < rep.count; i++) {
+                    float ageRatio = Math.min(1f, (rep.tick - rep.born[i]) / 100f);
+                    g.setColor(Color.getHSBColor(0.33f * (1f - ageRatio), 1f, 1f));
+                    g.fillOval(rep.xs[i] - 5, rep.ys[i] - 5, 10, 10);
+                }
+                g.setColor(Color.BLACK);
+                g.drawString("Event: " + rep.eventName + "   (replay)", 20, getHeight() - 20);
+                return;
+            }
+
+            if (heatmap != null) {
+                int cell = HeatmapLayer.CELL;
+                g.drawImage(heatmap.render(), 0, 0, heatmap.cols * cell, heatmap.rows * cell, null);
+            }
+
+            // Aggregate cells: shaded by how many creatures they hold
+            MeanFieldGrid mf = simulation.getMeanField();
+            if (mf.size() > 0) {
+                int cell = MeanFieldGrid.CELL;
+                for (int row = 0; row < MeanFieldGrid.ROWS; row++) {
+                    for (int col = 0; col < MeanFieldGrid.COLS; col++) {
+                        int n = mf.cellSize(col, row);
+                        if (n == 0) continue;
+                        int alpha = Math.min(200, 60 + n / 4);
+                        g.setColor(new Color(255, 140, 0, alpha));
+                        g.fillRect(col * cell, row * cell, cell, cell);
+                        g.setColor(Color.BLACK);
+                        g.drawString(Integer.toString(n), col * cell + 3, row * cell + 14);
+                    }
+                }
+            }
+
+            // Draw creatures
+            for (Creature c : simulation.getCreatures()) {
+                float ageRatio = Math.min(1f, c.getAge() / 100f);
+                float hue = 0.33f * (1f - ageRatio);
+                // get possibly‐highlighted color
+                Color baseColor = Color.getHSBColor(hue, 1f, 1f);
+                Color col = viz.getColor(c, baseColor);
+                
+                g.setColor(col);
+                g.fillOval(c.getX() - 5, c.getY() - 5, 10, 10);
+            }
+
+            // Draw current event
+            g.setColor(Color.BLACK);
+            g.drawString("Event: " + simulation.getCurrentEventName(),
+                         20, getHeight() - 20);
+        }
+
+        /** Terrain never changes during a run, so its shading is rendered once. */
+        private BufferedImage buildTerrainOverlay(Terrain terrain) {
+            BufferedImage img = new BufferedImage(Simulation.WORLD_W, Simulation.WORLD_H,
+                                                  BufferedImage.TYPE_INT_ARGB);
+            for (int i = 0; i < Simulation.WORLD_W; i++) {
+                for (int j = 0; j < Simulation.WORLD_H; j++) {
+                    double h = terrain.getHeight(i, j); // [0…1]
+                    // Map to alpha in [0…200] (0 = no overlay, 200 = darkest)
+                    int alpha = (int) (h * 200);
+                    alpha = Math.min(200, Math.max(0, alpha));
+                    img.setRGB(i, j, alpha << 24);
+                }
+            }
+            return img;
+        }
+
+    }
+    /**
+     * Returns a seasonally‐tinted version of the given color:
+     * - In SUMMER → brighten by 15%
+     * - In WINTER → darken by 25%
+     * - In SPRING/FALL → no change
+     */
+    private Color seasonTint(Color c, Simulation.Season season) {
+        float[] hsb = Color.RGBtoHSB(c.getRed(), c.getGreen(), c.getBlue(), null);
+        switch (season) {
+            case SUMMER:
+                // Increase brightness up to 1.0
+                hsb[2] = Math.min(1f, hsb[2] * 1.15f);
+                break;
+            case WINTER:
+                // Decrease brightness
+                hsb[2] = Math.max(0f, hsb[2] * 0.75f);
+                break;
+            default:
+                // SPRING/FALL: no change
+                break;
+        }
+        return Color.getHSBColor(hsb[0], hsb[1], hsb[2]);
+    }
+}
+
+
@@ -0,0 +1,30 @@
+package sim;
+
+/**
+ * Receives every change to a {@link Simulation}'s population as it happens,
+ * so views can keep running aggregates instead of rescanning all creatures.
+ * Callbacks run on the simulation's own thread, inside {@link Simulation#step()};
+ * they must be cheap and must not modify the population.
+ */
+public interface SimulationObserver {
+    /** A child was added to the population; its position is already set. */
+    default void onBirth(Creature c) {}
+
+    /** A creature died of hunger, age or chance; it is no longer in the population. */
+    default void onDeath(Creature c) {}
+
+    /** A creature's turn moved it away from (fromX, fromY). */
+    default void onMove(Creature c, int fromX, int fromY) {}
+
+    /** The death phase scored a creature that is still alive at that moment. */
+    default void onEvaluated(Creature c, double fitness) {}
+
+    /** A creature migrated in from a neighbouring partition or was released from an aggregate cell. */
+    default void onArrive(Creature c) { onBirth(c); }
+
+    /** A creature left for a neighbouring partition or was absorbed into an aggregate cell. */
+    default void onDepart(Creature c) { onDeath(c); }
+
+    /** The tick has finished; the population is consistent again. */
+    default void onTickEnd(Simulation sim) {}
+}
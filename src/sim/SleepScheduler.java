@@ -0,0 +1,229 @@
+package sim;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gives creatures that keep doing the same thing a lower update rate.
+ *
+ * <p>A creature is quiet when its last two acts chose the same heading and
+ * earned no reward (see {@link Creature#act}). The scheduler then lets it
+ * sleep: 2 ticks the first time, doubling while it stays quiet, at most
+ * {@value #MAX_NAP}. Sleepers are kept in a timing wheel slotted by wake
+ * tick.
+ *
+ * <p>Asleep, a creature skips forage, pack sensing and its brain, and only
+ * {@link Creature#coast coasts} along its last heading with the same terrain
+ * speed rule: the others sense where it stands every tick, so its position
+ * cannot wait. Everything else is settled lazily. The nap's forage outcomes
+ * are drawn once as it falls asleep, as a bit mask at the exact chance where
+ * it lies down (one draw per success, by geometric skips). From the mask its
+ * hunger is known in closed form at any tick ({@link Creature#getHunger}),
+ * and the tick it would starve, if any, becomes its wake tick. When it
+ * wakes, the food it found is eaten from the cell it stands in and the last
+ * outputs are replayed into memory for the ticks it slept. Age still rises
+ * with everyone else's in the ageing phase, which every creature passes
+ * through anyway.
+ *
+ * <p>Sleepers wake early when what they sense could change enough to turn
+ * them: a step that would enter another biome or pass the centre of the
+ * biome they were heading for (they then act on that tick instead), a
+ * season or event change (everyone wakes), or a change near them. For the
+ * last, the scheduler observes the simulation and stamps the pack‐radius
+ * grid cell of each birth, death and migration, and both cells of each
+ * awake creature that moves from one cell to another, with a rising
+ * counter; a sleeper whose own or adjacent cells carry a stamp newer than
+ * its nap wakes on its next turn. A sleeper's own coasting stamps nothing,
+ * or it would wake itself at every cell border. The death and birth phases
+ * are unchanged, so population statistics track dense stepping;
+ * trajectories do not repeat a dense run of the same seed.
+ */
+final class SleepScheduler implements SimulationObserver {
+    static final int MAX_NAP = 16;
+    private static final int WHEEL = 32;                  // power of two above MAX_NAP + 1
+    private static final int CELL = Creature.PACK_RADIUS;
+    private static final int COLS = (Simulation.WORLD_W + CELL - 1) / CELL;
+    private static final int ROWS = (Simulation.WORLD_H + CELL - 1) / CELL;
+
+    private final Simulation sim;
+    private final long[] stamps = new long[COLS * ROWS];  // last change counter per cell
+    private long changes = 0;                             // rises with every stamp
+    private long wakeAllAt = 0;                           // sleepers from before this wake
+    private int actedThrough;                             // last tick whose act phase is over
+    private final Creature[][] wheel = new Creature[WHEEL][16];
+    private final int[] wheelSize = new int[WHEEL];
+    private int asleep = 0;
+    private long dozes = 0, timedWakes = 0, earlyWakes = 0, starved = 0;
+
+    SleepScheduler(Simulation sim) {
+        this.sim = sim;
+        this.actedThrough = sim.getCurrentStep() - 1;
+    }
+
+    int asleep()             { return asleep; }
+    /** Creature turns spent coasting so far. */
+    long getDozes()          { return dozes; }
+    long getTimedWakes()     { return timedWakes; }
+    long getEarlyWakes()     { return earlyWakes; }
+    /** Naps that ended in starvation. */
+    long getStarved()        { return starved; }
+
+    /** Ticks of {@code c}'s nap behind it, as of the last act phase. */
+    int coasted(Creature c) {
+        return Math.max(0, Math.min(actedThrough - c.napStart + 1, c.nap));
+    }
+
+    // — Change stamps —
+
+    private static int cellOf(int x, int y) {
+        int col = Math.min(Math.max(x, 0) / CELL, COLS - 1), row = Math.min(Math.max(y, 0) / CELL, ROWS - 1);
+        return row * COLS + col;
+    }
+
+    private void touch(int x, int y) {
+        stamps[cellOf(x, y)] = ++changes;
+    }
+
+    /** Season or event changed: every sleeper wakes on its next turn. */
+    void wakeAll() {
+        wakeAllAt = ++changes;
+    }
+
+    /** Halo creatures changed; their cells count as changed. */
+    void touchAll(int[] xs, int[] ys, int n) {
+        for (int i = 0; i < n; i++) touch(xs[i], ys[i]);
+    }
+
+    @Override public void onBirth(Creature c)  { touch(c.getX(), c.getY()); }
+    @Override public void onArrive(Creature c) { touch(c.getX(), c.getY()); }
+    @Override public void onDeath(Creature c) {
+        touch(c.getX(), c.getY());
+        if (c.wakeTick >= 0) {                    // dead: nothing left to settle
+            c.wakeTick = -1;
+            asleep--;
+        }
+    }
+    @Override public void onDepart(Creature c) {
+        touch(c.getX(), c.getY());
+        if (c.wakeTick >= 0) wake(c, coasted(c));   // leaves with its nap settled
+    }
+
+    @Override public void onMove(Creature c, int fromX, int fromY) {
+        if (c.wakeTick >= 0) return;              // coasting
+        int from = cellOf(fromX, fromY), to = cellOf(c.getX(), c.getY());
+        if (from == to) return;
+        stamps[from] = ++changes;
+        stamps[to]   = ++changes;
+    }
+
+    private boolean disturbed(Creature c) {
+        if (wakeAllAt > c.sleptAt) return true;
+        int col = Math.min(c.getX() / CELL, COLS - 1), row = Math.min(c.getY() / CELL, ROWS - 1);
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, ROWS - 1); r++) {
+            for (int k = Math.max(col - 1, 0); k <= Math.min(col + 1, COLS - 1); k++) {
+                if (stamps[r * COLS + k] > c.sleptAt) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Settles the first {@code k} ticks of {@code c}'s nap and takes it off the wheel's count. */
+    private void wake(Creature c, int k) {
+        c.settleNap(k, sim.getFood());
+        c.wakeTick = -1;
+        asleep--;
+    }
+
+    // — Tick —
+
+    /**
+     * Ends the naps due at {@code tick}; call before the act loop. A nap that
+     * ran its length is settled and the creature acts this tick; one whose
+     * forage outcomes starve it now is settled through this tick, which
+     * kills it, and the act loop reports the death.
+     */
+    void wakeDue(int tick) {
+        int slot = tick & (WHEEL - 1);
+        Creature[] due = wheel[slot];
+        for (int i = 0, n = wheelSize[slot]; i < n; i++) {
+            Creature c = due[i];
+            due[i] = null;
+            if (c.wakeTick != tick) continue;    // woken early or gone
+            int k = tick - c.napStart;
+            if (k < c.nap) {
+                wake(c, k + 1);
+                starved++;
+            } else {
+                wake(c, k);
+                timedWakes++;
+            }
+        }
+        wheelSize[slot] = 0;
+    }
+
+    /** The act phase of {@code tick} is over: sleepers count it as coasted. */
+    void acted(int tick) {
+        actedThrough = tick;
+    }
+
+    /**
+     * Called for a sleeping creature at its turn: either it coasts through
+     * the tick (true) or its nap is settled and it must act (false).
+     */
+    boolean doze(Creature c, int tick) {
+        if (!disturbed(c) && c.coast(sim)) {
+            dozes++;
+            return true;
+        }
+        wake(c, tick - c.napStart);
+        c.nap = 0;
+        earlyWakes++;
+        return false;
+    }
+
+    /** After a creature's act: puts it to sleep if it was quiet. */
+    void consider(Creature c, int tick) {
+        if (!c.quiet) {
+            c.nap = 0;
+            return;
+        }
+        int nap = Math.min(c.nap == 0 ? 2 : c.nap * 2, MAX_NAP);
+        double p = c.forageChance(sim, sim.getBiomeAt(c.getX(), c.getY()));
+        c.wakeTick = c.fallAsleep(this, tick + 1, nap, drawForage(sim.random(), p, nap));
+        c.sleptAt  = changes;
+        int slot = c.wakeTick & (WHEEL - 1);
+        if (wheelSize[slot] == wheel[slot].length) wheel[slot] = Arrays.copyOf(wheel[slot], wheel[slot].length * 2);
+        wheel[slot][wheelSize[slot]++] = c;
+        asleep++;
+    }
+
+    /** Wakes every sleeper at once, settling its nap, e.g. when sleeping is switched off. */
+    void wakeEveryone(List<Creature> population) {
+        for (Creature c : population) {
+            if (c.wakeTick >= 0) wake(c, coasted(c));
+        }
+        for (int s = 0; s < WHEEL; s++) {
+            Arrays.fill(wheel[s], 0, wheelSize[s], null);
+            wheelSize[s] = 0;
+        }
+    }
+
+    /**
+     * Independent Bernoulli(p) outcomes for {@code n} ≤ 63 ticks as a bit
+     * mask, jumping from success to success by geometric skips.
+     */
+    static long drawForage(Random rng, double p, int n) {
+        if (p <= 0) return 0;
+        if (p >= 1) return (1L << n) - 1;
+        double logQ = Math.log1p(-p);
+        long mask = 0;
+        for (long i = skip(rng, logQ); i < n; i += 1 + skip(rng, logQ)) mask |= 1L << i;
+        return mask;
+    }
+
+    /** Failures before the next success. */
+    private static long skip(Random rng, double logQ) {
+        return (long) (Math.log(1.0 - rng.nextDouble()) / logQ);
+    }
+}
@@ -0,0 +1,193 @@
+package sim;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks {@link StreamServer} against localhost: runs a seeded simulation
+ * with a number of viewers attached, one of them on a tight byte budget,
+ * decodes every stream independently and compares each viewer's picture
+ * with the simulation once the run stops. Also reports the mean tick time
+ * with and without viewers. Exits with status 1 on any mismatch.
+ *
+ * <p>Usage: {@code StreamCheck [viewers] [ticks] [seed]}.
+ */
+public class StreamCheck {
+
+    /** Decodes one stream into id → (x, y, band). */
+    static final class Viewer implements Runnable {
+        final String name;
+        private final HttpURLConnection conn;
+        private final Map<Integer, int[]> world = new HashMap<>();
+        volatile long seq = -1;
+        volatile Throwable error;
+        long frames = 0, keyframes = 0, bytes = 0;
+
+        Viewer(String name, URL url) throws IOException {
+            this.name = name;
+            conn = (HttpURLConnection) url.openConnection();
+            conn.setReadTimeout(10_000);
+        }
+
+        @Override
+        public void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(conn.getInputStream()))) {
+                if (in.readInt() != StreamServer.MAGIC) throw new IOException("bad magic");
+                if (varint(in) != StreamServer.VERSION) throw new IOException("bad version");
+                varint(in); varint(in); varint(in);
+                in.skipNBytes(3L * varint(in));
+                for (;;) {
+                    int type = in.read();
+                    if (type < 0) return;
+                    long s = varint(in);
+                    varint(in);
+                    int len = varint(in);
+                    bytes += len;
+                    synchronized (world) {
+                        read(in, type);
+                    }
+                    frames++;
+                    seq = s;
+                }
+            } catch (IOException e) {
+                // closed by the server at the end of the run
+            } catch (Throwable t) {
+                error = t;
+            }
+        }
+
+        private void read(DataInputStream in, int type) throws IOException {
+            varint(in); varint(in); varint(in);                   // population, aggregated, season
+            in.skipNBytes(varint(in));                            // event
+            varint(in); varint(in);                               // hunger, heterozygosity
+            int id = 0;
+            if (type == StreamServer.KEY) {
+                keyframes++;
+                world.clear();
+                for (int n = varint(in); n > 0; n--) {
+                    id += zigzag(in);
+                    world.put(id, new int[] { varint(in), varint(in), varint(in) });
+                }
+                return;
+            }
+            if (type != StreamServer.DELTA) throw new IOException("bad frame type " + type);
+            if (keyframes == 0) throw new IOException("delta before any keyframe");
+            for (int n = varint(in); n > 0; n--) {
+                id += zigzag(in);
+                int[] c = world.get(id);
+                c[0] += zigzag(in);
+                c[1] += zigzag(in);
+            }
+            id = 0;
+            for (int n = varint(in); n > 0; n--) {
+                id += zigzag(in);
+                if (world.put(id, new int[] { varint(in), varint(in), varint(in) }) != null)
+                    throw new IOException("born twice: " + id);
+            }
+            id = 0;
+            for (int n = varint(in); n > 0; n--) {
+                id += zigzag(in);
+                if (world.remove(id) == null) throw new IOException("unknown death: " + id);
+            }
+            id = 0;
+            for (int n = varint(in); n > 0; n--) {
+                id += zigzag(in);
+                world.get(id)[2] = varint(in);
+            }
+        }
+
+        /** Differences from the simulation's creatures, or an empty list. */
+        List<String> compare(Simulation sim) {
+            List<String> bad = new ArrayList<>();
+            synchronized (world) {
+                if (world.size() != sim.getCreatures().size())
+                    bad.add(name + ": " + world.size() + " creatures shown, " + sim.getCreatures().size() + " alive");
+                for (Creature c : sim.getCreatures()) {
+                    int[] v = world.get(c.getId());
+                    int band = Math.min(c.getAge() / StreamServer.BAND_YEARS, StreamServer.BANDS - 1);
+                    if (v == null || v[0] != c.getX() || v[1] != c.getY() || v[2] != band) {
+                        bad.add(name + ": creature " + c.getId() + " differs");
+                        if (bad.size() > 5) break;
+                    }
+                }
+            }
+            return bad;
+        }
+
+        private static int varint(InputStream in) throws IOException {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b < 0) throw new IOException("stream ended mid‐frame");
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+        }
+
+        private static int zigzag(InputStream in) throws IOException {
+            int v = varint(in);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+
+    private static double meanTickMs(Simulation sim, int ticks) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ticks; i++) sim.run(1);
+        return (System.nanoTime() - t0) / 1e6 / ticks;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int viewerCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Simulation reference = new Simulation(300, 10, 0.006, 0.025, seed);
+        reference.getEvents().setVerbose(false);
+        double alone = meanTickMs(reference, ticks);       // same seed, same trajectory, nobody watching
+
+        Simulation sim = new Simulation(300, 10, 0.006, 0.025, seed);
+        sim.getEvents().setVerbose(false);
+
+        List<String> bad = new ArrayList<>();
+        try (StreamServer server = new StreamServer(sim, 0, 0, 20)) {
+            String base = "http://localhost:" + server.getPort();
+            List<Viewer> viewers = new ArrayList<>();
+            for (int i = 0; i < viewerCount; i++) viewers.add(new Viewer("viewer" + i, new URL(base + "/stream?fps=60")));
+            viewers.add(new Viewer("throttled", new URL(base + "/stream?fps=10&rate=4")));
+            for (Viewer v : viewers) {
+                Thread t = new Thread(v, v.name);
+                t.setDaemon(true);
+                t.start();
+            }
+            while (server.getViewerCount() < viewers.size()) Thread.sleep(10);
+            double watched = meanTickMs(sim, ticks);
+
+            long deadline = System.currentTimeMillis() + 15_000;
+            for (Viewer v : viewers) {
+                while (v.seq < server.getPublished() && v.error == null && System.currentTimeMillis() < deadline)
+                    Thread.sleep(20);
+                if (v.error != null) bad.add(v.name + ": " + v.error);
+                else if (v.seq < server.getPublished()) bad.add(v.name + ": stuck at frame " + v.seq + " of " + server.getPublished());
+                else bad.addAll(v.compare(sim));
+                System.out.printf(Locale.ROOT, "%-10s %5d frames %4d keyframes %9d bytes%n", v.name, v.frames, v.keyframes, v.bytes);
+            }
+            System.out.printf(Locale.ROOT, "tick %.2f ms alone, %.2f ms with %d viewers; %d keyframe skips; population %d%n",
+                              alone, watched, viewers.size(), server.getSkips(), sim.getCreatures().size());
+        }
+        if (bad.isEmpty()) {
+            System.out.println("All viewers match the simulation");
+            return;
+        }
+        for (String line : bad) System.out.println("MISMATCH " + line);
+        System.exit(1);
+    }
+}
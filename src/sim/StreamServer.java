@@ -0,0 +1,482 @@
+package sim;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams a running {@link Simulation} to remote viewers over HTTP, for
+ * watching headless runs from a browser.
+ *
+ * <p>Endpoints, on the loopback interface by default:
+ * <ul>
+ *   <li>{@code /} a self‐contained canvas viewer;</li>
+ *   <li>{@code /stream?fps=N&rate=KiB} the binary frame stream, sent as one
+ *       chunked response, at most N frames a second (default 30) and, if
+ *       given, at most {@code rate} KiB a second;</li>
+ *   <li>{@code /stats} the latest summary as JSON.</li>
+ * </ul>
+ *
+ * <p>Stream layout (integers are varints as in {@link ReplayRecorder},
+ * signed ones zig‐zagged): a header MAGIC(4 bytes), VERSION, worldW,
+ * worldH, keyframeEvery, palette size and one RGB triple per age band;
+ * then frames of type(1 byte) seq tick length payload. Every payload starts
+ * with the summary (population, aggregated, season, event, mean hunger
+ * ×100, mean heterozygosity ×10000). A KEY payload then lists every
+ * creature (id delta, x, y, band) and replaces the viewer's picture; a
+ * DELTA payload lists what changed since the previous frame: moves (id
+ * delta, dx, dy), births (id delta, x, y, band), gone (id delta) and
+ * recolours (id delta, band).
+ *
+ * <p>The simulation thread encodes each frame once, by diffing against the
+ * last published frame, into an immutable array in a ring shared by all
+ * viewers; publishing is one volatile write, so the tick loop does the
+ * same work for a hundred viewers as for none. Frames are published at most
+ * {@code maxFps} times a second whatever the tick rate. Each viewer runs on
+ * its own pooled thread with its own cursor into the ring and paces itself;
+ * a viewer that falls more than the ring behind, or whose byte budget
+ * cannot cover the deltas it owes, skips ahead to the newest keyframe.
+ */
+public final class StreamServer implements SimulationObserver, Closeable {
+    static final int MAGIC = 0x53494D53;            // "SIMS"
+    static final int VERSION = 1;
+    static final byte KEY = 1, DELTA = 2;
+    static final int BAND_YEARS = 10;               // colour band = age / BAND_YEARS
+    static final int BANDS = Simulation.MAX_AGE / BAND_YEARS + 1;
+    private static final int RING = 128;            // frames kept for viewers, power of two
+    private static final int DEFAULT_FPS = 30;
+
+    private final Simulation sim;
+    private final HttpServer http;
+    private final ExecutorService pool;
+    private final long minPublishNanos;
+    private final int keyframeEvery;
+    private final byte[] streamHeader;
+
+    // — Producer state, simulation thread only —
+    private int[] lastX = new int[1024], lastY = new int[1024], lastBand = new int[1024];
+    private int[] seenGen = new int[1024];          // gen of the last frame that showed this id
+    private int gen = 1;
+    private int[] shownIds = new int[256], nextIds = new int[256];
+    private int shownCount = 0;
+    private final ReplayRecorder.Bytes moves = new ReplayRecorder.Bytes(), births = new ReplayRecorder.Bytes(),
+                                       gone = new ReplayRecorder.Bytes(), recolours = new ReplayRecorder.Bytes(),
+                                       body = new ReplayRecorder.Bytes(), frame = new ReplayRecorder.Bytes();
+    private long nextSeq = 0;
+    private long lastPublish = 0;
+
+    // — Shared with viewer threads —
+    private static final class Frame {
+        final long seq;
+        final byte[] data;
+        Frame(long seq, byte[] data) { this.seq = seq; this.data = data; }
+    }
+    private final Frame[] ring = new Frame[RING];
+    private volatile long published = -1;           // seq of the newest frame
+    private volatile long latestKey = -1;           // seq of the newest keyframe
+    private volatile String stats = "{}";
+    private volatile boolean closed = false;
+    private final AtomicInteger viewers = new AtomicInteger();
+    private final AtomicLong skips = new AtomicLong();
+
+    /**
+     * Starts serving {@code sim} on {@code port} of the loopback interface (0
+     * picks a free port) and observes it from the next tick on.
+     *
+     * @param maxFps frames published per second at most; 0 publishes every tick
+     * @param keyframeEvery frames between keyframes
+     */
+    public StreamServer(Simulation sim, int port, int maxFps, int keyframeEvery) throws IOException {
+        if (keyframeEvery < 1 || keyframeEvery > RING / 2)
+            throw new IllegalArgumentException("keyframe interval must be in 1.." + RING / 2 + ", got " + keyframeEvery);
+        this.sim = sim;
+        this.minPublishNanos = maxFps > 0 ? 1_000_000_000L / maxFps : 0;
+        this.keyframeEvery = keyframeEvery;
+
+        ReplayRecorder.Bytes h = new ReplayRecorder.Bytes();
+        h.int32(MAGIC);
+        h.varint(VERSION);
+        h.varint(Simulation.WORLD_W);
+        h.varint(Simulation.WORLD_H);
+        h.varint(keyframeEvery);
+        h.varint(BANDS);
+        for (int b = 0; b < BANDS; b++) {
+            int rgb = bandColor(b).getRGB();
+            h.bytes(rgb >> 16); h.bytes(rgb >> 8); h.bytes(rgb);
+        }
+        streamHeader = Arrays.copyOf(h.buf, h.len);
+
+        pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stream-viewer");
+            t.setDaemon(true);
+            return t;
+        });
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16);
+        http.setExecutor(pool);
+        http.createContext("/", this::serveViewer);
+        http.createContext("/stats", this::serveStats);
+        http.createContext("/stream", this::serveStream);
+        http.start();
+        publish();                                  // a first keyframe for early viewers
+        sim.addObserver(this);
+    }
+
+    /** Same colour the GUI gives a creature in the middle of the band. */
+    static Color bandColor(int band) {
+        float ageRatio = Math.min(1f, (band * BAND_YEARS + BAND_YEARS / 2f) / 100f);
+        return Color.getHSBColor(0.33f * (1f - ageRatio), 1f, 1f);
+    }
+
+    public int getPort()           { return http.getAddress().getPort(); }
+    public int getViewerCount()    { return viewers.get(); }
+    /** Times a viewer skipped ahead to a keyframe. */
+    public long getSkips()         { return skips.get(); }
+    long getPublished()            { return published; }
+
+    // — Producer —
+
+    @Override
+    public void onTickEnd(Simulation s) {
+        long now = System.nanoTime();
+        if (minPublishNanos > 0 && now - lastPublish < minPublishNanos) return;
+        lastPublish = now;
+        publish();
+    }
+
+    /** Diffs the population against the last frame and publishes the result. */
+    private void publish() {
+        List<Creature> pop = sim.getCreatures();
+        int shown = gen++;
+        int n = pop.size();
+        if (nextIds.length < n) nextIds = new int[Math.max(n, nextIds.length * 2)];
+        int moveCount = 0, birthCount = 0, goneCount = 0, recolourCount = 0;
+        int lastMove = 0, lastBirth = 0, lastGone = 0, lastRecolour = 0;
+        long hungerSum = 0;
+        for (int i = 0; i < n; i++) {
+            Creature c = pop.get(i);
+            int id = c.getId(), x = c.getX(), y = c.getY();
+            int band = Math.min(c.getAge() / BAND_YEARS, BANDS - 1);
+            hungerSum += c.getHunger();
+            if (id >= seenGen.length) grow(id);
+            if (seenGen[id] == shown) {
+                if (x != lastX[id] || y != lastY[id]) {
+                    moves.zigzag(id - lastMove);
+                    moves.zigzag(x - lastX[id]);
+                    moves.zigzag(y - lastY[id]);
+                    lastMove = id;
+                    moveCount++;
+                }
+                if (band != lastBand[id]) {
+                    recolours.zigzag(id - lastRecolour);
+                    recolours.varint(band);
+                    lastRecolour = id;
+                    recolourCount++;
+                }
+            } else {
+                births.zigzag(id - lastBirth);
+                births.varint(x);
+                births.varint(y);
+                births.varint(band);
+                lastBirth = id;
+                birthCount++;
+            }
+            seenGen[id] = gen;
+            lastX[id] = x;
+            lastY[id] = y;
+            lastBand[id] = band;
+            nextIds[i] = id;
+        }
+        for (int i = 0; i < shownCount; i++) {
+            int id = shownIds[i];
+            if (seenGen[id] != gen) {
+                gone.zigzag(id - lastGone);
+                lastGone = id;
+                goneCount++;
+            }
+        }
+        int[] t = shownIds; shownIds = nextIds; nextIds = t;
+        shownCount = n;
+
+        // summary
+        int meanHunger = n == 0 ? 0 : (int) (100 * hungerSum / n);
+        int het = (int) Math.round(10000 * sim.getGenetics().getMeanHeterozygosity());
+        body.varint(n);
+        body.varint(sim.getAggregatedCount());
+        body.varint(sim.getCurrentSeason().ordinal());
+        body.string(sim.getCurrentEventName());
+        body.varint(meanHunger);
+        body.varint(het);
+
+        long seq = nextSeq++;
+        boolean key = seq % keyframeEvery == 0;
+        if (key) {
+            body.varint(n);
+            int last = 0;
+            for (int i = 0; i < n; i++) {
+                int id = shownIds[i];
+                body.zigzag(id - last);
+                body.varint(lastX[id]);
+                body.varint(lastY[id]);
+                body.varint(lastBand[id]);
+                last = id;
+            }
+        } else {
+            body.varint(moveCount);     body.append(moves);
+            body.varint(birthCount);    body.append(births);
+            body.varint(goneCount);     body.append(gone);
+            body.varint(recolourCount); body.append(recolours);
+        }
+        frame.bytes(key ? KEY : DELTA);
+        frame.varint((int) seq);
+        frame.varint(sim.getCurrentStep());
+        frame.varint(body.len);
+        frame.append(body);
+        ring[(int) seq & (RING - 1)] = new Frame(seq, Arrays.copyOf(frame.buf, frame.len));
+        if (key) latestKey = seq;
+        published = seq;
+        moves.len = births.len = gone.len = recolours.len = body.len = frame.len = 0;
+
+        stats = String.format(Locale.ROOT,
+            "{\"tick\":%d,\"population\":%d,\"aggregated\":%d,\"season\":\"%s\",\"event\":\"%s\","
+          + "\"meanHunger\":%.2f,\"heterozygosity\":%.4f,\"viewers\":%d}",
+            sim.getCurrentStep(), n, sim.getAggregatedCount(), sim.getCurrentSeason(),
+            sim.getCurrentEventName().replace("\"", "\\\""), meanHunger / 100.0, het / 10000.0, viewers.get());
+    }
+
+    private void grow(int id) {
+        int cap = Math.max(id + 1, seenGen.length * 2);
+        lastX    = Arrays.copyOf(lastX, cap);
+        lastY    = Arrays.copyOf(lastY, cap);
+        lastBand = Arrays.copyOf(lastBand, cap);
+        seenGen  = Arrays.copyOf(seenGen, cap);
+    }
+
+    // — Viewers —
+
+    private void serveStream(HttpExchange ex) throws IOException {
+        Map<String, String> q = query(ex);
+        int fps = Math.max(1, Math.min(1000, intParam(q, "fps", DEFAULT_FPS)));
+        long budgetPerSec = 1024L * Math.max(0, intParam(q, "rate", 0));   // 0 = unlimited
+        ex.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(200, 0);                                 // chunked
+        viewers.incrementAndGet();
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(streamHeader);
+            out.flush();
+            long interval = 1_000_000_000L / fps;
+            long cursor = -1;
+            double tokens = budgetPerSec;                               // one second of burst
+            long last = System.nanoTime();
+            while (!closed) {
+                long wake = last + interval;
+                for (long now = System.nanoTime(); now < wake; now = System.nanoTime())
+                    LockSupport.parkNanos(wake - now);
+                long now = System.nanoTime();
+                if (budgetPerSec > 0) tokens = Math.min(budgetPerSec, tokens + budgetPerSec * (now - last) / 1e9);
+                last = now;
+
+                long head = published;
+                if (head < 0 || cursor > head) continue;
+                if (cursor < 0 || head - cursor >= RING - 1 || !holds(cursor)) {
+                    if (cursor >= 0) skips.incrementAndGet();
+                    cursor = latestKey;                                 // join, or fell behind
+                }
+                long bytes = pendingBytes(cursor, head);
+                if (budgetPerSec > 0 && bytes > tokens) {
+                    if (latestKey > cursor) {                           // cheaper to resync
+                        skips.incrementAndGet();
+                        cursor = latestKey;
+                        bytes = pendingBytes(cursor, head);
+                    }
+                    if (tokens < Math.min(bytes, budgetPerSec)) continue;  // wait; an oversized keyframe goes into debt
+                }
+                for (long s = cursor; s <= head; s++) {
+                    Frame f = ring[(int) s & (RING - 1)];
+                    if (f == null || f.seq != s) break;                 // overwritten meanwhile
+                    out.write(f.data);
+                    tokens -= f.data.length;
+                    cursor = s + 1;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the viewer went away
+        } finally {
+            viewers.decrementAndGet();
+            ex.close();
+        }
+    }
+
+    private boolean holds(long seq) {
+        Frame f = ring[(int) seq & (RING - 1)];
+        return f != null && f.seq == seq;
+    }
+
+    private long pendingBytes(long from, long to) {
+        long bytes = 0;
+        for (long s = from; s <= to; s++) {
+            Frame f = ring[(int) s & (RING - 1)];
+            if (f != null && f.seq == s) bytes += f.data.length;
+        }
+        return bytes;
+    }
+
+    private void serveStats(HttpExchange ex) throws IOException {
+        respond(ex, "application/json", stats.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void serveViewer(HttpExchange ex) throws IOException {
+        if (!ex.getRequestURI().getPath().equals("/")) {
+            ex.sendResponseHeaders(404, -1);
+            ex.close();
+            return;
+        }
+        respond(ex, "text/html; charset=utf-8", VIEWER_HTML.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange ex, String type, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", type);
+        ex.getResponseHeaders().set("Cache-Control", "no-store");
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return q;
+        for (String kv : raw.split("&")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0) q.put(kv.substring(0, eq), kv.substring(eq + 1));
+        }
+        return q;
+    }
+
+    private static int intParam(Map<String, String> q, String name, int dflt) {
+        try {
+            return q.containsKey(name) ? Integer.parseInt(q.get(name)) : dflt;
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+
+    /** Stops observing, ends every stream and shuts the server down. Idempotent. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        sim.removeObserver(this);
+        http.stop(1);
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a headless simulation and serves it until killed.
+     * Usage: {@code StreamServer [port] [seed] [ticksPerSecond]}; 0 ticks per
+     * second runs flat out.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : new java.util.Random().nextLong();
+        int tps = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        Simulation sim = new Simulation(150, 10, 0.006, 0.025, seed);
+        sim.getEvents().setVerbose(false);
+        StreamServer server = new StreamServer(sim, port, DEFAULT_FPS, DEFAULT_FPS);
+        System.out.println("Serving seed " + seed + " on http://localhost:" + server.getPort() + "/");
+        long period = tps > 0 ? 1_000_000_000L / tps : 0;
+        long next = System.nanoTime();
+        while (true) {
+            sim.run(1);
+            next += period;
+            for (long now = System.nanoTime(); now < next; now = System.nanoTime())
+                LockSupport.parkNanos(next - now);
+        }
+    }
+
+    private static final String VIEWER_HTML = String.join("\n",
+        "<!doctype html><html><head><meta charset=\"utf-8\"><title>Simulation</title></head>",
+        "<body style=\"margin:0;font:13px sans-serif\">",
+        "<canvas id=\"c\" style=\"background:#e8f0e0;display:block\"></canvas><div id=\"s\" style=\"padding:4px\"></div>",
+        "<script>",
+        "const SEASONS = ['SPRING', 'SUMMER', 'FALL', 'WINTER'];",
+        "const cv = document.getElementById('c'), g = cv.getContext('2d'), info = document.getElementById('s');",
+        "let buf = new Uint8Array(0), pos = 0, header = null, world = new Map(), summary = null, tick = 0;",
+        "function varint() {",
+        "  let v = 0, s = 0, b;",
+        "  do { if (pos >= buf.length) throw 'short'; b = buf[pos++]; v += (b & 127) * 2 ** s; s += 7; } while (b & 128);",
+        "  return v;",
+        "}",
+        "function zz() { const v = varint(); return v % 2 ? -(v + 1) / 2 : v / 2; }",
+        "function str() { const n = varint(); const t = new TextDecoder().decode(buf.subarray(pos, pos + n)); pos += n; return t; }",
+        "function readHeader() {",
+        "  pos += 4; const h = { version: varint(), w: varint(), h: varint(), key: varint(), pal: [] };",
+        "  for (let i = varint(); i > 0; i--) { h.pal.push('rgb(' + buf[pos] + ',' + buf[pos + 1] + ',' + buf[pos + 2] + ')'); pos += 3; }",
+        "  cv.width = h.w; cv.height = h.h; return h;",
+        "}",
+        "function readFrame() {",
+        "  const type = buf[pos++]; varint(); const t = varint(), len = varint();",
+        "  if (buf.length - pos < len) throw 'short';",
+        "  summary = { pop: varint(), agg: varint(), season: SEASONS[varint()], event: str(), hunger: varint() / 100, het: varint() / 10000 };",
+        "  tick = t;",
+        "  if (type === 1) {",
+        "    world.clear(); let id = 0;",
+        "    for (let n = varint(); n > 0; n--) { id += zz(); world.set(id, { x: varint(), y: varint(), b: varint() }); }",
+        "    return;",
+        "  }",
+        "  let id = 0;",
+        "  for (let n = varint(); n > 0; n--) { id += zz(); const c = world.get(id); c.x += zz(); c.y += zz(); }",
+        "  id = 0; for (let n = varint(); n > 0; n--) { id += zz(); world.set(id, { x: varint(), y: varint(), b: varint() }); }",
+        "  id = 0; for (let n = varint(); n > 0; n--) { id += zz(); world.delete(id); }",
+        "  id = 0; for (let n = varint(); n > 0; n--) { id += zz(); world.get(id).b = varint(); }",
+        "}",
+        "function feed(chunk) {",
+        "  const joined = new Uint8Array(buf.length - pos + chunk.length);",
+        "  joined.set(buf.subarray(pos)); joined.set(chunk, buf.length - pos); buf = joined; pos = 0;",
+        "  for (;;) {",
+        "    const start = pos;",
+        "    try { if (header === null) header = readHeader(); else if (pos < buf.length) readFrame(); else break; }",
+        "    catch (e) { if (e !== 'short') throw e; pos = start; break; }",
+        "  }",
+        "}",
+        "function draw() {",
+        "  g.clearRect(0, 0, cv.width, cv.height);",
+        "  if (header) for (const c of world.values()) { g.fillStyle = header.pal[c.b]; g.beginPath(); g.arc(c.x, c.y, 5, 0, 7); g.fill(); }",
+        "  if (summary) info.textContent = 'Step ' + tick + '   population ' + summary.pop + (summary.agg ? ' (+' + summary.agg + ' aggregated)' : '')",
+        "    + '   ' + summary.season + '   event: ' + summary.event + '   mean hunger ' + summary.hunger.toFixed(2)",
+        "    + '   heterozygosity ' + summary.het.toFixed(3);",
+        "  requestAnimationFrame(draw);",
+        "}",
+        "fetch('/stream' + location.search).then(async r => {",
+        "  const rd = r.body.getReader();",
+        "  for (;;) { const { value, done } = await rd.read(); if (done) break; feed(value); }",
+        "  info.textContent += '   (stream ended)';",
+        "});",
+        "requestAnimationFrame(draw);",
+        "</script></body></html>");
+}
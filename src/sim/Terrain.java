@@ -0,0 +1,116 @@
+package sim;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable elevation map for the world, generated from 2D fractal Perlin
+ * noise. Terrain depends only on its seed, so simulations that share a seed
+ * can share one instance instead of regenerating it, and {@link #load} keeps
+ * generated maps on disk so later runs map them instead (see TerrainCache).
+ */
+public final class Terrain {
+    static final int    OCTAVES     = 5;
+    static final double PERSISTENCE = 0.5;
+    // scale < 0.01 → large, smooth hills; scale > 0.01 → smaller, bumpier hills
+    static final double SCALE       = 0.005;
+
+    // The raster is padded by PAD on every side with copies of the edge, so a
+    // lookup up to PAD outside the world reads the clamped height unclamped.
+    static final int PAD = 8;
+    private static final int PH = Simulation.WORLD_H + 2 * PAD;
+    /** Doubles in the padded raster. */
+    static final int RASTER_SIZE = (Simulation.WORLD_W + 2 * PAD) * PH;
+
+    /**
+     * Seed of the landscape every unseeded simulation shares: the noise
+     * field at offset (0,0), the world the GUI has always shown.
+     */
+    static final long DEFAULT_SEED = 0;
+
+    private final long seed;
+    private final DoubleBuffer heights;   // get((x + PAD) * PH + y + PAD), in [0,1]; heap or mapped
+
+    Terrain(long seed, DoubleBuffer heights) {
+        this.seed    = seed;
+        this.heights = heights;
+    }
+
+    /**
+     * Fills a heightmap using 2D fractal Perlin noise. The result is in [0,1].
+     * The seed picks an offset into the (periodic) noise field, so each seed
+     * gets its own landscape; {@link #DEFAULT_SEED} reads it unshifted.
+     */
+    public static Terrain generate(long seed) {
+        return new Terrain(seed, DoubleBuffer.wrap(raster(seed)));
+    }
+
+    /**
+     * The terrain for {@code seed} from the on‐disk cache, generating and
+     * storing it on a miss; plain {@link #generate} if the cache is off or
+     * unusable. Either way the heights are the same.
+     */
+    public static Terrain load(long seed) {
+        return TerrainCache.shared().get(seed);
+    }
+
+    /** The padded height raster for {@code seed}. */
+    static double[] raster(long seed) {
+        double ox = 0, oy = 0;
+        if (seed != DEFAULT_SEED) {
+            Random r = new Random(seed);
+            ox = r.nextDouble() * 256;
+            oy = r.nextDouble() * 256;
+        }
+
+        int w = Simulation.WORLD_W, h = Simulation.WORLD_H;
+        double[] heights = new double[RASTER_SIZE];
+        for (int i = 0; i < w; i++) {
+            for (int j = 0; j < h; j++) {
+                // Evaluate fractal noise in [−1…+1]
+                double val = PerlinNoise.fractal(ox + i * SCALE, oy + j * SCALE,
+                                                 OCTAVES, PERSISTENCE);
+                // Map from [−1…+1] to [0…1]
+                heights[(i + PAD) * PH + j + PAD] = (val + 1) * 0.5;
+            }
+        }
+        pad(heights);
+        return heights;
+    }
+
+    /** Copies the outermost rows and columns of the world into the padding. */
+    private static void pad(double[] heights) {
+        int w = Simulation.WORLD_W, h = Simulation.WORLD_H;
+        for (int i = PAD; i < PAD + w; i++) {
+            int col = i * PH;
+            Arrays.fill(heights, col, col + PAD, heights[col + PAD]);
+            Arrays.fill(heights, col + PAD + h, col + PH, heights[col + PAD + h - 1]);
+        }
+        for (int i = 0; i < PAD; i++) {
+            System.arraycopy(heights, PAD * PH, heights, i * PH, PH);
+            System.arraycopy(heights, (PAD + w - 1) * PH, heights, (PAD + w + i) * PH, PH);
+        }
+    }
+
+    /**
+     * Returns a value in [0,1] at (x,y), where 0 = lowest elevation, 1 = highest.
+     * Coordinates are clamped to [0..WORLD_W-1]×[0..WORLD_H-1].
+     */
+    public double getHeight(int x, int y) {
+        int cx = Math.max(0, Math.min(Simulation.WORLD_W - 1, x));
+        int cy = Math.max(0, Math.min(Simulation.WORLD_H - 1, y));
+        return heights.get((cx + PAD) * PH + cy + PAD);
+    }
+
+    /**
+     * Height change from (x,y), which must lie in the world, to (x+dx, y+dy)
+     * clamped to it, for |dx|, |dy| ≤ {@link #PAD}: two reads, no clamping.
+     */
+    double slope(int x, int y, int dx, int dy) {
+        int here = (x + PAD) * PH + y + PAD;
+        return heights.get(here + dx * PH + dy) - heights.get(here);
+    }
+
+    public long getSeed() { return seed; }
+}
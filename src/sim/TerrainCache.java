@@ -0,0 +1,209 @@
+package sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps generated {@link Terrain} rasters on disk so that building a world
+ * seen before maps a file instead of evaluating fractal noise for every
+ * pixel.
+ *
+ * <p>One file per key, named after it: world size, padding, octaves,
+ * persistence, scale and seed. The file is a 64‐byte little‐endian header
+ * (MAGIC, VERSION, the key again, a CRC32 of the raster) followed by the
+ * padded raster as little‐endian doubles, mapped read‐only and used in
+ * place. A file whose header disagrees with its name or whose checksum
+ * fails is deleted and regenerated. Files are written to a temporary name
+ * and moved into place, so a reader never sees half a file and concurrent
+ * writers of one key are harmless. After each write the least recently used
+ * files are removed until the directory fits its byte budget.
+ *
+ * <p>System properties: {@value #DIR_PROPERTY} names the directory
+ * (default {@code sim-terrain-cache} under {@code java.io.tmpdir}; "off"
+ * disables the cache) and {@value #MAX_MB_PROPERTY} its budget in MiB
+ * (default 256). Bump {@link #VERSION} whenever {@link PerlinNoise} or the
+ * raster layout changes.
+ */
+final class TerrainCache {
+    static final int MAGIC = 0x53494D54;            // "SIMT"
+    static final int VERSION = 2;                   // 2: DEFAULT_SEED reads the noise unshifted
+    static final int HEADER = 64;
+    static final String DIR_PROPERTY = "sim.terrainCache";
+    static final String MAX_MB_PROPERTY = "sim.terrainCache.maxMB";
+    private static final long RASTER_BYTES = 8L * Terrain.RASTER_SIZE;
+
+    private static TerrainCache shared;
+
+    private final Path dir;                         // null when off
+    private final long maxBytes;
+
+    TerrainCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /** The process‐wide cache configured from system properties. */
+    static synchronized TerrainCache shared() {
+        if (shared == null) {
+            String where = System.getProperty(DIR_PROPERTY, "");
+            long maxMb = Long.parseLong(System.getProperty(MAX_MB_PROPERTY, "256").trim());
+            Path dir = null;
+            if (!where.equalsIgnoreCase("off")) {
+                dir = where.isEmpty() ? Paths.get(System.getProperty("java.io.tmpdir"), "sim-terrain-cache")
+                                      : Paths.get(where);
+                try {
+                    Files.createDirectories(dir);
+                } catch (IOException e) {
+                    dir = null;                     // unusable: generate every time
+                }
+            }
+            shared = new TerrainCache(dir, maxMb << 20);
+        }
+        return shared;
+    }
+
+    boolean isEnabled() { return dir != null; }
+
+    /** The terrain for {@code seed}, mapped from disk or generated and stored. */
+    Terrain get(long seed) {
+        if (dir == null) return Terrain.generate(seed);
+        Path file = dir.resolve(fileName(seed));
+        Terrain t = map(file, seed);
+        if (t != null) {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                // recency is a hint only
+            }
+            return t;
+        }
+        double[] raster = Terrain.raster(seed);
+        try {
+            write(file, seed, raster);
+            evict(file);
+            t = map(file, seed);
+            if (t != null) return t;
+        } catch (IOException e) {
+            // read‐only or full disk: run from memory
+        }
+        return new Terrain(seed, DoubleBuffer.wrap(raster));
+    }
+
+    static String fileName(long seed) {
+        return String.format(Locale.ROOT, "terrain-%dx%d-pad%d-o%d-p%s-s%s-%016x.bin",
+                             Simulation.WORLD_W, Simulation.WORLD_H, Terrain.PAD, Terrain.OCTAVES,
+                             Double.toString(Terrain.PERSISTENCE), Double.toString(Terrain.SCALE), seed);
+    }
+
+    private static void putKey(ByteBuffer b, long seed) {
+        b.putInt(MAGIC).putInt(VERSION)
+         .putInt(Simulation.WORLD_W).putInt(Simulation.WORLD_H).putInt(Terrain.PAD).putInt(Terrain.OCTAVES)
+         .putDouble(Terrain.PERSISTENCE).putDouble(Terrain.SCALE).putLong(seed);
+    }
+
+    /** Maps a valid cache file; null, after deleting it if it was bad, otherwise. */
+    private static Terrain map(Path file, long seed) {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() != HEADER + RASTER_BYTES) {
+                reject(file);
+                return null;
+            }
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        } catch (IOException e) {
+            return null;                            // absent or unreadable
+        }
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer expect = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        putKey(expect, seed);
+        ByteBuffer payload = map.slice(HEADER, (int) RASTER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        int keyLength = expect.position();
+        expect.flip();
+        if (!map.slice(0, keyLength).equals(expect) || map.getLong(keyLength) != crc.getValue()) {
+            reject(file);
+            return null;
+        }
+        return new Terrain(seed, payload.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+    }
+
+    private static void reject(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // left for eviction
+        }
+    }
+
+    private void write(Path file, long seed, double[] raster) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate((int) RASTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        payload.asDoubleBuffer().put(raster);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        putKey(header, seed);
+        header.putLong(crc.getValue()).clear();
+
+        Path tmp = Files.createTempFile(dir, "terrain-", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining())  ch.write(header);
+                while (payload.hasRemaining()) ch.write(payload);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Deletes least recently used files, never {@code keep}, until the directory fits. */
+    private void evict(Path keep) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "terrain-*.bin")) {
+            for (Path p : ds) files.add(p);
+        }
+        long[] stamp = new long[files.size()];
+        for (int i = 0; i < stamp.length; i++) {
+            try {
+                stamp[i] = Files.getLastModifiedTime(files.get(i)).toMillis();
+            } catch (IOException e) {
+                stamp[i] = Long.MIN_VALUE;          // vanished: first to go
+            }
+        }
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(stamp[b], stamp[a]));   // newest first
+        long used = 0;
+        for (int i : order) {
+            Path p = files.get(i);
+            long size = HEADER + RASTER_BYTES;
+            if (p.equals(keep) || used + size <= maxBytes) {
+                used += size;
+                continue;
+            }
+            reject(p);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One rectangle of a cols×rows split of the world. Partition {@code index}
+ * covers [x0,x1)×[y0,y1) and is numbered row‐major.
+ */
+public final class WorldPartition {
+    public final int index, cols, rows;
+    public final int x0, y0, x1, y1;
+
+    public WorldPartition(int index, int cols, int rows) {
+        if (index < 0 || index >= cols * rows)
+            throw new IllegalArgumentException("partition " + index + " outside " + cols + "x" + rows);
+        this.index = index;
+        this.cols  = cols;
+        this.rows  = rows;
+        int col = index % cols, row = index / cols;
+        this.x0 = col       * Simulation.WORLD_W / cols;
+        this.x1 = (col + 1) * Simulation.WORLD_W / cols;
+        this.y0 = row       * Simulation.WORLD_H / rows;
+        this.y1 = (row + 1) * Simulation.WORLD_H / rows;
+    }
+
+    /** A single partition covering the whole world. */
+    public static WorldPartition whole() {
+        return new WorldPartition(0, 1, 1);
+    }
+
+    public boolean contains(int px, int py) {
+        return px >= x0 && px < x1 && py >= y0 && py < y1;
+    }
+
+    /** Index of the partition (of this split) that owns world point (px,py). */
+    public int ownerOf(int px, int py) {
+        int col = Math.min(cols - 1, px * cols / Simulation.WORLD_W);
+        int row = Math.min(rows - 1, py * rows / Simulation.WORLD_H);
+        return row * cols + col;
+    }
+
+    /** True if (px,py) lies within {@code margin} of this rectangle (inclusive of it). */
+    public boolean near(int px, int py, int margin) {
+        return px >= x0 - margin && px < x1 + margin
+            && py >= y0 - margin && py < y1 + margin;
+    }
+
+    /** The up to eight partitions that touch this one, including diagonals. */
+    public List<WorldPartition> neighbours() {
+        List<WorldPartition> out = new ArrayList<>();
+        int col = index % cols, row = index / cols;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int r = row + dr, c = col + dc;
+                if ((dr == 0 && dc == 0) || r < 0 || r >= rows || c < 0 || c >= cols)
+                    continue;
+                out.add(new WorldPartition(r * cols + c, cols, rows));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return "Partition " + index + " [" + x0 + "," + x1 + ")x[" + y0 + "," + y1 + ")";
+    }
+}